@@ -0,0 +1,89 @@
+package calendar;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Adding events, into a free gap, over an existing event (added with a warning) and over an
+ * existing event with autoDecline (rejected). Accepted adds grow the calendar, so they run in
+ * single shots of ADDS events each, and the calendar is rebuilt once it has grown by more than
+ * a hundredth of its size or, for small calendars, before every shot.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AddEventBenchmark {
+  static final int ADDS = 100;
+
+  @State(Scope.Benchmark)
+  public static class GrowingState extends CalendarState {
+    private int added;
+
+    @Setup(Level.Iteration)
+    public void rebuildIfGrown() {
+      if (added + ADDS > size / 100) {
+        build();
+        added = 0;
+      }
+    }
+
+    /**
+     * Returns a gap not yet filled since the last rebuild: the gaps are visited in an order
+     * coprime to the size, which is a power of ten.
+     */
+    int nextGap() {
+      return (int) (7919L * added++ % size);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 200)
+  @Measurement(iterations = 200)
+  @OperationsPerInvocation(ADDS)
+  public void addEventFree(GrowingState state) throws Exception {
+    for (int i = 0; i < ADDS; i++) {
+      int gap = state.nextGap();
+      state.calendar.addEvent(new CalendarEvent("Added", CalendarState.end(gap),
+              CalendarState.start(gap + 1), false), false);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 200)
+  @Measurement(iterations = 200)
+  @OperationsPerInvocation(ADDS)
+  public void addEventConflicting(GrowingState state) throws Exception {
+    for (int i = 0; i < ADDS; i++) {
+      int gap = state.nextGap();
+      state.calendar.addEvent(new CalendarEvent("Added", CalendarState.start(gap).plusMinutes(10),
+              CalendarState.end(gap).plusMinutes(5), false), false);
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  public void addEventDeclined(CalendarState state, Blackhole blackhole) {
+    int i = state.pick();
+    try {
+      state.calendar.addEvent(new CalendarEvent("Added", CalendarState.start(i).plusMinutes(10),
+              CalendarState.end(i).plusMinutes(5), false), true);
+    } catch (Exception e) {
+      blackhole.consume(e);
+    }
+  }
+}
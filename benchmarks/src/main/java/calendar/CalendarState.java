@@ -0,0 +1,93 @@
+package calendar;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A calendar of the benchmark's size. Event i is named "Event i" and runs for 20 minutes from
+ * i half hours after the start of 2025, so the events never overlap and the last 10 minutes of
+ * every half hour are free. Everything the calendar prints goes to a discarding sink.
+ */
+@State(Scope.Benchmark)
+public class CalendarState {
+  static final LocalDateTime ORIGIN = LocalDateTime.of(2025, 1, 1, 0, 0);
+  static final int EVENT_MINUTES = 20;
+  static final int SLOT_MINUTES = 30;
+
+  // Positions are drawn up front, so taking the next one costs a mask and an array read.
+  private static final int PICKS = 1 << 12;
+
+  @Param({"100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  CalendarManager calendar;
+  private int[] picks;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    OutputHandler.getInstance().useSink(new BatchedOutputSink(OutputStream.nullOutputStream(), false,
+            CalendarApp.DEFAULT_FLUSH_SIZE, CalendarApp.DEFAULT_FLUSH_MILLIS));
+    Random random = new Random(42);
+    picks = new int[PICKS];
+    for (int i = 0; i < PICKS; i++) {
+      picks[i] = random.nextInt(size);
+    }
+    build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    OutputHandler.getInstance().closeSink();
+  }
+
+  /**
+   * Replaces the calendar with a freshly loaded one of the benchmark's size.
+   */
+  void build() {
+    List<CalendarEvent> events = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      events.add(event(i));
+    }
+    calendar = new CalendarManager();
+    calendar.loadEvents(events);
+  }
+
+  /**
+   * Returns the index of a pseudo-random event.
+   */
+  int pick() {
+    return picks[next++ & (PICKS - 1)];
+  }
+
+  static CalendarEvent event(int i) {
+    return new CalendarEvent(name(i), start(i), end(i), false);
+  }
+
+  static String name(int i) {
+    return "Event " + i;
+  }
+
+  static LocalDateTime start(int i) {
+    return ORIGIN.plusMinutes((long) SLOT_MINUTES * i);
+  }
+
+  static LocalDateTime end(int i) {
+    return start(i).plusMinutes(EVENT_MINUTES);
+  }
+
+  static LocalDate day(int i) {
+    return start(i).toLocalDate();
+  }
+}
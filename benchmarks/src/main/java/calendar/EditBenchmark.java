@@ -0,0 +1,42 @@
+package calendar;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The three edits, each changing the location of one named event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EditBenchmark {
+  private static final String[] LOCATIONS = {"Room A", "Room B", "Room C"};
+
+  @Benchmark
+  public boolean editSingleEvent(CalendarState state) {
+    int i = state.pick();
+    return state.calendar.editSingleEvent("location", CalendarState.name(i), CalendarState.start(i),
+            CalendarState.end(i), LOCATIONS[i % LOCATIONS.length]);
+  }
+
+  @Benchmark
+  public int editEventsByStart(CalendarState state) {
+    int i = state.pick();
+    return state.calendar.editEventsByStart("location", CalendarState.name(i), CalendarState.start(i),
+            LOCATIONS[i % LOCATIONS.length]);
+  }
+
+  @Benchmark
+  public int editEventsByName(CalendarState state) {
+    int i = state.pick();
+    return state.calendar.editEventsByName("location", CalendarState.name(i), LOCATIONS[i % LOCATIONS.length]);
+  }
+}
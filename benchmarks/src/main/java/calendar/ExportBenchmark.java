@@ -0,0 +1,65 @@
+package calendar;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exporting the whole calendar to a temporary file, sequentially or with the parallel exporter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class ExportState extends CalendarState {
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    String fileName;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+      calendar.setParallelExport(parallel);
+      File file = File.createTempFile("export", ".out");
+      file.deleteOnExit();
+      fileName = file.getPath();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+      new File(fileName).delete();
+    }
+  }
+
+  @Benchmark
+  public void exportToCSV(ExportState state) {
+    state.calendar.exportToCSV(state.fileName);
+  }
+
+  @Benchmark
+  public void exportToGoogleCSV(ExportState state) {
+    state.calendar.exportToGoogleCSV(state.fileName);
+  }
+
+  @Benchmark
+  public void exportToICS(ExportState state) {
+    state.calendar.exportToICS(state.fileName);
+  }
+}
@@ -0,0 +1,140 @@
+package calendar;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Commands end to end through CommandParser.processCommand against a calendar of each size,
+ * and, independent of the calendar, parsing alone: the single-pass tokenizer against the
+ * split-based parser, and the fixed-layout date parser against DateTimeFormatter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ParserBenchmark {
+  private static final int LINES = 1 << 10;
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+  /**
+   * Lines that leave the calendar as it is: edits, printing a day and status checks.
+   */
+  @State(Scope.Benchmark)
+  public static class CommandState extends CalendarState {
+    String[] lines;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createLines() {
+      lines = new String[LINES];
+      for (int i = 0; i < LINES; i++) {
+        int event = pick();
+        String start = DATE_TIME.format(start(event));
+        String end = DATE_TIME.format(end(event));
+        switch (i % 4) {
+          case 0:
+            lines[i] = "edit event location " + name(event) + " from " + start + " to " + end + " with Room "
+                    + (i % 3);
+            break;
+          case 1:
+            lines[i] = "print events on " + day(event);
+            break;
+          case 2:
+            lines[i] = "show status on " + start;
+            break;
+          default:
+            lines[i] = "edit events description " + name(event) + " with Notes " + i;
+        }
+      }
+    }
+
+    String nextLine() {
+      return lines[next++ & (LINES - 1)];
+    }
+  }
+
+  /**
+   * A mix of the command forms, creates included, and their date-times.
+   */
+  @State(Scope.Benchmark)
+  public static class LineState {
+    String[] lines;
+    String[] dateTimes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createLines() {
+      Random random = new Random(42);
+      lines = new String[LINES];
+      dateTimes = new String[LINES];
+      for (int i = 0; i < LINES; i++) {
+        LocalDateTime start = CalendarState.ORIGIN.plusMinutes(15L * random.nextInt(1 << 20));
+        String from = DATE_TIME.format(start);
+        String to = DATE_TIME.format(start.plusMinutes(45));
+        dateTimes[i] = from;
+        switch (i % 6) {
+          case 0:
+            lines[i] = "create event Meeting " + i + " from " + from + " to " + to;
+            break;
+          case 1:
+            lines[i] = "create event Holiday on " + start.toLocalDate() + " --autodecline";
+            break;
+          case 2:
+            lines[i] = "create event Standup from " + from + " to " + to + " repeats MTWRF for 20 times";
+            break;
+          case 3:
+            lines[i] = "edit event location Meeting " + i + " from " + from + " to " + to + " with Room 2";
+            break;
+          case 4:
+            lines[i] = "print events from " + from + " to " + to;
+            break;
+          default:
+            lines[i] = "show status on " + from;
+        }
+      }
+    }
+
+    int nextIndex() {
+      return next++ & (LINES - 1);
+    }
+  }
+
+  @Benchmark
+  public void processCommand(CommandState state) throws Exception {
+    CommandParser.processCommand(state.nextLine(), state.calendar);
+  }
+
+  @Benchmark
+  public Command parse(LineState state) throws Exception {
+    return CommandParser.parse(state.lines[state.nextIndex()]);
+  }
+
+  @Benchmark
+  public Command parseBySplitting(LineState state) throws Exception {
+    return CommandParser.parseBySplitting(state.lines[state.nextIndex()]);
+  }
+
+  @Benchmark
+  public LocalDateTime parseDateTimeFixed(LineState state) {
+    return FixedDateParser.parseDateTime(state.dateTimes[state.nextIndex()]);
+  }
+
+  @Benchmark
+  public LocalDateTime parseDateTimeFormatter(LineState state) {
+    return LocalDateTime.parse(state.dateTimes[state.nextIndex()], DATE_TIME);
+  }
+}
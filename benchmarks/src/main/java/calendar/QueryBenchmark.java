@@ -0,0 +1,37 @@
+package calendar;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The point queries: the events of a day and whether a moment is busy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QueryBenchmark {
+
+  @Benchmark
+  public List<CalendarEvent> getEventsOn(CalendarState state) {
+    return state.calendar.getEventsOn(CalendarState.day(state.pick()));
+  }
+
+  @Benchmark
+  public boolean isBusyAtBusy(CalendarState state) {
+    return state.calendar.isBusyAt(CalendarState.start(state.pick()).plusMinutes(5));
+  }
+
+  @Benchmark
+  public boolean isBusyAtFree(CalendarState state) {
+    return state.calendar.isBusyAt(CalendarState.end(state.pick()).plusMinutes(5));
+  }
+}
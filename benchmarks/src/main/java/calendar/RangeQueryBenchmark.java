@@ -0,0 +1,49 @@
+package calendar;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Range queries over windows of a day to a year, walking the interval tree or, with columnar
+ * on, scanning the start and end columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RangeQueryBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class RangeState extends CalendarState {
+    @Param({"1", "30", "365"})
+    public int days;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    @Setup(Level.Trial)
+    public void enableColumns() {
+      calendar.setColumnarScan(columnar);
+    }
+  }
+
+  @Benchmark
+  public List<CalendarEvent> getEventsInRange(RangeState state) {
+    LocalDateTime from = CalendarState.start(state.pick());
+    return state.calendar.getEventsInRange(from, from.plusDays(state.days));
+  }
+}
@@ -0,0 +1,44 @@
+package calendar;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Expanding a weekday series of the benchmark's size into a list, and building it as a lazy
+ * series, which does not depend on the size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RecurringBenchmark {
+  private static final LocalDateTime START = CalendarState.ORIGIN.withHour(7);
+
+  @Param({"100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  @Benchmark
+  public List<CalendarEvent> generateRecurringEvents() throws Exception {
+    return RecurringEventGenerator.generateRecurringEvents("Gym", START, START.plusHours(1),
+            "MTWRF for " + size + " times", false);
+  }
+
+  @Benchmark
+  public RecurringSeries generateSeries() throws Exception {
+    return RecurringEventGenerator.generateSeries("Gym", START, START.plusHours(1),
+            "MTWRF for " + size + " times", false);
+  }
+}
@@ -0,0 +1,206 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs generated workloads of growing size through the headless command path and reports,
+ * for each size, the throughput, the latency percentiles of each command kind, the peak heap
+ * during the run and the heap the calendar retains at the end.
+ * <p>
+ * Each line is read, echoed and processed as in headless mode, with the output discarded so
+ * that the terminal does not set the pace. The files are generated into a temporary directory
+ * together with their exports, and deleted afterwards unless "--keep-files" is given.
+ * <p>
+ * Usage: ScalingReport [--sizes 1000,10000,100000] [--csv file] [--keep-files] and the options
+ * of {@link WorkloadGenerator#fromOptions}, except "--export-prefix".
+ */
+final class ScalingReport {
+  private static final String DEFAULT_SIZES = "1000,10000,100000";
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final String[] args;
+  private final PrintWriter csv;
+
+  private ScalingReport(String[] args, PrintWriter csv) {
+    this.args = args;
+    this.csv = csv;
+  }
+
+  /**
+   * The latencies of the commands of one run, in nanoseconds, by kind.
+   */
+  private static final class Latencies {
+    private final long[][] byKind = new long[WorkloadGenerator.Kind.values().length][];
+    private final int[] counts = new int[byKind.length];
+
+    Latencies() {
+      Arrays.fill(byKind, new long[0]);
+    }
+
+    void add(WorkloadGenerator.Kind kind, long nanos) {
+      int k = kind.ordinal();
+      if (counts[k] == byKind[k].length) {
+        byKind[k] = Arrays.copyOf(byKind[k], Math.max(1024, counts[k] * 2));
+      }
+      byKind[k][counts[k]++] = nanos;
+    }
+
+    /**
+     * Returns the sorted latencies of a kind, or of all commands for null.
+     */
+    long[] sorted(WorkloadGenerator.Kind kind) {
+      long[] all;
+      if (kind != null) {
+        all = Arrays.copyOf(byKind[kind.ordinal()], counts[kind.ordinal()]);
+      } else {
+        all = new long[Arrays.stream(counts).sum()];
+        int at = 0;
+        for (int k = 0; k < byKind.length; k++) {
+          System.arraycopy(byKind[k], 0, all, at, counts[k]);
+          at += counts[k];
+        }
+      }
+      Arrays.sort(all);
+      return all;
+    }
+  }
+
+  private void run(int events, Path dir) throws Exception {
+    String fileName = dir.resolve("workload-" + events + ".txt").toString();
+    String[] generatorArgs = Arrays.copyOf(args, args.length + 2);
+    generatorArgs[args.length] = "--export-prefix";
+    generatorArgs[args.length + 1] = dir.resolve("export-" + events).toString();
+    WorkloadGenerator.fromOptions(generatorArgs, events).write(fileName);
+
+    CalendarManager calendar = new CalendarManager();
+    Latencies latencies = new Latencies();
+    List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+    long baseline = usedHeapAfterGc();
+    pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    long begin = System.nanoTime();
+    try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+      String command;
+      while ((command = reader.readLine()) != null) {
+        long start = System.nanoTime();
+        OutputHandler.getInstance().echo(command);
+        CommandParser.processCommand(command, calendar);
+        latencies.add(WorkloadGenerator.Kind.of(command), System.nanoTime() - start);
+      }
+    }
+    long elapsed = System.nanoTime() - begin;
+    long peak = 0;
+    for (MemoryPoolMXBean pool : pools) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    long retained = usedHeapAfterGc() - baseline;
+    // Keeps the calendar reachable until its heap has been measured.
+    if (calendar.isEmpty() && events > 0) {
+      throw new Exception("The workload created no events.");
+    }
+    report(events, latencies, elapsed, peak, retained);
+  }
+
+  private void report(int events, Latencies latencies, long elapsed, long peak, long retained) {
+    long[] all = latencies.sorted(null);
+    double throughput = all.length / (elapsed / 1e9);
+    System.out.printf("%,d events: %,d commands in %.2f s, %,.0f commands/s, peak heap %,d MB, retained %,d MB%n",
+            events, all.length, elapsed / 1e9, throughput, peak >> 20, retained >> 20);
+    System.out.printf("  %-10s %10s %10s %10s %10s %10s %12s%n", "kind", "count", "p50 us", "p90 us",
+            "p99 us", "p99.9 us", "max us");
+    String run = String.format(",%.1f,%d,%d", throughput, peak, retained);
+    row(events, "all", all, run);
+    for (WorkloadGenerator.Kind kind : WorkloadGenerator.Kind.values()) {
+      long[] sorted = latencies.sorted(kind);
+      if (sorted.length > 0) {
+        row(events, kind.key, sorted, run);
+      }
+    }
+    System.out.flush();
+  }
+
+  /**
+   * Prints the latencies of a kind, and adds them to the CSV file with the figures of the run.
+   */
+  private void row(int events, String kind, long[] sorted, String run) {
+    System.out.printf("  %-10s %,10d", kind, sorted.length);
+    for (double p : PERCENTILES) {
+      System.out.printf(" %10.1f", percentile(sorted, p) / 1e3);
+    }
+    System.out.printf(" %,12.1f%n", sorted[sorted.length - 1] / 1e3);
+    if (csv != null) {
+      csv.printf("%d,%s,%d", events, kind, sorted.length);
+      for (double p : PERCENTILES) {
+        csv.printf(",%d", percentile(sorted, p));
+      }
+      csv.printf(",%d%s%n", sorted[sorted.length - 1], run);
+    }
+  }
+
+  /**
+   * Returns the nearest-rank percentile of sorted values.
+   */
+  static long percentile(long[] sorted, double p) {
+    int rank = (int) Math.ceil(p / 100 * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+  }
+
+  private static long usedHeapAfterGc() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static void deleteAll(Path dir) throws IOException {
+    File[] files = dir.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        Files.delete(file.toPath());
+      }
+    }
+    Files.delete(dir);
+  }
+
+  public static void main(String[] args) {
+    String sizes = CalendarApp.optionValue(args, "--sizes");
+    String csvFile = CalendarApp.optionValue(args, "--csv");
+    boolean keepFiles = CalendarApp.hasOption(args, "--keep-files");
+    try {
+      Path dir = Files.createTempDirectory("workload");
+      OutputHandler.getInstance().useSink(new BatchedOutputSink(OutputStream.nullOutputStream(), false,
+              CalendarApp.DEFAULT_FLUSH_SIZE, CalendarApp.DEFAULT_FLUSH_MILLIS));
+      try (PrintWriter csv = csvFile == null ? null : new PrintWriter(csvFile)) {
+        if (csv != null) {
+          csv.println("events,kind,count,p50_ns,p90_ns,p99_ns,p999_ns,max_ns,commands_per_s,"
+                  + "peak_heap_bytes,retained_heap_bytes");
+        }
+        ScalingReport report = new ScalingReport(args, csv);
+        for (String size : (sizes == null ? DEFAULT_SIZES : sizes).split(",")) {
+          report.run(Integer.parseInt(size.trim()), dir);
+        }
+      } finally {
+        OutputHandler.getInstance().closeSink();
+        if (keepFiles) {
+          System.out.println("Workload files kept in " + dir);
+        } else {
+          deleteAll(dir);
+        }
+      }
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
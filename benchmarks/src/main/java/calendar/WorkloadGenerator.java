@@ -0,0 +1,363 @@
+package calendar;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates command files for headless mode with a given number of creates, a mix of command
+ * kinds and a share of creates that conflict with an earlier event.
+ * <p>
+ * Timed events take 45-minute slots on the hours from 08:00 to 17:00, Monday to Friday, one
+ * slot after another. All-day events take the weekends, and recurring series "MWF" meetings
+ * in the early hours, so none of them overlap unless chosen to conflict. A conflicting create
+ * is placed 15 minutes into an earlier event of its kind, or an all-day event on a day with
+ * timed events. Edits, prints and status checks refer to the events created so far, and the
+ * exports are spread evenly through the file. Every line is a valid command, so the whole
+ * file runs; conflicts are only warned about.
+ * <p>
+ * Usage: WorkloadGenerator --events N [options] file, with the options of {@link #fromOptions}.
+ */
+final class WorkloadGenerator {
+  static final LocalDateTime ORIGIN = LocalDateTime.of(2025, 1, 6, 0, 0);
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final int MINUTES = 45;
+  private static final int CONFLICT_OFFSET = 15;
+
+  /**
+   * The command kinds, with the mix weights they default to.
+   */
+  enum Kind {
+    SINGLE("single", 70),
+    ALL_DAY("allday", 10),
+    RECURRING("recurring", 5),
+    EDIT("edit", 8),
+    PRINT("print", 4),
+    STATUS("status", 3),
+    EXPORT("export", 0);
+
+    final String key;
+    final int defaultWeight;
+
+    Kind(String key, int defaultWeight) {
+      this.key = key;
+      this.defaultWeight = defaultWeight;
+    }
+
+    boolean isCreate() {
+      return this == SINGLE || this == ALL_DAY || this == RECURRING;
+    }
+
+    /**
+     * Returns the kind of a generated line.
+     */
+    static Kind of(String line) {
+      if (line.startsWith("create event")) {
+        return line.contains(" repeats ") ? RECURRING : line.contains(" from ") ? SINGLE : ALL_DAY;
+      } else if (line.startsWith("edit")) {
+        return EDIT;
+      } else if (line.startsWith("print")) {
+        return PRINT;
+      } else if (line.startsWith("show")) {
+        return STATUS;
+      }
+      return EXPORT;
+    }
+  }
+
+  private final int events;
+  private final int[] weights;
+  private final double conflicts;
+  private final int occurrences;
+  private final int exports;
+  private final String exportPrefix;
+  private final Random random;
+
+  // Start minutes after ORIGIN of the timed events and series created so far.
+  private long[] singles = new long[1024];
+  private int singleCount;
+  private long[] series = new long[64];
+  private int seriesCount;
+  private int allDayCount;
+  private int slots;
+  private int allDaySlots;
+  private int seriesSlots;
+
+  /**
+   * @param events the number of create commands; a recurring create counts once
+   * @param weights the relative share of each kind, indexed by ordinal; the export weight is unused
+   * @param conflicts the share of creates that overlap an earlier event
+   * @param occurrences the occurrences of each recurring series
+   * @param exports the number of exports, alternating between the CSV and Google CSV formats
+   * @param exportPrefix the path the export files are named from
+   */
+  WorkloadGenerator(int events, int[] weights, double conflicts, int occurrences, int exports,
+                    String exportPrefix, long seed) throws Exception {
+    if (weights[Kind.SINGLE.ordinal()] + weights[Kind.ALL_DAY.ordinal()]
+            + weights[Kind.RECURRING.ordinal()] <= 0) {
+      throw new Exception("The mix must include creates.");
+    }
+    if (conflicts < 0 || conflicts > 1) {
+      throw new Exception("The conflict share must be between 0 and 1.");
+    }
+    this.events = events;
+    this.weights = weights.clone();
+    this.conflicts = conflicts;
+    this.occurrences = occurrences;
+    this.exports = exports;
+    this.exportPrefix = exportPrefix;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Reads "--mix single=70,allday=10,recurring=5,edit=8,print=4,status=3" (kinds left out
+   * keep these weights), "--conflicts 0.05", "--occurrences 10", "--exports 2",
+   * "--export-prefix workload" and "--seed 1".
+   */
+  static WorkloadGenerator fromOptions(String[] args, int events) throws Exception {
+    int[] weights = new int[Kind.values().length];
+    for (Kind kind : Kind.values()) {
+      weights[kind.ordinal()] = kind.defaultWeight;
+    }
+    String mix = CalendarApp.optionValue(args, "--mix");
+    if (mix != null) {
+      for (String entry : mix.split(",")) {
+        String[] pair = entry.split("=", 2);
+        Kind kind = Arrays.stream(Kind.values()).filter(k -> k.key.equalsIgnoreCase(pair[0].trim()))
+                .findFirst().orElseThrow(() -> new Exception("Unknown command kind: " + pair[0]));
+        if (pair.length < 2 || kind == Kind.EXPORT) {
+          throw new Exception("Invalid mix entry: " + entry);
+        }
+        weights[kind.ordinal()] = Integer.parseInt(pair[1].trim());
+      }
+    }
+    String conflicts = CalendarApp.optionValue(args, "--conflicts");
+    String occurrences = CalendarApp.optionValue(args, "--occurrences");
+    String exports = CalendarApp.optionValue(args, "--exports");
+    String prefix = CalendarApp.optionValue(args, "--export-prefix");
+    String seed = CalendarApp.optionValue(args, "--seed");
+    return new WorkloadGenerator(events, weights,
+            conflicts == null ? 0.05 : Double.parseDouble(conflicts),
+            occurrences == null ? 10 : Integer.parseInt(occurrences),
+            exports == null ? 2 : Integer.parseInt(exports),
+            prefix == null ? "workload" : prefix,
+            seed == null ? 1 : Long.parseLong(seed));
+  }
+
+  /**
+   * Returns the kinds of the commands in file order: the shuffled mix, with the exports spread
+   * evenly and the last of them at the end.
+   */
+  Kind[] plan() {
+    int createWeight = 0;
+    int totalWeight = 0;
+    for (Kind kind : Kind.values()) {
+      if (kind != Kind.EXPORT) {
+        totalWeight += weights[kind.ordinal()];
+        createWeight += kind.isCreate() ? weights[kind.ordinal()] : 0;
+      }
+    }
+    // Creates are split by their weights, with the rounding left to the timed events.
+    int[] counts = new int[Kind.values().length];
+    int others = 0;
+    for (Kind kind : Kind.values()) {
+      if (kind != Kind.EXPORT && kind != Kind.SINGLE) {
+        long base = kind.isCreate() ? events : (long) events * totalWeight / createWeight;
+        int weight = kind.isCreate() ? createWeight : totalWeight;
+        counts[kind.ordinal()] = (int) (base * weights[kind.ordinal()] / weight);
+        others += kind.isCreate() ? counts[kind.ordinal()] : 0;
+      }
+    }
+    counts[Kind.SINGLE.ordinal()] = events - others;
+    int mixed = 0;
+    for (int count : counts) {
+      mixed += count;
+    }
+    Kind[] mix = new Kind[mixed];
+    int at = 0;
+    for (Kind kind : Kind.values()) {
+      Arrays.fill(mix, at, at + counts[kind.ordinal()], kind);
+      at += counts[kind.ordinal()];
+    }
+    for (int i = mix.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      Kind swap = mix[i];
+      mix[i] = mix[j];
+      mix[j] = swap;
+    }
+    Kind[] plan = new Kind[mixed + exports];
+    int from = 0;
+    at = 0;
+    for (int e = 1; e <= exports; e++) {
+      int to = (int) ((long) mixed * e / exports);
+      System.arraycopy(mix, from, plan, at, to - from);
+      at += to - from;
+      plan[at++] = Kind.EXPORT;
+      from = to;
+    }
+    System.arraycopy(mix, from, plan, at, mixed - from);
+    return plan;
+  }
+
+  /**
+   * Writes the commands of the plan, one per line.
+   */
+  void write(Writer out, Kind[] plan) throws IOException {
+    int exported = 0;
+    for (Kind kind : plan) {
+      switch (kind) {
+        case SINGLE:
+          single(out);
+          break;
+        case ALL_DAY:
+          allDay(out);
+          break;
+        case RECURRING:
+          recurring(out);
+          break;
+        case EDIT:
+          edit(out);
+          break;
+        case PRINT:
+          print(out);
+          break;
+        case STATUS:
+          out.append("show status on ").append(format(someStart().plusMinutes(random.nextInt(60))));
+          break;
+        default:
+          exported++;
+          out.append(exported % 2 == 1 ? "export cal " : "export googlecsv ")
+                  .append(exportPrefix).append('-').append(String.valueOf(exported)).append(".csv");
+      }
+      out.append('\n');
+    }
+  }
+
+  /**
+   * Writes a whole workload to a file and returns its plan.
+   */
+  Kind[] write(String fileName) throws IOException {
+    Kind[] plan = plan();
+    try (Writer out = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+      write(out, plan);
+    }
+    return plan;
+  }
+
+  private void single(Writer out) throws IOException {
+    long start;
+    if (singleCount > 0 && random.nextDouble() < conflicts) {
+      start = singles[random.nextInt(singleCount)] + CONFLICT_OFFSET;
+    } else {
+      int slot = slots++;
+      start = minutes(slot / 50 * 7 + slot % 50 / 10, 8 + slot % 10);
+    }
+    if (singleCount == singles.length) {
+      singles = Arrays.copyOf(singles, singleCount * 2);
+    }
+    singles[singleCount] = start;
+    LocalDateTime at = ORIGIN.plusMinutes(start);
+    out.append("create event Meeting ").append(String.valueOf(singleCount++)).append(" from ")
+            .append(format(at)).append(" to ").append(format(at.plusMinutes(MINUTES)));
+  }
+
+  private void allDay(Writer out) throws IOException {
+    LocalDateTime day;
+    if (singleCount > 0 && random.nextDouble() < conflicts) {
+      day = ORIGIN.plusMinutes(singles[random.nextInt(singleCount)]);
+    } else {
+      int slot = allDaySlots++;
+      day = ORIGIN.plusDays(slot / 2 * 7L + 5 + slot % 2);
+    }
+    out.append("create event Holiday ").append(String.valueOf(allDayCount++)).append(" on ")
+            .append(day.toLocalDate().toString());
+  }
+
+  private void recurring(Writer out) throws IOException {
+    long start;
+    if (seriesCount > 0 && random.nextDouble() < conflicts) {
+      start = series[random.nextInt(seriesCount)] + CONFLICT_OFFSET;
+    } else {
+      // Eight early-hour bands, each taking series one after another, week by week.
+      int slot = seriesSlots++;
+      int weeks = (occurrences + 2) / 3;
+      start = minutes(slot / 8 * weeks * 7, slot % 8);
+    }
+    if (seriesCount == series.length) {
+      series = Arrays.copyOf(series, seriesCount * 2);
+    }
+    series[seriesCount] = start;
+    LocalDateTime at = ORIGIN.plusMinutes(start);
+    out.append("create event Standup ").append(String.valueOf(seriesCount++)).append(" from ")
+            .append(format(at)).append(" to ").append(format(at.plusMinutes(MINUTES)))
+            .append(" repeats MWF for ").append(String.valueOf(occurrences)).append(" times");
+  }
+
+  private void edit(Writer out) throws IOException {
+    int choice = random.nextInt(3);
+    if (choice == 2 && seriesCount > 0) {
+      int s = random.nextInt(seriesCount);
+      LocalDateTime from = ORIGIN.plusMinutes(series[s]).plusWeeks(random.nextInt((occurrences + 2) / 3));
+      out.append("edit events location Standup ").append(String.valueOf(s)).append(" from ")
+              .append(format(from)).append(" with Room ").append(String.valueOf(random.nextInt(10)));
+      return;
+    }
+    int e = singleCount == 0 ? 0 : random.nextInt(singleCount);
+    LocalDateTime at = ORIGIN.plusMinutes(singleCount == 0 ? 0 : singles[e]);
+    if (choice == 0) {
+      out.append("edit event location Meeting ").append(String.valueOf(e)).append(" from ")
+              .append(format(at)).append(" to ").append(format(at.plusMinutes(MINUTES)))
+              .append(" with Room ").append(String.valueOf(random.nextInt(10)));
+    } else {
+      out.append("edit events description Meeting ").append(String.valueOf(e)).append(" with Agenda ")
+              .append(String.valueOf(random.nextInt(10)));
+    }
+  }
+
+  private void print(Writer out) throws IOException {
+    LocalDateTime at = someStart();
+    if (random.nextBoolean()) {
+      out.append("print events on ").append(at.toLocalDate().toString());
+    } else {
+      LocalDateTime from = at.toLocalDate().atStartOfDay();
+      out.append("print events from ").append(format(from)).append(" to ").append(format(from.plusDays(1)));
+    }
+  }
+
+  /**
+   * Returns the start of a random timed event created so far, or ORIGIN before the first.
+   */
+  private LocalDateTime someStart() {
+    return ORIGIN.plusMinutes(singleCount == 0 ? 0 : singles[random.nextInt(singleCount)]);
+  }
+
+  private static long minutes(long days, int hour) {
+    return days * 24 * 60 + hour * 60L;
+  }
+
+  private static String format(LocalDateTime dateTime) {
+    return DATE_TIME.format(dateTime);
+  }
+
+  public static void main(String[] args) {
+    String events = CalendarApp.optionValue(args, "--events");
+    if (events == null || args.length % 2 == 0) {
+      System.err.println("Usage: WorkloadGenerator --events N [--mix kind=weight,...] [--conflicts share]"
+              + " [--occurrences N] [--exports N] [--export-prefix path] [--seed N] file");
+      System.exit(2);
+    }
+    String fileName = args[args.length - 1];
+    try {
+      Kind[] plan = fromOptions(args, Integer.parseInt(events)).write(fileName);
+      System.out.println("Wrote " + plan.length + " commands to " + fileName);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+public class WorkloadGeneratorTest {
+
+  private static int[] defaultWeights() {
+    return Arrays.stream(WorkloadGenerator.Kind.values()).mapToInt(k -> k.defaultWeight).toArray();
+  }
+
+  @Test
+  public void testPlan_MatchesMixAndSpreadsExports() throws Exception {
+    WorkloadGenerator.Kind[] plan = new WorkloadGenerator(1000, defaultWeights(), 0.05, 10, 4, "out", 1).plan();
+    int[] counts = new int[WorkloadGenerator.Kind.values().length];
+    for (WorkloadGenerator.Kind kind : plan) {
+      counts[kind.ordinal()]++;
+    }
+    assertEquals(1000, counts[0] + counts[1] + counts[2]);
+    assertEquals(117, counts[1]);
+    assertEquals(58, counts[2]);
+    assertEquals(94, counts[3]);
+    assertEquals(4, counts[WorkloadGenerator.Kind.EXPORT.ordinal()]);
+    assertEquals(WorkloadGenerator.Kind.EXPORT, plan[plan.length - 1]);
+  }
+
+  /**
+   * Runs a generated workload through the command parser and returns its output.
+   */
+  private static String run(double conflicts) throws Exception {
+    File exports = File.createTempFile("workload", "");
+    exports.delete();
+    WorkloadGenerator generator = new WorkloadGenerator(2000, defaultWeights(), conflicts, 6, 2,
+            exports.getPath(), 7);
+    StringWriter file = new StringWriter();
+    WorkloadGenerator.Kind[] plan = generator.plan();
+    generator.write(file, plan);
+    String[] lines = file.toString().split("\n");
+    assertEquals(plan.length, lines.length);
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(baos));
+    CalendarManager calendar = new CalendarManager();
+    try {
+      for (int i = 0; i < lines.length; i++) {
+        assertEquals(plan[i], WorkloadGenerator.Kind.of(lines[i]));
+        CommandParser.processCommand(lines[i], calendar);
+      }
+    } finally {
+      System.setOut(originalOut);
+      new File(exports.getPath() + "-1.csv").delete();
+      new File(exports.getPath() + "-2.csv").delete();
+    }
+    return baos.toString();
+  }
+
+  @Test
+  public void testWrite_ConflictsOnlyAsConfigured() throws Exception {
+    String output = run(0);
+    assertFalse(output.contains("Warning"));
+    assertTrue(output.contains("Exported to CSV"));
+    assertTrue(output.contains("Exported to Google CSV"));
+
+    long warned = run(0.1).lines().filter(line -> line.startsWith("Warning")).count();
+    assertTrue(warned >= 100);
+  }
+}
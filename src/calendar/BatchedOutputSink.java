@@ -0,0 +1,201 @@
+package calendar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An output sink that collects lines into large buffers and writes them on a background thread.
+ * Callers append to the current buffer under a short lock; once it holds flushSize characters
+ * it is queued for the writer thread and a spare buffer takes its place. The writer also picks
+ * up a partly filled buffer once flushMillis pass without a full one being queued. The interval
+ * runs from when the writer starts waiting, not from the last line, so a line waits at most
+ * about flushMillis beyond the buffers ahead of it, and may go out sooner. With flushMillis 0
+ * there is no timed flush, and a partly filled buffer waits for {@link #flush()} or close.
+ * At most MAX_PENDING buffers wait to be written, after which callers block until the writer
+ * catches up. {@link #flush()} returns once everything appended before it has
+ * been written; {@link #close()} flushes and stops the writer.
+ * A write failure stops further output and is reported by close.
+ */
+public class BatchedOutputSink implements Closeable {
+  static final int MAX_PENDING = 4;
+  static final int MAX_FLUSH_SIZE = 1 << 24;
+
+  private final Writer out;
+  private final boolean closeTarget;
+  private final int flushSize;
+  private final long flushMillis;
+  private final String lineSeparator = System.lineSeparator();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition queued = lock.newCondition();
+  private final Condition written = lock.newCondition();
+  private final Deque<StringBuilder> pending = new ArrayDeque<>();
+  private final Deque<StringBuilder> spare = new ArrayDeque<>();
+  private StringBuilder current;
+  private boolean writing;
+  private boolean closing;
+  private IOException failure;
+  private final Thread writer;
+
+  /**
+   * Creates a sink writing to the given stream in the default charset. If closeTarget is false,
+   * closing the sink only flushes the stream, as for standard output. flushSize must be from 1
+   * to MAX_FLUSH_SIZE and flushMillis must not be negative.
+   */
+  public BatchedOutputSink(OutputStream target, boolean closeTarget, int flushSize, long flushMillis) {
+    if (flushSize < 1 || flushSize > MAX_FLUSH_SIZE) {
+      throw new IllegalArgumentException("Flush size must be from 1 to " + MAX_FLUSH_SIZE + ".");
+    }
+    if (flushMillis < 0) {
+      throw new IllegalArgumentException("Flush interval must not be negative.");
+    }
+    this.out = new OutputStreamWriter(target, Charset.defaultCharset());
+    this.closeTarget = closeTarget;
+    this.flushSize = flushSize;
+    this.flushMillis = flushMillis;
+    this.current = new StringBuilder(flushSize + 256);
+    this.writer = new Thread(this::writeLoop, "output-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  public void println(CharSequence line) {
+    lock.lock();
+    try {
+      current.append(line).append(lineSeparator);
+      queueIfFull();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a line made of a prefix and a text, without joining them into one string first.
+   */
+  public void println(CharSequence prefix, CharSequence line) {
+    lock.lock();
+    try {
+      current.append(prefix).append(line).append(lineSeparator);
+      queueIfFull();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until every line appended so far has been written to the target.
+   */
+  public void flush() {
+    lock.lock();
+    try {
+      if (current.length() > 0) {
+        queue();
+      }
+      while (!pending.isEmpty() || writing) {
+        written.awaitUninterruptibly();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    lock.lock();
+    try {
+      closing = true;
+      queued.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (closeTarget) {
+      out.close();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void queueIfFull() {
+    if (current.length() >= flushSize) {
+      while (pending.size() >= MAX_PENDING) {
+        written.awaitUninterruptibly();
+      }
+      queue();
+    }
+  }
+
+  private void queue() {
+    pending.add(current);
+    current = spare.isEmpty() ? new StringBuilder(flushSize + 256) : spare.poll();
+    queued.signal();
+  }
+
+  private void writeLoop() {
+    char[] chars = new char[8192];
+    while (true) {
+      StringBuilder batch;
+      lock.lock();
+      try {
+        while (pending.isEmpty()) {
+          if (closing) {
+            return;
+          }
+          if (flushMillis == 0) {
+            queued.await();
+          } else if (!queued.await(flushMillis, TimeUnit.MILLISECONDS) && pending.isEmpty()
+                  && current.length() > 0) {
+            queue();
+          }
+        }
+        batch = pending.poll();
+        writing = true;
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        lock.unlock();
+      }
+      write(batch, chars);
+      lock.lock();
+      try {
+        batch.setLength(0);
+        spare.add(batch);
+        writing = false;
+        written.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void write(StringBuilder batch, char[] chars) {
+    if (failure != null) {
+      return;
+    }
+    try {
+      for (int start = 0; start < batch.length(); start += chars.length) {
+        int end = Math.min(batch.length(), start + chars.length);
+        batch.getChars(start, end, chars, 0);
+        out.write(chars, 0, end - start);
+      }
+      out.flush();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package calendar;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A set of disjoint half-open busy intervals, kept merged as intervals are added.
+ * Maps each interval start to its end, so a point lookup is a single floorEntry.
+ */
+class BusyIntervals {
+  private final NavigableMap<LocalDateTime, LocalDateTime> intervals = new TreeMap<>();
+
+  /**
+   * Marks [start, end) as busy, merging it with any interval it overlaps or touches.
+   * Empty and inverted intervals are ignored since no instant falls inside them.
+   */
+  public void add(LocalDateTime start, LocalDateTime end) {
+    if (!start.isBefore(end)) {
+      return;
+    }
+    Map.Entry<LocalDateTime, LocalDateTime> before = intervals.floorEntry(start);
+    if (before != null && !before.getValue().isBefore(start)) {
+      if (!before.getValue().isBefore(end)) {
+        return;
+      }
+      start = before.getKey();
+    }
+    Iterator<Map.Entry<LocalDateTime, LocalDateTime>> covered =
+            intervals.subMap(start, true, end, true).entrySet().iterator();
+    while (covered.hasNext()) {
+      LocalDateTime coveredEnd = covered.next().getValue();
+      if (coveredEnd.isAfter(end)) {
+        end = coveredEnd;
+      }
+      covered.remove();
+    }
+    intervals.put(start, end);
+  }
+
+  /**
+   * Marks the intervals of events given in start order as busy. Into an empty set the
+   * intervals are merged in one pass, so each merged interval is put only once.
+   */
+  public void addAllSorted(List<CalendarEvent> sorted) {
+    if (!intervals.isEmpty()) {
+      for (CalendarEvent event : sorted) {
+        add(event.getStart(), event.getEnd());
+      }
+      return;
+    }
+    LocalDateTime start = null;
+    LocalDateTime end = null;
+    for (CalendarEvent event : sorted) {
+      if (!event.getStart().isBefore(event.getEnd())) {
+        continue;
+      }
+      if (start != null && !event.getStart().isAfter(end)) {
+        if (event.getEnd().isAfter(end)) {
+          end = event.getEnd();
+        }
+      } else {
+        if (start != null) {
+          intervals.put(start, end);
+        }
+        start = event.getStart();
+        end = event.getEnd();
+      }
+    }
+    if (start != null) {
+      intervals.put(start, end);
+    }
+  }
+
+  /**
+   * Returns true if the given instant falls inside a busy interval.
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    Map.Entry<LocalDateTime, LocalDateTime> entry = intervals.floorEntry(dateTime);
+    return entry != null && entry.getValue().isAfter(dateTime);
+  }
+
+  public int size() {
+    return intervals.size();
+  }
+}
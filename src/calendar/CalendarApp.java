@@ -4,6 +4,8 @@ import java.util.*;
 import java.io.*;
 
 public class CalendarApp {
+  static final int DEFAULT_FLUSH_SIZE = 1 << 16;
+  static final long DEFAULT_FLUSH_MILLIS = 100;
 
   public static void main(String[] args) {
     CalendarManager calendar = new CalendarManager();
@@ -11,6 +13,149 @@ public class CalendarApp {
       OutputHandler.getInstance().println("Usage: --mode interactive OR --mode headless <commandFile.txt>");
       return;
     }
+    try {
+      openOutput(args);
+    } catch (Exception e) {
+      OutputHandler.getInstance().println("Error opening output: " + e.getMessage());
+      return;
+    }
+    try {
+      run(calendar, args);
+    } finally {
+      try {
+        OutputHandler.getInstance().closeSink();
+      } catch (IOException e) {
+        System.err.println("Error writing output: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Sets up batched output for "--batch-output" (standard output) or "--output <file>", with
+   * "--flush-size <chars>" and "--flush-interval <ms>" (0 for no timed flush), and turns off
+   * command echo for "--no-echo".
+   */
+  private static void openOutput(String[] args) throws Exception {
+    OutputHandler.getInstance().setEcho(!hasOption(args, "--no-echo"));
+    String outputFile = optionValue(args, "--output");
+    if (outputFile == null && !hasOption(args, "--batch-output")) {
+      return;
+    }
+    String size = optionValue(args, "--flush-size");
+    String interval = optionValue(args, "--flush-interval");
+    int flushSize = size == null ? DEFAULT_FLUSH_SIZE
+            : (int) numberOption("--flush-size", size, 1, BatchedOutputSink.MAX_FLUSH_SIZE);
+    long flushMillis = interval == null ? DEFAULT_FLUSH_MILLIS
+            : numberOption("--flush-interval", interval, 0, Long.MAX_VALUE);
+    BatchedOutputSink sink = outputFile == null
+            ? new BatchedOutputSink(System.out, false, flushSize, flushMillis)
+            : new BatchedOutputSink(new FileOutputStream(outputFile), true, flushSize, flushMillis);
+    OutputHandler.getInstance().useSink(sink);
+  }
+
+  private static void run(CalendarManager calendar, String[] args) {
+    // Storage attached to the calendar, closed in reverse order on exit.
+    Deque<Closeable> attached = new ArrayDeque<>();
+    String snapshotFile = optionValue(args, "--snapshot");
+    try {
+      String storeFile = optionValue(args, "--store");
+      if (storeFile != null) {
+        MappedEventStore store = MappedEventStore.open(storeFile);
+        attached.push(store);
+        calendar.attachStore(store);
+      }
+      String journalFile = optionValue(args, "--journal");
+      if (journalFile != null) {
+        CommandJournal.SyncPolicy sync = "never".equalsIgnoreCase(optionValue(args, "--fsync"))
+                ? CommandJournal.SyncPolicy.NEVER : CommandJournal.SyncPolicy.EVERY_COMMIT;
+        String group = optionValue(args, "--group-commit");
+        CommandJournal journal = CommandJournal.open(journalFile, sync, group == null ? 1
+                : (int) numberOption("--group-commit", group, 1, CommandJournal.MAX_GROUP_SIZE));
+        attached.push(journal);
+        calendar.attachJournal(journal);
+      }
+      if (snapshotFile != null) {
+        if (!attached.isEmpty()) {
+          throw new Exception("A snapshot cannot be combined with a store or a journal.");
+        }
+        if (new File(snapshotFile).exists()) {
+          CalendarSnapshot.load(snapshotFile, calendar);
+        }
+      }
+    } catch (Exception e) {
+      OutputHandler.getInstance().println("Error opening storage: " + e.getMessage());
+      closeAll(attached);
+      return;
+    }
+    calendar.setParallelExport(hasOption(args, "--parallel-export"));
+    try {
+      runMode(calendar, args);
+      Transaction uncommitted = calendar.openTransaction();
+      if (uncommitted != null) {
+        OutputHandler.getInstance().println("Transaction not committed: " + uncommitted.size()
+                + " staged command(s) discarded.");
+      }
+      if (snapshotFile != null) {
+        CalendarSnapshot.write(calendar, snapshotFile);
+      }
+    } catch (IOException e) {
+      OutputHandler.getInstance().println("Error writing snapshot: " + e.getMessage());
+    } finally {
+      closeAll(attached);
+    }
+  }
+
+  private static void closeAll(Deque<Closeable> attached) {
+    while (!attached.isEmpty()) {
+      try {
+        attached.pop().close();
+      } catch (IOException e) {
+        OutputHandler.getInstance().println("Error closing storage: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the value following the named option, or null if the option is not given.
+   */
+  static String optionValue(String[] args, String name) {
+    for (int i = 0; i < args.length - 1; i++) {
+      if (args[i].equalsIgnoreCase(name)) {
+        return args[i + 1];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parses the value of a numeric option, which must be a whole number from min to max.
+   */
+  static long numberOption(String name, String value, long min, long max) throws Exception {
+    try {
+      long number = Long.parseLong(value);
+      if (number >= min && number <= max) {
+        return number;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below like an out-of-range value.
+    }
+    throw new Exception(name + " must be a whole number from " + min
+            + (max == Long.MAX_VALUE ? " up" : " to " + max) + ", not " + value + ".");
+  }
+
+  /**
+   * Returns true if the named flag is given.
+   */
+  static boolean hasOption(String[] args, String name) {
+    for (String arg : args) {
+      if (arg.equalsIgnoreCase(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void runMode(CalendarManager calendar, String[] args) {
     if (args[0].equalsIgnoreCase("--mode")) {
       if (args[1].equalsIgnoreCase("interactive")) {
         runInteractiveMode(calendar);
@@ -19,7 +164,22 @@ public class CalendarApp {
           OutputHandler.getInstance().println("Headless mode requires a command file.");
           return;
         }
-        runHeadlessMode(calendar, args[2]);
+        if (hasOption(args, "--pipeline")) {
+          // Parsing runs on spare cores while this thread applies the commands.
+          String threads = optionValue(args, "--parse-threads");
+          int parseThreads;
+          try {
+            parseThreads = threads != null
+                    ? (int) numberOption("--parse-threads", threads, 1, HeadlessPipeline.MAX_PARSE_THREADS)
+                    : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+          } catch (Exception e) {
+            OutputHandler.getInstance().println("Error starting pipeline: " + e.getMessage());
+            return;
+          }
+          new HeadlessPipeline(parseThreads).run(calendar, args[2]);
+        } else {
+          runHeadlessMode(calendar, args[2]);
+        }
       } else {
         OutputHandler.getInstance().println("Invalid mode. Use interactive or headless.");
       }
@@ -49,7 +209,7 @@ public class CalendarApp {
     try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
       String command;
       while ((command = br.readLine()) != null) {
-        OutputHandler.getInstance().println("> " + command);
+        OutputHandler.getInstance().echo(command);
         if (command.equalsIgnoreCase("exit")) {
           OutputHandler.getInstance().println("Exiting.");
           break;
@@ -1,9 +1,14 @@
 package calendar;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class CalendarEvent {
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
   private String eventName;
   private LocalDateTime start;
   private LocalDateTime end;
@@ -11,6 +16,8 @@ public class CalendarEvent {
   private String description;
   private String location;
   private boolean isPublic;
+  // Order in which the event was stored, used by CalendarManager to break start-time ties.
+  private long sequence;
 
   public CalendarEvent(String eventName, LocalDateTime start, LocalDateTime end, boolean isAllDay) {
     this.eventName = eventName;
@@ -28,18 +35,82 @@ public class CalendarEvent {
 
   @Override
   public String toString() {
-    DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    String eventDetails;
+    return appendTo(new StringBuilder(64)).toString();
+  }
+
+  /**
+   * Appends the same text as {@link #toString()} to the builder and returns it.
+   */
+  public StringBuilder appendTo(StringBuilder out) {
+    try {
+      appendTo((Appendable) out);
+    } catch (IOException e) {
+      // A StringBuilder never throws.
+      throw new UncheckedIOException(e);
+    }
+    return out;
+  }
+
+  /**
+   * Appends the same text as {@link #toString()}. Dates are written digit by digit, so no
+   * intermediate strings are built.
+   */
+  public void appendTo(Appendable out) throws IOException {
+    out.append(eventName);
     if (isAllDay) {
-      eventDetails = String.format("%s (All Day on %s)", eventName, start.toLocalDate());
+      out.append(" (All Day on ");
+      appendDate(out, start.toLocalDate());
+      out.append(')');
     } else {
-      eventDetails = String.format("%s from %s to %s", eventName, start.format(dtf), end.format(dtf));
+      out.append(" from ");
+      appendDateTime(out, start);
+      out.append(" to ");
+      appendDateTime(out, end);
     }
+    if (!description.isEmpty()) {
+      out.append(", Description: ").append(description);
+    }
+    if (!location.isEmpty()) {
+      out.append(", Location: ").append(location);
+    }
+    out.append(", ").append(isPublic ? "Public" : "Private");
+  }
 
-    String descDetails = (!description.isEmpty()) ? ", Description: " + description : "";
-    String locDetails  = (!location.isEmpty()) ? ", Location: " + location : "";
-    String privacy     = isPublic ? "Public" : "Private";
-    return eventDetails + descDetails + locDetails + ", " + privacy;
+  /**
+   * Writes the date as LocalDate.toString does.
+   */
+  private static void appendDate(Appendable out, LocalDate date) throws IOException {
+    int year = date.getYear();
+    if (year < 0 || year > 9999) {
+      out.append(date.toString());
+      return;
+    }
+    appendDigits(out, year / 100);
+    appendDigits(out, year % 100);
+    out.append('-');
+    appendDigits(out, date.getMonthValue());
+    out.append('-');
+    appendDigits(out, date.getDayOfMonth());
+  }
+
+  /**
+   * Writes the date and time in DATE_TIME's "yyyy-MM-dd HH:mm" layout.
+   */
+  private static void appendDateTime(Appendable out, LocalDateTime dateTime) throws IOException {
+    if (dateTime.getYear() < 1 || dateTime.getYear() > 9999) {
+      // Years outside four digits follow the formatter's era and sign rules.
+      DATE_TIME.formatTo(dateTime, out);
+      return;
+    }
+    appendDate(out, dateTime.toLocalDate());
+    out.append(' ');
+    appendDigits(out, dateTime.getHour());
+    out.append(':');
+    appendDigits(out, dateTime.getMinute());
+  }
+
+  private static void appendDigits(Appendable out, int twoDigits) throws IOException {
+    out.append((char) ('0' + twoDigits / 10)).append((char) ('0' + twoDigits % 10));
   }
 
   public String getEventName() {
@@ -98,4 +169,12 @@ public class CalendarEvent {
     this.isPublic = isPublic;
   }
 
+  long getSequence() {
+    return sequence;
+  }
+
+  void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
 }
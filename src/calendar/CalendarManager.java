@@ -2,14 +2,55 @@ package calendar;
 
 import java.util.*;
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 
 public class CalendarManager {
-  private List<CalendarEvent> events;
+  // Events ordered by start time, doubling as the overlap index for conflict detection.
+  private EventIntervalTree events;
+  // Events keyed by every epoch day they fall on, each list in start order.
+  private Map<Long, List<CalendarEvent>> eventsByDay;
+  // Union of all event intervals, merged, for status lookups.
+  private BusyIntervals busyIntervals;
+  // Events keyed by name, each list in start order; re-keyed when a name is edited.
+  private Map<String, List<CalendarEvent>> eventsByName;
+  // Recurring series, kept as rules and expanded only for the window being queried.
+  private List<RecurringSeries> series;
+  // The same series indexed by their span of dates, for queries and conflict checks.
+  private SeriesIndex seriesSpans;
+  // The same series keyed by name, each list in the order the series were added.
+  private Map<String, List<RecurringSeries>> seriesByName;
+  // Sequence number for the next stored event or series, so that ties keep insertion order.
+  private long nextSequence;
+  // Optional columnar copy of the stored events for range scans; null unless enabled.
+  private EventColumns columns;
+  // Exporter that formats rows on a thread pool; null for the sequential exporter.
+  private ParallelCsvExporter parallelExporter;
+  // Optional memory-mapped store that holds the stored events in place of the tree and the heap
+  // indexes above, and that every change is written through to; null unless attached.
+  private MappedEventStore store;
+  // Record index in the store of each series template.
+  private Map<CalendarEvent, Integer> storeIndex;
+  // Optional journal that every applied mutation is logged to; null unless attached.
+  private CommandJournal journal;
+  // Commands staged since "begin", applied on "commit"; null outside a transaction.
+  private Transaction transaction;
+
+  // Calendar order: by start time, then by the order in which events were added.
+  static final Comparator<CalendarEvent> START_ORDER =
+          Comparator.comparing(CalendarEvent::getStart).thenComparingLong(CalendarEvent::getSequence);
+
+  private static final Set<String> EDITABLE_PROPERTIES = Set.of("name", "description", "location", "public");
 
   public CalendarManager() {
-    events = new ArrayList<>();
+    events = new EventIntervalTree();
+    eventsByDay = new HashMap<>();
+    busyIntervals = new BusyIntervals();
+    eventsByName = new HashMap<>();
+    series = new ArrayList<>();
+    seriesSpans = new SeriesIndex();
+    seriesByName = new HashMap<>();
   }
 
   /**
@@ -21,18 +62,551 @@ public class CalendarManager {
   public void addEvent(CalendarEvent newEvent, boolean autoDecline) throws Exception {
     // Check for conflicts
     checkAndHandleConflict(newEvent, autoDecline);
-    events.add(newEvent);
-    // Sort events by start time
-    events.sort(Comparator.comparing(e -> e.getStart()));
+    newEvent.setSequence(nextSequence++);
+    // Logged before it is applied, so a failed write leaves the calendar as it was.
+    if (journal != null) {
+      journal.logEvent(newEvent);
+    }
+    storeEvent(newEvent);
+  }
+
+  /**
+   * Adds a batch of events to the calendar as a single unit.
+   * The batch is sorted once, checked against existing events through the overlap index
+   * and against itself with a sweep over start times, then inserted in one merge.
+   * If autoDecline is true and any conflict is found, an Exception is thrown and none of
+   * the events are added. Otherwise, a warning is printed for each conflict, in the order
+   * adding the sorted events one at a time would print them.
+   */
+  public void addEvents(Collection<CalendarEvent> newEvents, boolean autoDecline) throws Exception {
+    List<CalendarEvent> batch = new ArrayList<>(newEvents);
+    batch.sort(Comparator.comparing(e -> e.getStart()));
+    // Positions of the batch events that may still overlap the one being checked, soonest end first.
+    PriorityQueue<Integer> active = new PriorityQueue<>(Comparator.comparing(i -> batch.get(i).getEnd()));
+    List<Integer> earlier = new ArrayList<>();
+    for (int i = 0; i < batch.size(); i++) {
+      CalendarEvent newEvent = batch.get(i);
+      while (!active.isEmpty() && !batch.get(active.peek()).getEnd().isAfter(newEvent.getStart())) {
+        active.poll();
+      }
+      // Earlier batch events follow the stored events they tie with, and each other in batch order.
+      earlier.clear();
+      earlier.addAll(active);
+      Collections.sort(earlier);
+      List<CalendarEvent> stored = findOverlapping(newEvent.getStart(), newEvent.getEnd());
+      int next = 0;
+      for (CalendarEvent event : stored) {
+        while (next < earlier.size() && batch.get(earlier.get(next)).getStart().isBefore(event.getStart())) {
+          handleConflict(newEvent, batch.get(earlier.get(next++)), autoDecline);
+        }
+        handleConflict(newEvent, event, autoDecline);
+      }
+      while (next < earlier.size()) {
+        handleConflict(newEvent, batch.get(earlier.get(next++)), autoDecline);
+      }
+      active.add(i);
+    }
+    insertBatch(batch);
+  }
+
+  /**
+   * Adds a batch of events without checking for conflicts, as when loading events that are
+   * known to be consistent. The batch is sorted once and inserted in one merge.
+   */
+  public void loadEvents(Collection<CalendarEvent> newEvents) {
+    List<CalendarEvent> batch = new ArrayList<>(newEvents);
+    batch.sort(Comparator.comparing(e -> e.getStart()));
+    insertBatch(batch);
+  }
+
+  /**
+   * Checks, before a transaction applies anything, that none of the events and series it adds
+   * has a conflict that must be declined. Owners are the staged commands, numbered in staging
+   * order: the events and series are given with the owner that stages each, and autoDecline is
+   * indexed by owner. A conflict between two staged commands belongs to the later one. Declining
+   * events and series occurrences are looked up in the overlap index; the events are checked
+   * against each other with one sort and a sweep over start times, and against the series whose
+   * span of dates they fall in. Series are checked against each other by span, weekday mask and
+   * time of day, without building their occurrences. Nothing is printed; if any owner must
+   * decline, an Exception naming a conflict of the first such owner is thrown.
+   */
+  void checkDeclines(List<CalendarEvent> candidates, int[] owners, List<RecurringSeries> stagedSeries,
+                     int[] seriesOwners, boolean[] autoDecline) throws Exception {
+    Integer[] order = new Integer[candidates.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing(i -> candidates.get(i).getStart()));
+    // Positions in the index are positions in stagedSeries.
+    SeriesIndex spans = new SeriesIndex();
+    for (RecurringSeries s : stagedSeries) {
+      spans.add(s);
+    }
+    int declined = Integer.MAX_VALUE;
+    CalendarEvent declinedWith = null;
+    // Candidates that may still overlap the one being checked, soonest end first.
+    PriorityQueue<Integer> active = new PriorityQueue<>(Comparator.comparing(i -> candidates.get(i).getEnd()));
+    for (int i : order) {
+      CalendarEvent candidate = candidates.get(i);
+      if (autoDecline[owners[i]] && owners[i] < declined) {
+        for (CalendarEvent event : findOverlapping(candidate.getStart(), candidate.getEnd())) {
+          if (candidate.conflictsWith(event)) {
+            declined = owners[i];
+            declinedWith = event;
+            break;
+          }
+        }
+      }
+      while (!active.isEmpty() && !candidates.get(active.peek()).getEnd().isAfter(candidate.getStart())) {
+        active.poll();
+      }
+      for (int j : active) {
+        int later = Math.max(owners[i], owners[j]);
+        if (owners[i] != owners[j] && autoDecline[later] && later < declined
+                && candidate.conflictsWith(candidates.get(j))) {
+          declined = later;
+          declinedWith = candidates.get(later == owners[i] ? j : i);
+        }
+      }
+      for (RecurringSeries s : spans.overlapping(candidate.getStart().toLocalDate(),
+              candidate.getEnd().toLocalDate())) {
+        int later = Math.max(owners[i], seriesOwners[spans.position(s)]);
+        if (autoDecline[later] && later < declined) {
+          List<CalendarEvent> occurrences = s.findOverlapping(candidate.getStart(), candidate.getEnd());
+          if (!occurrences.isEmpty()) {
+            declined = later;
+            declinedWith = later == owners[i] ? occurrences.get(0) : candidate;
+          }
+        }
+      }
+      active.add(i);
+    }
+    for (int k = 0; k < stagedSeries.size(); k++) {
+      RecurringSeries s = stagedSeries.get(k);
+      int owner = seriesOwners[k];
+      if (!autoDecline[owner] || owner >= declined) {
+        continue;
+      }
+      for (RecurringSeries other : spans.overlapping(s.getFirstDate(), s.getLastDate())) {
+        if (seriesOwners[spans.position(other)] < owner && s.conflictsWith(other)) {
+          declined = owner;
+          declinedWith = other.getTemplate();
+          break;
+        }
+      }
+      for (Iterator<CalendarEvent> it = s.iterator(); it.hasNext() && owner < declined; ) {
+        CalendarEvent occurrence = it.next();
+        for (CalendarEvent event : findOverlapping(occurrence.getStart(), occurrence.getEnd())) {
+          if (occurrence.conflictsWith(event)) {
+            declined = owner;
+            declinedWith = event;
+            break;
+          }
+        }
+      }
+    }
+    if (declinedWith != null) {
+      throw new Exception("Conflict detected with event: " + declinedWith.getEventName());
+    }
+  }
+
+  /**
+   * Adds events whose conflicts were already checked, as when committing a transaction, with
+   * the warnings and numbering they would get if added one at a time in the given order.
+   * Conflicts within the batch are found with one sort and a sweep over start times; each
+   * event's warnings are printed, in calendar order, before added is called with its index.
+   * The batch is then inserted in one merge.
+   */
+  void addChecked(List<CalendarEvent> newEvents, IntConsumer added) {
+    for (CalendarEvent newEvent : newEvents) {
+      newEvent.setSequence(nextSequence++);
+    }
+    // The events are numbered in list order, so a stable sort by start puts them in calendar order.
+    List<CalendarEvent> batch = new ArrayList<>(newEvents);
+    batch.sort(Comparator.comparing(e -> e.getStart()));
+    // Earlier events of the batch that each event conflicts with, for the few that have any.
+    Map<CalendarEvent, List<CalendarEvent>> earlierConflicts = new IdentityHashMap<>();
+    PriorityQueue<CalendarEvent> active = new PriorityQueue<>(Comparator.comparing(e -> e.getEnd()));
+    for (CalendarEvent newEvent : batch) {
+      while (!active.isEmpty() && !active.peek().getEnd().isAfter(newEvent.getStart())) {
+        active.poll();
+      }
+      for (CalendarEvent other : active) {
+        if (newEvent.conflictsWith(other)) {
+          boolean newer = newEvent.getSequence() > other.getSequence();
+          earlierConflicts.computeIfAbsent(newer ? newEvent : other, e -> new ArrayList<>(1))
+                  .add(newer ? other : newEvent);
+        }
+      }
+      active.add(newEvent);
+    }
+    for (int i = 0; i < newEvents.size(); i++) {
+      CalendarEvent newEvent = newEvents.get(i);
+      List<CalendarEvent> overlapping = findOverlapping(newEvent.getStart(), newEvent.getEnd());
+      List<CalendarEvent> earlier = earlierConflicts.isEmpty() ? null : earlierConflicts.get(newEvent);
+      if (earlier != null) {
+        overlapping.addAll(earlier);
+        overlapping.sort(START_ORDER);
+      }
+      for (CalendarEvent event : overlapping) {
+        if (newEvent.conflictsWith(event)) {
+          OutputHandler.getInstance().println("Warning: Event conflicts with " + event.getEventName());
+        }
+      }
+      added.accept(i);
+    }
+    insertSorted(batch);
+  }
+
+  /**
+   * Inserts a batch sorted by start time, numbering the events in that order.
+   */
+  private void insertBatch(List<CalendarEvent> batch) {
+    for (CalendarEvent newEvent : batch) {
+      newEvent.setSequence(nextSequence++);
+    }
+    insertSorted(batch);
+  }
+
+  /**
+   * Inserts numbered events given in calendar order into the tree and indexes. The batch is
+   * logged first, as one group record.
+   */
+  private void insertSorted(List<CalendarEvent> batch) {
+    if (journal != null) {
+      journal.logEvents(batch);
+    }
+    if (store != null) {
+      for (CalendarEvent newEvent : batch) {
+        store.append(newEvent);
+      }
+      return;
+    }
+    events.insertAllSorted(batch);
+    busyIntervals.addAllSorted(batch);
+    for (CalendarEvent newEvent : batch) {
+      indexEventLists(newEvent);
+    }
+  }
+
+  /**
+   * Adds a numbered event to the stored events: to the mapped store if one is attached, and
+   * otherwise to the tree and the heap indexes.
+   */
+  private void storeEvent(CalendarEvent event) {
+    if (store != null) {
+      store.append(event);
+      return;
+    }
+    events.insert(event);
+    indexEvent(event);
+  }
+
+  /**
+   * Updates the secondary indexes for an event that was just inserted into the tree.
+   */
+  private void indexEvent(CalendarEvent event) {
+    indexEventLists(event);
+    busyIntervals.add(event.getStart(), event.getEnd());
+  }
+
+  /**
+   * Updates the columns, day buckets and name index, leaving the busy intervals to the caller
+   * so that a sorted batch can be merged into them in one pass.
+   */
+  private void indexEventLists(CalendarEvent event) {
+    if (columns != null) {
+      columns.insert(event);
+    }
+    indexByDay(event);
+    List<CalendarEvent> named = eventsByName.computeIfAbsent(event.getEventName(), n -> new ArrayList<>(1));
+    named.add(insertionPoint(named, event), event);
+  }
+
+  /**
+   * Registers the event under each day it occurs on: the start day for all-day events,
+   * and every day from the start day through the end day for timed events.
+   */
+  private void indexByDay(CalendarEvent event) {
+    long firstDay = event.getStart().toLocalDate().toEpochDay();
+    long lastDay = event.isAllDay() ? firstDay : event.getEnd().toLocalDate().toEpochDay();
+    for (long day = firstDay; day <= lastDay; day++) {
+      List<CalendarEvent> bucket = eventsByDay.computeIfAbsent(day, d -> new ArrayList<>(2));
+      bucket.add(insertionPoint(bucket, event), event);
+    }
+  }
+
+  /**
+   * Returns the index at which the event belongs in a list kept in calendar order.
+   */
+  private static int insertionPoint(List<CalendarEvent> list, CalendarEvent event) {
+    int hi = list.size();
+    // Events mostly arrive in calendar order, so check for an append first.
+    if (hi == 0 || START_ORDER.compare(list.get(hi - 1), event) <= 0) {
+      return hi;
+    }
+    int lo = 0;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (START_ORDER.compare(list.get(mid), event) > 0) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the index of the first event in a start-ordered list that starts at or after
+   * the given time.
+   */
+  private static int lowerBound(List<CalendarEvent> list, LocalDateTime start) {
+    int lo = 0;
+    int hi = list.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (list.get(mid).getStart().isBefore(start)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Adds a recurring series to the calendar without materializing its occurrences.
+   * Each occurrence is checked against existing events and series before the series is added,
+   * so with autoDecline a conflict leaves the calendar unchanged. Otherwise, a warning is printed.
+   */
+  public void addSeries(RecurringSeries newSeries, boolean autoDecline) throws Exception {
+    for (CalendarEvent occurrence : newSeries) {
+      for (CalendarEvent event : findOverlapping(occurrence.getStart(), occurrence.getEnd())) {
+        handleConflict(occurrence, event, autoDecline);
+      }
+    }
+    loadSeries(newSeries);
+  }
+
+  /**
+   * Adds a recurring series without checking for conflicts, as when loading a series that is
+   * known to be consistent. A series without occurrences is not added.
+   */
+  public void loadSeries(RecurringSeries newSeries) {
+    if (newSeries.iterator().hasNext()) {
+      newSeries.getTemplate().setSequence(nextSequence++);
+      if (journal != null) {
+        journal.logSeries(newSeries);
+      }
+      indexSeries(newSeries);
+      persistSeries(newSeries);
+    }
+  }
+
+  /**
+   * Adds a stored event that replaces an occurrence of a series already in the calendar, as
+   * when loading an edited occurrence. The event must start on a date already excluded from
+   * the series; it takes the series' sequence number, like an occurrence detached by an edit.
+   */
+  void addDetached(RecurringSeries from, CalendarEvent event, boolean checkConflicts) throws Exception {
+    if (checkConflicts) {
+      checkAndHandleConflict(event, false);
+    }
+    event.setSequence(from.getTemplate().getSequence());
+    if (journal != null) {
+      journal.logEvent(event);
+    }
+    storeEvent(event);
+  }
+
+  /**
+   * Opens a transaction: until it is committed or rolled back, commands that change the
+   * calendar are staged in it instead of applied.
+   */
+  void beginTransaction() throws Exception {
+    if (transaction != null) {
+      throw new Exception("A transaction is already open.");
+    }
+    transaction = new Transaction();
+  }
+
+  /**
+   * Returns the open transaction, or null if there is none.
+   */
+  Transaction openTransaction() {
+    return transaction;
+  }
+
+  /**
+   * Closes the open transaction and returns it, for the caller to commit or discard.
+   */
+  Transaction endTransaction() throws Exception {
+    if (transaction == null) {
+      throw new Exception("No transaction is open.");
+    }
+    Transaction ended = transaction;
+    transaction = null;
+    return ended;
+  }
+
+  /**
+   * Holds journal records back until releaseJournal, so that the records of a transaction or
+   * an import are written, and forced to disk, as one group record. Holds nest.
+   */
+  void holdJournal() {
+    if (journal != null) {
+      journal.hold();
+    }
+  }
+
+  void releaseJournal() throws IOException {
+    if (journal != null) {
+      journal.release();
+    }
+  }
+
+  /**
+   * Attaches a memory-mapped store to an empty calendar. Series already in the store are loaded
+   * onto the heap; stored events stay in the store, which answers lookups from its own indexes.
+   * Every later change is written through to it. A stored event that shares a series' sequence
+   * number is an occurrence detached from that series, so its date is excluded from the series.
+   */
+  public void attachStore(MappedEventStore store) throws Exception {
+    if (!isEmpty()) {
+      throw new Exception("A store can only be attached to an empty calendar.");
+    }
+    if (journal != null) {
+      throw new Exception("A calendar cannot use both a store and a journal.");
+    }
+    storeIndex = new IdentityHashMap<>();
+    Map<Long, List<RecurringSeries>> seriesBySequence = new HashMap<>();
+    RecurringSeries last = null;
+    for (int i = 0; i < store.size(); i++) {
+      if (store.isSeries(i)) {
+        last = store.seriesAt(i);
+        restoreSeries(last);
+        storeIndex.put(last.getTemplate(), i);
+        seriesBySequence.computeIfAbsent(last.getTemplate().getSequence(), k -> new ArrayList<>(1)).add(last);
+      } else if (store.isExclusion(i)) {
+        last.exclude(store.excludedDate(i));
+      } else {
+        nextSequence = Math.max(nextSequence, store.sequence(i) + 1);
+      }
+    }
+    for (int i = 0; i < store.size() && !seriesBySequence.isEmpty(); i++) {
+      List<RecurringSeries> detachedFrom = store.isSeries(i) || store.isExclusion(i) ? null
+              : seriesBySequence.get(store.sequence(i));
+      if (detachedFrom != null) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(store.startMinute(i), 24 * 60));
+        for (RecurringSeries s : detachedFrom) {
+          s.exclude(date);
+        }
+      }
+    }
+    this.store = store;
+  }
+
+  /**
+   * Replays a journal into the calendar and logs every later mutation to it.
+   * Replayed events and series keep their logged sequence numbers and skip conflict checks.
+   * Returns the number of records replayed.
+   */
+  public int attachJournal(CommandJournal journal) throws Exception {
+    if (store != null) {
+      throw new Exception("A calendar cannot use both a store and a journal.");
+    }
+    int replayed = journal.replay(this);
+    this.journal = journal;
+    return replayed;
+  }
+
+  /**
+   * Bulk-loads events and series that were already accepted once into an empty calendar,
+   * keeping their sequence numbers and skipping conflict checks. The tree is built in one pass
+   * from the sorted events. A stored event that shares a series' sequence number is an
+   * occurrence detached from that series, so its date is excluded from the series.
+   */
+  void restoreAll(List<CalendarEvent> restored, List<RecurringSeries> restoredSeries) {
+    Map<Long, List<RecurringSeries>> seriesBySequence = new HashMap<>();
+    for (RecurringSeries s : restoredSeries) {
+      restoreSeries(s);
+      seriesBySequence.computeIfAbsent(s.getTemplate().getSequence(), k -> new ArrayList<>(1)).add(s);
+    }
+    for (CalendarEvent event : restored) {
+      List<RecurringSeries> detachedFrom = seriesBySequence.get(event.getSequence());
+      if (detachedFrom != null) {
+        for (RecurringSeries s : detachedFrom) {
+          s.exclude(event.getStart().toLocalDate());
+        }
+      }
+      nextSequence = Math.max(nextSequence, event.getSequence() + 1);
+    }
+    List<CalendarEvent> sorted = new ArrayList<>(restored);
+    sorted.sort(START_ORDER);
+    events.insertAllSorted(sorted);
+    for (CalendarEvent event : sorted) {
+      indexEventLists(event);
+    }
+    busyIntervals.addAllSorted(sorted);
+  }
+
+  /**
+   * Inserts an event that was already accepted once, keeping its sequence number.
+   */
+  void restoreEvent(CalendarEvent event) {
+    events.insert(event);
+    indexEvent(event);
+    nextSequence = Math.max(nextSequence, event.getSequence() + 1);
+  }
+
+  /**
+   * Adds a series that was already accepted once, keeping its template's sequence number.
+   */
+  void restoreSeries(RecurringSeries restored) {
+    indexSeries(restored);
+    nextSequence = Math.max(nextSequence, restored.getTemplate().getSequence() + 1);
+  }
+
+  private void indexSeries(RecurringSeries s) {
+    series.add(s);
+    seriesSpans.add(s);
+    seriesByName.computeIfAbsent(s.getEventName(), n -> new ArrayList<>(1)).add(s);
+  }
+
+  private void persistSeries(RecurringSeries s) {
+    if (store != null) {
+      storeIndex.put(s.getTemplate(), store.appendSeries(s));
+    }
+  }
+
+  /**
+   * Writes the edited properties of a series template to the store.
+   */
+  private void persistChange(CalendarEvent event) {
+    if (store != null) {
+      store.update(storeIndex.get(event), event);
+    }
+  }
+
+  private void handleConflict(CalendarEvent newEvent, CalendarEvent event, boolean autoDecline)
+          throws Exception {
+    if (!newEvent.conflictsWith(event)) {
+      return;
+    }
+    if (autoDecline) {
+      throw new Exception("Conflict detected with event: " + event.getEventName());
+    }
+    OutputHandler.getInstance().println("Warning: Event conflicts with " + event.getEventName());
   }
 
   /**
-   * Iterates over the existing events and handles any conflicts with newEvent.
+   * Looks up the existing events overlapping newEvent and handles any conflicts.
    * Returns true if any conflict is found.
    */
   private boolean checkAndHandleConflict(CalendarEvent newEvent, boolean autoDecline) throws Exception {
     boolean conflictFound = false;
-    for (CalendarEvent event : events) {
+    for (CalendarEvent event : findOverlapping(newEvent.getStart(), newEvent.getEnd())) {
       if (newEvent.conflictsWith(event)) {
         conflictFound = true;
         if (autoDecline == true) {
@@ -46,22 +620,71 @@ public class CalendarManager {
   }
 
   /**
-   * Returns a list of events that occur on the given date.
+   * Finds the first stored event in calendar order with exactly this name, start and end, and
+   * returns its store record, or without a store its position in the name's list; -1 if none.
    */
-  public List<CalendarEvent> getEventsOn(LocalDate date) {
-    List<CalendarEvent> result = new ArrayList<>();
-    for (CalendarEvent event : events) {
-      if (event.isAllDay()) {
-        if (event.getStart().toLocalDate().equals(date)) {
-          result.add(event);
+  private int findStored(String eventName, LocalDateTime start, LocalDateTime end) {
+    if (store != null) {
+      long minute = EventColumns.floorMinute(start);
+      for (int record : store.findNamed(eventName)) {
+        if (store.startMinute(record) == minute) {
+          CalendarEvent event = store.eventAt(record);
+          if (event.getStart().equals(start) && event.getEnd().equals(end)) {
+            return record;
+          }
         }
-      } else {
-        if (!event.getStart().toLocalDate().isAfter(date) &&
-                !event.getEnd().toLocalDate().isBefore(date)) {
-          result.add(event);
+      }
+      return -1;
+    }
+    List<CalendarEvent> named = eventsByName.getOrDefault(eventName, Collections.emptyList());
+    for (int i = lowerBound(named, start); i < named.size() && named.get(i).getStart().equals(start); i++) {
+      if (named.get(i).getEnd().equals(end)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns true if an event, stored or part of a series, has exactly this name, start and end.
+   */
+  public boolean hasEvent(String eventName, LocalDateTime start, LocalDateTime end) {
+    if (findStored(eventName, start, end) >= 0) {
+      return true;
+    }
+    LocalDate date = start.toLocalDate();
+    for (RecurringSeries s : seriesByName.getOrDefault(eventName, Collections.emptyList())) {
+      if (s.occursOn(date)) {
+        CalendarEvent occurrence = s.occurrenceOn(date);
+        if (occurrence.getStart().equals(start) && occurrence.getEnd().equals(end)) {
+          return true;
         }
       }
     }
+    return false;
+  }
+
+  /**
+   * Returns a list of events that occur on the given date.
+   */
+  public List<CalendarEvent> getEventsOn(LocalDate date) {
+    List<CalendarEvent> result;
+    if (store != null) {
+      result = eventsAt(store.findOn(date));
+    } else {
+      List<CalendarEvent> bucket = eventsByDay.get(date.toEpochDay());
+      result = bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+    boolean fromSeries = false;
+    for (RecurringSeries s : seriesSpans.overlapping(date, date)) {
+      if (s.occursOn(date)) {
+        result.add(s.occurrenceOn(date));
+        fromSeries = true;
+      }
+    }
+    if (fromSeries) {
+      result.sort(START_ORDER);
+    }
     return result;
   }
 
@@ -69,33 +692,88 @@ public class CalendarManager {
    * Returns a list of events that occur within the given time range.
    */
   public List<CalendarEvent> getEventsInRange(LocalDateTime startRange, LocalDateTime endRange) {
-    List<CalendarEvent> result = new ArrayList<>();
-    for (CalendarEvent event : events) {
-      if (event.getStart().isBefore(endRange) && event.getEnd().isAfter(startRange)) {
-        result.add(event);
+    if (columns == null || store != null) {
+      return findOverlapping(startRange, endRange);
+    }
+    return addSeriesOccurrences(columns.findOverlapping(startRange, endRange), startRange, endRange);
+  }
+
+  /**
+   * Enables or disables the columnar scan store for range queries.
+   * When enabled, the stored events are also kept as epoch-minute columns and range queries
+   * scan them with a primitive loop instead of walking the tree. This suits wide ranges that
+   * match a large share of the calendar. The columns are appended to while events arrive in
+   * start order; an out-of-order insert goes to a small sorted side buffer that is merged in
+   * once it grows past the square root of the column size. With a store attached, range
+   * queries use the store's own index instead.
+   */
+  public void setColumnarScan(boolean enabled) {
+    columns = enabled ? EventColumns.of(events, events.size()) : null;
+  }
+
+  /**
+   * Returns the stored events and series occurrences overlapping [from, to), in start order.
+   */
+  private List<CalendarEvent> findOverlapping(LocalDateTime from, LocalDateTime to) {
+    List<CalendarEvent> stored = store != null ? eventsAt(store.findOverlapping(from, to))
+            : events.findOverlapping(from, to);
+    return addSeriesOccurrences(stored, from, to);
+  }
+
+  /**
+   * Builds the events of store records.
+   */
+  private List<CalendarEvent> eventsAt(int[] records) {
+    List<CalendarEvent> result = new ArrayList<>(records.length);
+    for (int record : records) {
+      result.add(store.eventAt(record));
+    }
+    return result;
+  }
+
+  /**
+   * Adds the series occurrences overlapping [from, to) to a start-ordered list of stored events.
+   */
+  private List<CalendarEvent> addSeriesOccurrences(List<CalendarEvent> result, LocalDateTime from,
+                                                   LocalDateTime to) {
+    boolean fromSeries = false;
+    // Occurrences never leave their own date, so only series spanning the range's dates can match.
+    for (RecurringSeries s : seriesSpans.overlapping(from.toLocalDate(), to.toLocalDate())) {
+      List<CalendarEvent> occurrences = s.findOverlapping(from, to);
+      if (!occurrences.isEmpty()) {
+        result.addAll(occurrences);
+        fromSeries = true;
       }
     }
+    if (fromSeries) {
+      result.sort(START_ORDER);
+    }
     return result;
   }
 
+  /**
+   * Returns every event, with series occurrences built as they are reached, in start order.
+   */
+  private Iterable<CalendarEvent> eventsInOrder() {
+    if (series.isEmpty()) {
+      return storedEvents();
+    }
+    return () -> {
+      List<Iterator<CalendarEvent>> sources = new ArrayList<>();
+      sources.add(storedEvents().iterator());
+      for (RecurringSeries s : series) {
+        sources.add(s.iterator());
+      }
+      return new MergingIterator(sources);
+    };
+  }
+
   /**
    * Exports the calendar events to a CSV file.
    */
   public void exportToCSV(String fileName) {
-    try (PrintWriter writer = new PrintWriter(new File(fileName))) {
-      StringBuilder sb = new StringBuilder();
-      sb.append("EventName,Start,End,AllDay,Description,Location,Public\n");
-      DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-      for (CalendarEvent event : events) {
-        sb.append("\"" + event.getEventName() + "\",");
-        sb.append(event.getStart().format(dtf) + ",");
-        sb.append(event.getEnd().format(dtf) + ",");
-        sb.append(event.isAllDay() + ",");
-        sb.append("\"" + event.getDescription() + "\",");
-        sb.append("\"" + event.getLocation() + "\",");
-        sb.append(event.isPublic() + "\n");
-      }
-      writer.write(sb.toString());
+    try {
+      writeCsv(fileName, CsvFormat.CAL);
       OutputHandler.getInstance().println("Exported to CSV: " + new File(fileName).getAbsolutePath());
     } catch (Exception e) {
       OutputHandler.getInstance().println("Error exporting CSV: " + e.getMessage());
@@ -106,43 +784,63 @@ public class CalendarManager {
    * Exports the calendar events to a Google CSV file.
    */
   public void exportToGoogleCSV(String fileName) {
-    try (PrintWriter writer = new PrintWriter(new File(fileName))) {
-      StringBuilder sb = new StringBuilder();
-      sb.append("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private\n");
-      DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-      DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
-
-      for (CalendarEvent event : events) {
-        sb.append("\"" + event.getEventName() + "\",");
-        if (event.isAllDay()) {
-          sb.append(event.getStart().format(dateFormatter) + ",,");
-          sb.append(event.getStart().format(dateFormatter) + ",,");
-          sb.append("True,");
-        } else {
-          sb.append(event.getStart().format(dateFormatter) + ",");
-          sb.append(event.getStart().format(timeFormatter) + ",");
-          sb.append(event.getEnd().format(dateFormatter) + ",");
-          sb.append(event.getEnd().format(timeFormatter) + ",");
-          sb.append("False,");
-        }
-        sb.append("\"" + event.getDescription() + "\",");
-        sb.append("\"" + event.getLocation() + "\",");
-        sb.append(event.isPublic() ? "False" : "True");
-        sb.append("\n");
-      }
-      writer.write(sb.toString());
+    try {
+      writeCsv(fileName, CsvFormat.GOOGLE);
       OutputHandler.getInstance().println("Exported to Google CSV: " + new File(fileName).getAbsolutePath());
     } catch (Exception e) {
       OutputHandler.getInstance().println("Error exporting Google CSV: " + e.getMessage());
     }
   }
 
+  /**
+   * Exports the calendar to an iCalendar file, keeping each recurring series as one rule.
+   */
+  public void exportToICS(String fileName) {
+    try {
+      IcsWriter.write(this, fileName);
+      OutputHandler.getInstance().println("Exported to iCalendar: " + new File(fileName).getAbsolutePath());
+    } catch (Exception e) {
+      OutputHandler.getInstance().println("Error exporting iCalendar: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Streams the events to a file in the given format, one row at a time through a fixed-size
+   * buffer, so memory use does not grow with the calendar.
+   */
+  private void writeCsv(String fileName, CsvFormat format) throws IOException {
+    if (parallelExporter != null) {
+      parallelExporter.write(fileName, format, eventsInOrder());
+      return;
+    }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName)),
+            CsvFormat.BUFFER_SIZE)) {
+      writer.write(format.header());
+      for (CalendarEvent event : eventsInOrder()) {
+        format.appendRow(writer, event);
+      }
+    }
+  }
+
+  /**
+   * Enables or disables parallel export. When enabled, both exporters cut the events into
+   * chunks, format the chunks on the common ForkJoinPool and write them in order, producing
+   * the same bytes as the sequential exporter.
+   */
+  public void setParallelExport(boolean enabled) {
+    parallelExporter = enabled ? new ParallelCsvExporter(ForkJoinPool.commonPool()) : null;
+  }
+
   /**
    * Checks if the calendar is busy at the specified dateTime.
    */
   public boolean isBusyAt(LocalDateTime dateTime) {
-    for (CalendarEvent event : events) {
-      if (!event.getStart().isAfter(dateTime) && event.getEnd().isAfter(dateTime)) {
+    if (store != null ? store.isBusyAt(dateTime) : busyIntervals.contains(dateTime)) {
+      return true;
+    }
+    LocalDate date = dateTime.toLocalDate();
+    for (RecurringSeries s : seriesSpans.overlapping(date, date)) {
+      if (s.isBusyAt(dateTime)) {
         return true;
       }
     }
@@ -151,44 +849,243 @@ public class CalendarManager {
 
   public boolean editSingleEvent(String property, String eventName, LocalDateTime start,
                                  LocalDateTime end, String newValue) {
-    for (CalendarEvent event : events) {
-      if (event.getEventName().equals(eventName) &&
-              event.getStart().equals(start) &&
-              event.getEnd().equals(end)) {
-        if (updateProperty(event, property, newValue)) {
-          return true;
+    if (!EDITABLE_PROPERTIES.contains(property.toLowerCase())) {
+      return false;
+    }
+    // The first match in calendar order is edited, whether stored or part of a series.
+    int record = findStored(eventName, start, end);
+    CalendarEvent match = record < 0 ? null : store != null ? store.eventAt(record)
+            : eventsByName.get(eventName).get(record);
+    RecurringSeries matchSeries = null;
+    LocalDate date = start.toLocalDate();
+    for (RecurringSeries s : seriesByName.getOrDefault(eventName, Collections.emptyList())) {
+      if (s.occursOn(date)) {
+        CalendarEvent occurrence = s.occurrenceOn(date);
+        if (occurrence.getStart().equals(start) && occurrence.getEnd().equals(end)
+                && (match == null || START_ORDER.compare(occurrence, match) < 0)) {
+          match = occurrence;
+          matchSeries = s;
         }
       }
     }
-    return false;
+    if (match == null) {
+      return false;
+    }
+    if (journal != null) {
+      journal.logEditSingle(property, eventName, start, end, newValue);
+    }
+    if (matchSeries != null) {
+      // Detach the occurrence from its series into a stored event that keeps its place.
+      matchSeries.exclude(date);
+      setProperty(match, property, newValue);
+      storeEvent(match);
+    } else if (store != null) {
+      setProperty(match, property, newValue);
+      store.update(record, match);
+    } else {
+      updateProperty(match, property, newValue);
+    }
+    return true;
   }
 
   public int editEventsByStart(String property, String eventName, LocalDateTime start, String newValue) {
-    int count = 0;
-    for (CalendarEvent event : events) {
-      if (event.getEventName().equals(eventName) &&
-              (event.getStart().equals(start) || event.getStart().isAfter(start))) {
-        if (updateProperty(event, property, newValue)) {
-          count++;
+    if (journal != null && editsAny(property, eventName, start)) {
+      journal.logEditFrom(property, eventName, start, newValue);
+    }
+    int count = updateAll(eventName, start, property, newValue);
+    if (!EDITABLE_PROPERTIES.contains(property.toLowerCase())) {
+      return count;
+    }
+    List<RecurringSeries> targets = new ArrayList<>();
+    for (RecurringSeries s : new ArrayList<>(seriesByName.getOrDefault(eventName, Collections.emptyList()))) {
+      LocalDate from = firstDateFrom(s, start);
+      if (from.isAfter(s.getLastDate())) {
+        continue;
+      }
+      RecurringSeries target = from.isAfter(s.getFirstDate()) ? s.splitAt(from) : s;
+      if (target != s) {
+        seriesSpans.spanChanged(s);
+        indexSeries(target);
+        if (store != null) {
+          store.updateSeriesEnd(storeIndex.get(s.getTemplate()), s.getLastDate());
         }
+        persistSeries(target);
       }
+      targets.add(target);
+      count += target.count();
     }
+    updateAllSeries(eventName, targets, property, newValue);
     return count;
   }
 
   public int editEventsByName(String property, String eventName, String newValue) {
-    int count = 0;
-    for (CalendarEvent event : events) {
-      if (event.getEventName().equals(eventName)) {
+    if (journal != null && editsAny(property, eventName, null)) {
+      journal.logEditAll(property, eventName, newValue);
+    }
+    int count = updateAll(eventName, null, property, newValue);
+    if (EDITABLE_PROPERTIES.contains(property.toLowerCase())) {
+      List<RecurringSeries> named = new ArrayList<>(seriesByName.getOrDefault(eventName, Collections.emptyList()));
+      for (RecurringSeries s : named) {
+        count += s.count();
+      }
+      updateAllSeries(eventName, named, property, newValue);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the first date on which a series' occurrence starts at or after the given time.
+   */
+  private static LocalDate firstDateFrom(RecurringSeries s, LocalDateTime start) {
+    LocalDate date = start.toLocalDate();
+    return s.getTemplate().getStart().toLocalTime().isBefore(start.toLocalTime()) ? date.plusDays(1) : date;
+  }
+
+  /**
+   * Returns true if editing the events of a name that start at or after the given time, or all
+   * of them for null, would edit anything. Edits are logged before they are applied, and only
+   * if they do.
+   */
+  private boolean editsAny(String property, String eventName, LocalDateTime start) {
+    if (!EDITABLE_PROPERTIES.contains(property.toLowerCase())) {
+      return false;
+    }
+    if (store != null) {
+      int[] named = store.findNamed(eventName);
+      if (named.length > 0 && (start == null
+              || !store.eventAt(named[named.length - 1]).getStart().isBefore(start))) {
+        return true;
+      }
+    } else {
+      List<CalendarEvent> named = eventsByName.get(eventName);
+      if (named != null && (start == null || lowerBound(named, start) < named.size())) {
+        return true;
+      }
+    }
+    for (RecurringSeries s : seriesByName.getOrDefault(eventName, Collections.emptyList())) {
+      LocalDate from = start == null ? s.getFirstDate() : firstDateFrom(s, start);
+      if (from.isBefore(s.getFirstDate())) {
+        from = s.getFirstDate();
+      }
+      if (!from.isAfter(s.getLastDate()) && s.stream(from, s.getLastDate()).findAny().isPresent()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Edits the stored events of a name that start at or after the given time, or all of them for
+   * null, and returns how many were edited. A rename moves them to the new name's list in one go.
+   */
+  private int updateAll(String eventName, LocalDateTime start, String property, String newValue) {
+    if (store != null) {
+      int count = 0;
+      for (int record : store.findNamed(eventName)) {
+        CalendarEvent event = store.eventAt(record);
+        if ((start == null || !event.getStart().isBefore(start)) && setProperty(event, property, newValue)) {
+          store.update(record, event);
+          count++;
+        }
+      }
+      return count;
+    }
+    List<CalendarEvent> named = eventsByName.get(eventName);
+    int from = named == null || start == null ? 0 : lowerBound(named, start);
+    if (named == null || from >= named.size()) {
+      return 0;
+    }
+    if (!property.equalsIgnoreCase("name")) {
+      int count = 0;
+      for (CalendarEvent event : named.subList(from, named.size())) {
         if (updateProperty(event, property, newValue)) {
           count++;
         }
       }
+      return count;
     }
-    return count;
+    List<CalendarEvent> moved = new ArrayList<>(named.subList(from, named.size()));
+    named.subList(from, named.size()).clear();
+    if (named.isEmpty()) {
+      eventsByName.remove(eventName);
+    }
+    for (CalendarEvent event : moved) {
+      event.setEventName(newValue);
+      persistChange(event);
+    }
+    List<CalendarEvent> target = eventsByName.get(newValue);
+    eventsByName.put(newValue, target == null ? moved : merge(target, moved));
+    return moved.size();
+  }
+
+  /**
+   * Sets an editable property on the templates of series of a name. A rename moves them to
+   * the new name's list in one go, keeping each list in the order the series were added.
+   */
+  private void updateAllSeries(String eventName, List<RecurringSeries> edited, String property,
+                               String newValue) {
+    for (RecurringSeries s : edited) {
+      setProperty(s.getTemplate(), property, newValue);
+      persistChange(s.getTemplate());
+    }
+    if (edited.isEmpty() || !property.equalsIgnoreCase("name")) {
+      return;
+    }
+    Set<RecurringSeries> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+    moved.addAll(edited);
+    List<RecurringSeries> named = seriesByName.get(eventName);
+    named.removeIf(moved::contains);
+    if (named.isEmpty()) {
+      seriesByName.remove(eventName);
+    }
+    List<RecurringSeries> sorted = new ArrayList<>(edited);
+    sorted.sort(Comparator.comparingInt(seriesSpans::position));
+    List<RecurringSeries> target = seriesByName.get(newValue);
+    if (target == null) {
+      seriesByName.put(newValue, sorted);
+      return;
+    }
+    List<RecurringSeries> merged = new ArrayList<>(target.size() + sorted.size());
+    int i = 0;
+    int j = 0;
+    while (i < target.size() && j < sorted.size()) {
+      merged.add(seriesSpans.position(target.get(i)) < seriesSpans.position(sorted.get(j))
+              ? target.get(i++) : sorted.get(j++));
+    }
+    merged.addAll(target.subList(i, target.size()));
+    merged.addAll(sorted.subList(j, sorted.size()));
+    seriesByName.put(newValue, merged);
+  }
+
+  /**
+   * Merges two lists kept in calendar order into a new one.
+   */
+  private static List<CalendarEvent> merge(List<CalendarEvent> a, List<CalendarEvent> b) {
+    List<CalendarEvent> merged = new ArrayList<>(a.size() + b.size());
+    int i = 0;
+    int j = 0;
+    while (i < a.size() && j < b.size()) {
+      merged.add(START_ORDER.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+    }
+    merged.addAll(a.subList(i, a.size()));
+    merged.addAll(b.subList(j, b.size()));
+    return merged;
   }
 
   private boolean updateProperty(CalendarEvent event, String property, String newValue) {
+    if (property.equalsIgnoreCase("name")) {
+      renameEvent(event, newValue);
+    } else if (!setProperty(event, property, newValue)) {
+      return false;
+    }
+    persistChange(event);
+    return true;
+  }
+
+  /**
+   * Sets a property on an event that is not in the name index, such as a series template.
+   */
+  private static boolean setProperty(CalendarEvent event, String property, String newValue) {
     switch (property.toLowerCase()) {
       case "name":
         event.setEventName(newValue);
@@ -208,8 +1105,116 @@ public class CalendarManager {
     return true;
   }
 
+  /**
+   * Renames an event and moves it to its new entry in the name index.
+   */
+  private void renameEvent(CalendarEvent event, String newName) {
+    List<CalendarEvent> oldList = eventsByName.get(event.getEventName());
+    for (int i = lowerBound(oldList, event.getStart()); i < oldList.size(); i++) {
+      if (oldList.get(i) == event) {
+        oldList.remove(i);
+        break;
+      }
+    }
+    if (oldList.isEmpty()) {
+      eventsByName.remove(event.getEventName());
+    }
+    event.setEventName(newName);
+    List<CalendarEvent> newList = eventsByName.computeIfAbsent(newName, n -> new ArrayList<>(1));
+    newList.add(insertionPoint(newList, event), event);
+  }
+
+  /**
+   * Returns the stored events in calendar order, without series occurrences.
+   */
+  Iterable<CalendarEvent> storedEvents() {
+    if (store == null) {
+      return events;
+    }
+    return () -> new Iterator<CalendarEvent>() {
+      private final int[] records = store.allEvents();
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < records.length;
+      }
+
+      @Override
+      public CalendarEvent next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return store.eventAt(records[next++]);
+      }
+    };
+  }
+
+  /**
+   * Returns the recurring series, in the order they were added.
+   */
+  List<RecurringSeries> allSeries() {
+    return Collections.unmodifiableList(series);
+  }
+
+  /**
+   * Returns true if the calendar holds no events or series.
+   */
+  boolean isEmpty() {
+    return (store != null ? store.eventCount() : events.size()) == 0 && series.isEmpty();
+  }
+
   // Expose a copy of the events list for testing purposes.
   public List<CalendarEvent> getAllEvents() {
-    return new ArrayList<>(events);
+    if (series.isEmpty() && store == null) {
+      return events.toList();
+    }
+    List<CalendarEvent> result = new ArrayList<>();
+    for (CalendarEvent event : eventsInOrder()) {
+      result.add(event);
+    }
+    return result;
+  }
+
+  /**
+   * Merges start-ordered event sources into one start-ordered sequence.
+   * Events from different sources never tie, since every source has its own sequence numbers.
+   */
+  private static class MergingIterator implements Iterator<CalendarEvent> {
+    private final List<Iterator<CalendarEvent>> sources;
+    private final PriorityQueue<Integer> heads;
+    private final CalendarEvent[] current;
+
+    MergingIterator(List<Iterator<CalendarEvent>> sources) {
+      this.sources = sources;
+      this.current = new CalendarEvent[sources.size()];
+      this.heads = new PriorityQueue<>((a, b) -> START_ORDER.compare(current[a], current[b]));
+      for (int i = 0; i < sources.size(); i++) {
+        advance(i);
+      }
+    }
+
+    private void advance(int source) {
+      if (sources.get(source).hasNext()) {
+        current[source] = sources.get(source).next();
+        heads.add(source);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    @Override
+    public CalendarEvent next() {
+      if (heads.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      int source = heads.poll();
+      CalendarEvent event = current[source];
+      advance(source);
+      return event;
+    }
   }
 }
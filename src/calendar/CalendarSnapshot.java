@@ -0,0 +1,185 @@
+package calendar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes a binary image of a calendar.
+ * The file holds a string table, in which every distinct name, description and location appears
+ * once, followed by the stored events in calendar order and then the recurring series. Each
+ * event is its start and end in epoch minutes, its sequence number, a flags byte and three
+ * string table indexes; a series adds its weekday mask, last date and excluded dates to its
+ * template. Version 1 files, written before series kept their excluded dates, still load.
+ * Times with seconds carry them in an extra field, flagged so minute-aligned events stay compact.
+ * A snapshot is written to a temporary file, synced and renamed over the target, so a reader
+ * sees either the old or the new snapshot. Loading skips conflict checks, which already passed
+ * when the events were first added.
+ */
+public class CalendarSnapshot {
+  private static final int MAGIC = 0x43414C53; // "CALS"
+  private static final int VERSION = 2;
+
+  private static final int ALL_DAY = 1;
+  private static final int PUBLIC = 2;
+  private static final int SUB_MINUTE = 4;
+
+  /**
+   * Writes the calendar to the given file, replacing it atomically.
+   */
+  public static void write(CalendarManager calendar, String fileName) throws IOException {
+    Map<String, Integer> stringIds = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    int eventCount = 0;
+    for (CalendarEvent event : calendar.storedEvents()) {
+      intern(event, stringIds, strings);
+      eventCount++;
+    }
+    for (RecurringSeries s : calendar.allSeries()) {
+      intern(s.getTemplate(), stringIds, strings);
+    }
+
+    Path target = Paths.get(fileName).toAbsolutePath();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileOutputStream file = new FileOutputStream(temp.toFile());
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(strings.size());
+      for (String value : strings) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      out.writeInt(eventCount);
+      for (CalendarEvent event : calendar.storedEvents()) {
+        writeEvent(out, event, event.getStart(), stringIds);
+      }
+      out.writeInt(calendar.allSeries().size());
+      for (RecurringSeries s : calendar.allSeries()) {
+        CalendarEvent template = s.getTemplate();
+        writeEvent(out, template, LocalDateTime.of(s.getFirstDate(), template.getStart().toLocalTime()),
+                stringIds);
+        out.writeInt(s.getWeekdayMask());
+        out.writeLong(s.getLastDate().toEpochDay());
+        out.writeInt(s.getExcludedDates().size());
+        for (LocalDate excluded : s.getExcludedDates()) {
+          out.writeLong(excluded.toEpochDay());
+        }
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Loads a snapshot into an empty calendar.
+   */
+  public static void load(String fileName, CalendarManager calendar) throws Exception {
+    if (!calendar.isEmpty()) {
+      throw new Exception("A snapshot can only be loaded into an empty calendar.");
+    }
+    ByteBuffer in;
+    try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+      in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (in.remaining() < 8 || in.getInt() != MAGIC) {
+      throw new Exception("Not a calendar snapshot: " + fileName);
+    }
+    int version = in.getInt();
+    if (version != 1 && version != VERSION) {
+      throw new Exception("Not a calendar snapshot: " + fileName);
+    }
+    String[] strings = new String[in.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[in.getInt()];
+      in.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    int eventCount = in.getInt();
+    List<CalendarEvent> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      events.add(readEvent(in, strings));
+    }
+    int seriesCount = in.getInt();
+    List<RecurringSeries> series = new ArrayList<>(seriesCount);
+    for (int i = 0; i < seriesCount; i++) {
+      CalendarEvent template = readEvent(in, strings);
+      int mask = in.getInt();
+      LocalDate lastDate = LocalDate.ofEpochDay(in.getLong());
+      RecurringSeries s = new RecurringSeries(template, mask, template.getStart().toLocalDate(), lastDate);
+      for (int n = version == 1 ? 0 : in.getInt(); n > 0; n--) {
+        s.exclude(LocalDate.ofEpochDay(in.getLong()));
+      }
+      series.add(s);
+    }
+    calendar.restoreAll(events, series);
+  }
+
+  private static void intern(CalendarEvent event, Map<String, Integer> stringIds, List<String> strings) {
+    for (String value : new String[]{event.getEventName(), event.getDescription(), event.getLocation()}) {
+      if (!stringIds.containsKey(value)) {
+        stringIds.put(value, strings.size());
+        strings.add(value);
+      }
+    }
+  }
+
+  private static void writeEvent(DataOutputStream out, CalendarEvent event, LocalDateTime start,
+                                 Map<String, Integer> stringIds) throws IOException {
+    LocalDateTime end = event.getEnd();
+    boolean subMinute = start.getSecond() != 0 || start.getNano() != 0
+            || end.getSecond() != 0 || end.getNano() != 0;
+    out.writeLong(EventColumns.floorMinute(start));
+    out.writeLong(EventColumns.floorMinute(end));
+    out.writeLong(event.getSequence());
+    out.writeByte((event.isAllDay() ? ALL_DAY : 0) | (event.isPublic() ? PUBLIC : 0)
+            | (subMinute ? SUB_MINUTE : 0));
+    out.writeInt(stringIds.get(event.getEventName()));
+    out.writeInt(stringIds.get(event.getDescription()));
+    out.writeInt(stringIds.get(event.getLocation()));
+    if (subMinute) {
+      out.writeLong(start.getSecond() * 1_000_000_000L + start.getNano());
+      out.writeLong(end.getSecond() * 1_000_000_000L + end.getNano());
+    }
+  }
+
+  private static CalendarEvent readEvent(ByteBuffer in, String[] strings) {
+    long startMinute = in.getLong();
+    long endMinute = in.getLong();
+    long sequence = in.getLong();
+    int flags = in.get();
+    String name = strings[in.getInt()];
+    String description = strings[in.getInt()];
+    String location = strings[in.getInt()];
+    LocalDateTime start = LocalDateTime.ofEpochSecond(startMinute * 60, 0, ZoneOffset.UTC);
+    LocalDateTime end = LocalDateTime.ofEpochSecond(endMinute * 60, 0, ZoneOffset.UTC);
+    if ((flags & SUB_MINUTE) != 0) {
+      start = start.plusNanos(in.getLong());
+      end = end.plusNanos(in.getLong());
+    }
+    CalendarEvent event = new CalendarEvent(name, start, end, (flags & ALL_DAY) != 0);
+    event.setDescription(description);
+    event.setLocation(location);
+    event.setPublic((flags & PUBLIC) != 0);
+    event.setSequence(sequence);
+    return event;
+  }
+}
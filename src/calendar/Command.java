@@ -0,0 +1,392 @@
+package calendar;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A command parsed by {@link CommandParser}, ready to be applied to a calendar.
+ * Parsing does all of the string and date handling and touches no shared state, so it may run
+ * on any thread; applying mutates the calendar and prints the result, so the commands for one
+ * calendar are applied one at a time and in order.
+ */
+abstract class Command {
+
+  abstract void apply(CalendarManager calendar) throws Exception;
+
+  /**
+   * Returns true for the commands that a transaction stages: those that add or edit events.
+   */
+  boolean changesCalendar() {
+    return false;
+  }
+
+  /**
+   * Applies the command, or stages it if a transaction is open and the command changes the
+   * calendar.
+   */
+  final void run(CalendarManager calendar) throws Exception {
+    Transaction open = calendar.openTransaction();
+    if (open != null && changesCalendar()) {
+      open.stage(this);
+    } else {
+      apply(calendar);
+    }
+  }
+
+  /**
+   * A line that could not be parsed. Applying it throws the parse error, so the error surfaces
+   * at the line's place in the command sequence.
+   */
+  static final class Failed extends Command {
+    final Exception error;
+
+    Failed(Exception error) {
+      this.error = error;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      throw error;
+    }
+  }
+
+  static final class CreateEvent extends Command {
+    final CalendarEvent event;
+    final boolean autoDecline;
+
+    CreateEvent(CalendarEvent event, boolean autoDecline) {
+      this.event = event;
+      this.autoDecline = autoDecline;
+    }
+
+    @Override
+    boolean changesCalendar() {
+      return true;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      calendar.addEvent(event, autoDecline);
+      report();
+    }
+
+    void report() {
+      OutputHandler.getInstance().println((event.isAllDay() ? "All-day event created: " : "Event created: ") + event);
+    }
+  }
+
+  static final class CreateSeries extends Command {
+    final RecurringSeries series;
+    final boolean autoDecline;
+
+    CreateSeries(RecurringSeries series, boolean autoDecline) {
+      this.series = series;
+      this.autoDecline = autoDecline;
+    }
+
+    @Override
+    boolean changesCalendar() {
+      return true;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      calendar.addSeries(series, autoDecline);
+      report();
+    }
+
+    void report() {
+      OutputHandler.getInstance().println((series.getTemplate().isAllDay() ? "Recurring all-day event created with "
+              : "Recurring event created with ") + series.count() + " occurrences.");
+    }
+  }
+
+  /**
+   * "edit event": one occurrence, identified by its start and end.
+   */
+  static final class EditSingle extends Command {
+    final String property;
+    final String eventName;
+    final LocalDateTime start;
+    final LocalDateTime end;
+    final String newValue;
+
+    EditSingle(String property, String eventName, LocalDateTime start, LocalDateTime end, String newValue) {
+      this.property = property;
+      this.eventName = eventName;
+      this.start = start;
+      this.end = end;
+      this.newValue = newValue;
+    }
+
+    @Override
+    boolean changesCalendar() {
+      return true;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      if (calendar.editSingleEvent(property, eventName, start, end, newValue)) {
+        OutputHandler.getInstance().println("Event updated successfully.");
+      } else {
+        OutputHandler.getInstance().println("Event not found or update failed.");
+      }
+    }
+  }
+
+  /**
+   * "edit events ... from": every event with the name starting at or after the given time.
+   */
+  static final class EditFrom extends Command {
+    final String property;
+    final String eventName;
+    final LocalDateTime start;
+    final String newValue;
+
+    EditFrom(String property, String eventName, LocalDateTime start, String newValue) {
+      this.property = property;
+      this.eventName = eventName;
+      this.start = start;
+      this.newValue = newValue;
+    }
+
+    @Override
+    boolean changesCalendar() {
+      return true;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      int count = calendar.editEventsByStart(property, eventName, start, newValue);
+      OutputHandler.getInstance().println(count + " event(s) updated starting from " + start);
+    }
+  }
+
+  /**
+   * "edit events" without a time: every event with the name.
+   */
+  static final class EditAll extends Command {
+    final String property;
+    final String eventName;
+    final String newValue;
+
+    EditAll(String property, String eventName, String newValue) {
+      this.property = property;
+      this.eventName = eventName;
+      this.newValue = newValue;
+    }
+
+    @Override
+    boolean changesCalendar() {
+      return true;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      int count = calendar.editEventsByName(property, eventName, newValue);
+      OutputHandler.getInstance().println(count + " event(s) updated with new " + property);
+    }
+  }
+
+  static final class PrintOn extends Command {
+    final LocalDate date;
+
+    PrintOn(LocalDate date) {
+      this.date = date;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      List<CalendarEvent> events = calendar.getEventsOn(date);
+      if (events.isEmpty()) {
+        OutputHandler.getInstance().println("No events found on " + date);
+      } else {
+        OutputHandler.getInstance().println("Events on " + date + ":");
+        printEvents(events);
+      }
+    }
+  }
+
+  static final class PrintRange extends Command {
+    final LocalDateTime start;
+    final LocalDateTime end;
+
+    PrintRange(LocalDateTime start, LocalDateTime end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      List<CalendarEvent> events = calendar.getEventsInRange(start, end);
+      if (events.isEmpty()) {
+        OutputHandler.getInstance().println("No events found between " + start + " and " + end);
+      } else {
+        OutputHandler.getInstance().println("Events between " + start + " and " + end + ":");
+        printEvents(events);
+      }
+    }
+  }
+
+  static final class ShowStatus extends Command {
+    final LocalDateTime dateTime;
+
+    ShowStatus(LocalDateTime dateTime) {
+      this.dateTime = dateTime;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      boolean busy = calendar.isBusyAt(dateTime);
+      OutputHandler.getInstance().println("Status at " + dateTime + ": " + (busy ? "Busy" : "Available"));
+    }
+  }
+
+  static final class ExportCsv extends Command {
+    final String fileName;
+    final CsvFormat format;
+
+    ExportCsv(String fileName, CsvFormat format) {
+      this.fileName = fileName;
+      this.format = format;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      if (format == CsvFormat.GOOGLE) {
+        calendar.exportToGoogleCSV(fileName);
+      } else {
+        calendar.exportToCSV(fileName);
+      }
+    }
+  }
+
+  static final class ExportIcs extends Command {
+    final String fileName;
+
+    ExportIcs(String fileName) {
+      this.fileName = fileName;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) {
+      calendar.exportToICS(fileName);
+    }
+  }
+
+  static final class ImportCsv extends Command {
+    final String fileName;
+    final CsvFormat format;
+    final boolean dedup;
+    final boolean checkConflicts;
+    final boolean autoDecline;
+
+    ImportCsv(String fileName, CsvFormat format, boolean dedup, boolean checkConflicts, boolean autoDecline) {
+      this.fileName = fileName;
+      this.format = format;
+      this.dedup = dedup;
+      this.checkConflicts = checkConflicts;
+      this.autoDecline = autoDecline;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      requireNoTransaction(calendar);
+      CsvImporter importer = new CsvImporter(format, dedup, checkConflicts, autoDecline);
+      int imported = importer.importFile(fileName, calendar);
+      String message = "Imported " + imported + " event(s) from " + new File(fileName).getAbsolutePath();
+      if (importer.skipped() > 0) {
+        message += " (" + importer.skipped() + " duplicate(s) skipped)";
+      }
+      OutputHandler.getInstance().println(message);
+    }
+  }
+
+  static final class ImportIcs extends Command {
+    final String fileName;
+    final boolean dedup;
+    final boolean checkConflicts;
+    final boolean autoDecline;
+
+    ImportIcs(String fileName, boolean dedup, boolean checkConflicts, boolean autoDecline) {
+      this.fileName = fileName;
+      this.dedup = dedup;
+      this.checkConflicts = checkConflicts;
+      this.autoDecline = autoDecline;
+    }
+
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      requireNoTransaction(calendar);
+      IcsImporter importer = new IcsImporter(dedup, checkConflicts, autoDecline);
+      int imported = importer.importFile(fileName, calendar);
+      String message = "Imported " + imported + " event(s) and " + importer.seriesCount()
+              + " recurring series from " + new File(fileName).getAbsolutePath();
+      if (importer.skipped() > 0) {
+        message += " (" + importer.skipped() + " duplicate(s) skipped)";
+      }
+      OutputHandler.getInstance().println(message);
+    }
+  }
+
+  static final class Begin extends Command {
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      calendar.beginTransaction();
+      OutputHandler.getInstance().println("Transaction started.");
+    }
+  }
+
+  /**
+   * "commit": applies the staged commands as one batch. If it fails, none of them is applied
+   * and the transaction is closed. A journal write that fails after the commands were applied
+   * is reported as such, not as a rollback.
+   */
+  static final class Commit extends Command {
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      Transaction transaction = calendar.endTransaction();
+      try {
+        transaction.commit(calendar);
+      } catch (IOException e) {
+        throw new Exception("Transaction committed: " + transaction.size()
+            + " command(s) applied, but writing the journal failed: " + e.getMessage());
+      } catch (Exception e) {
+        throw new Exception("Transaction rolled back: " + e.getMessage());
+      }
+      OutputHandler.getInstance().println("Transaction committed: " + transaction.size() + " command(s) applied.");
+    }
+  }
+
+  static final class Rollback extends Command {
+    @Override
+    void apply(CalendarManager calendar) throws Exception {
+      Transaction transaction = calendar.endTransaction();
+      OutputHandler.getInstance().println("Transaction rolled back: " + transaction.size()
+              + " command(s) discarded.");
+    }
+  }
+
+  /**
+   * Imports add events in batches of their own, so they cannot be part of a transaction.
+   */
+  private static void requireNoTransaction(CalendarManager calendar) throws Exception {
+    if (calendar.openTransaction() != null) {
+      throw new Exception("Imports cannot run inside a transaction.");
+    }
+  }
+
+  /**
+   * Prints one " - " line per event, rendering every row into the same builder.
+   */
+  private static void printEvents(List<CalendarEvent> events) {
+    StringBuilder row = new StringBuilder(128);
+    for (CalendarEvent event : events) {
+      row.setLength(0);
+      OutputHandler.getInstance().println(event.appendTo(row.append(" - ")));
+    }
+  }
+}
@@ -0,0 +1,423 @@
+package calendar;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the mutations applied to a calendar.
+ * Each record is framed as [payload length][CRC32 of payload][payload]. Records are buffered
+ * and written as a group once groupSize records are pending, on {@link #commit()} and on close;
+ * with {@link SyncPolicy#EVERY_COMMIT} each group is also forced to disk. On replay, a record
+ * with a short frame or a bad checksum marks the end of the journal: it is what a crash in the
+ * middle of a write leaves behind, so it and anything after it are cut off.
+ * Events and series are logged with their sequence numbers and replayed without conflict
+ * checks; a series is logged with the dates already excluded from it. Edits are logged as the
+ * edit call and replayed by making the same call.
+ * <p>
+ * Records that must stand or fall together, a batch of events or everything logged during a
+ * {@link #hold()}, are framed as one group record, so a torn write drops all of them. Callers
+ * log a change before applying it: if a commit triggered by a record fails, that record is
+ * dropped and the file is cut back to where it was, and the caller leaves the calendar alone.
+ */
+public class CommandJournal implements Closeable {
+  /**
+   * Whether a committed group is forced to disk or left to the operating system.
+   */
+  public enum SyncPolicy { EVERY_COMMIT, NEVER }
+
+  private static final byte ADD_EVENT = 1;
+  private static final byte ADD_SERIES = 2;
+  private static final byte EDIT_SINGLE = 3;
+  private static final byte EDIT_FROM = 4;
+  private static final byte EDIT_ALL = 5;
+  private static final byte GROUP = 6;
+
+  private static final int FRAME_HEADER = 8;
+  static final int MAX_GROUP_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final SyncPolicy syncPolicy;
+  private final int groupSize;
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private int pendingRecords;
+  // Nesting depth of hold() calls; while positive, records are held back to be committed together.
+  private int holds;
+  // Where the records logged under the outermost hold start in the pending group, and how many.
+  private int heldFrom;
+  private int heldRecords;
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+  private final DataOutputStream out = new DataOutputStream(record);
+  private final CRC32 crc = new CRC32();
+
+  private CommandJournal(FileChannel channel, SyncPolicy syncPolicy, int groupSize) {
+    this.channel = channel;
+    this.syncPolicy = syncPolicy;
+    if (groupSize < 1 || groupSize > MAX_GROUP_SIZE) {
+      throw new IllegalArgumentException("Group size must be from 1 to " + MAX_GROUP_SIZE + ".");
+    }
+    this.groupSize = groupSize;
+  }
+
+  /**
+   * Opens the journal at the given path, creating it if needed.
+   */
+  public static CommandJournal open(String fileName, SyncPolicy syncPolicy, int groupSize) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(fileName),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    return new CommandJournal(channel, syncPolicy, groupSize);
+  }
+
+  /**
+   * Applies every intact record to the calendar, truncates any torn tail and positions the
+   * journal for appending. Returns the number of records replayed.
+   */
+  int replay(CalendarManager calendar) throws IOException {
+    long size = channel.size();
+    channel.position(0);
+    // Read through a buffer rather than all at once, so the journal may outgrow a byte array.
+    DataInputStream data = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+    int replayed = 0;
+    long valid = 0;
+    while (size - valid >= FRAME_HEADER) {
+      int length = data.readInt();
+      int checksum = data.readInt();
+      if (length < 0 || length > size - valid - FRAME_HEADER) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      data.readFully(payload);
+      crc.reset();
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      replayed += apply(new DataInputStream(new ByteArrayInputStream(payload)), calendar);
+      valid += FRAME_HEADER + length;
+    }
+    channel.truncate(valid);
+    channel.position(valid);
+    return replayed;
+  }
+
+  /**
+   * Applies one record, or each record of a group, and returns how many were applied.
+   */
+  private static int apply(DataInputStream in, CalendarManager calendar) throws IOException {
+    switch (in.readByte()) {
+      case GROUP: {
+        // Each record is applied from its own frame, so a nested group stops at the end of it.
+        // The group's checksum covers its records, so theirs are not checked again.
+        int applied = 0;
+        while (in.available() > 0) {
+          byte[] payload = new byte[in.readInt()];
+          in.readInt();
+          in.readFully(payload);
+          applied += apply(new DataInputStream(new ByteArrayInputStream(payload)), calendar);
+        }
+        return applied;
+      }
+      case ADD_EVENT:
+        calendar.restoreEvent(readEvent(in));
+        break;
+      case ADD_SERIES: {
+        CalendarEvent template = readEvent(in);
+        int mask = in.readInt();
+        LocalDate firstDate = LocalDate.ofEpochDay(in.readLong());
+        LocalDate lastDate = LocalDate.ofEpochDay(in.readLong());
+        RecurringSeries series = new RecurringSeries(template, mask, firstDate, lastDate);
+        for (int i = in.readInt(); i > 0; i--) {
+          series.exclude(LocalDate.ofEpochDay(in.readLong()));
+        }
+        calendar.restoreSeries(series);
+        break;
+      }
+      case EDIT_SINGLE:
+        calendar.editSingleEvent(readString(in), readString(in), readDateTime(in), readDateTime(in),
+                readString(in));
+        break;
+      case EDIT_FROM:
+        calendar.editEventsByStart(readString(in), readString(in), readDateTime(in), readString(in));
+        break;
+      case EDIT_ALL:
+        calendar.editEventsByName(readString(in), readString(in), readString(in));
+        break;
+      default:
+        throw new IOException("Unknown journal record type.");
+    }
+    return 1;
+  }
+
+  void logEvent(CalendarEvent event) {
+    try {
+      out.writeByte(ADD_EVENT);
+      writeEvent(event);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    append();
+  }
+
+  /**
+   * Logs a batch of events as one group record.
+   */
+  void logEvents(List<CalendarEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    ByteArrayOutputStream group = new ByteArrayOutputStream();
+    group.write(GROUP);
+    for (CalendarEvent event : events) {
+      try {
+        out.writeByte(ADD_EVENT);
+        writeEvent(event);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      frame(group, takeRecord());
+    }
+    append(group.toByteArray(), events.size());
+  }
+
+  void logSeries(RecurringSeries series) {
+    try {
+      out.writeByte(ADD_SERIES);
+      writeEvent(series.getTemplate());
+      out.writeInt(series.getWeekdayMask());
+      out.writeLong(series.getFirstDate().toEpochDay());
+      out.writeLong(series.getLastDate().toEpochDay());
+      out.writeInt(series.getExcludedDates().size());
+      for (LocalDate excluded : series.getExcludedDates()) {
+        out.writeLong(excluded.toEpochDay());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    append();
+  }
+
+  void logEditSingle(String property, String eventName, LocalDateTime start, LocalDateTime end,
+                     String newValue) {
+    try {
+      out.writeByte(EDIT_SINGLE);
+      writeString(property);
+      writeString(eventName);
+      writeDateTime(start);
+      writeDateTime(end);
+      writeString(newValue);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    append();
+  }
+
+  void logEditFrom(String property, String eventName, LocalDateTime start, String newValue) {
+    try {
+      out.writeByte(EDIT_FROM);
+      writeString(property);
+      writeString(eventName);
+      writeDateTime(start);
+      writeString(newValue);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    append();
+  }
+
+  void logEditAll(String property, String eventName, String newValue) {
+    try {
+      out.writeByte(EDIT_ALL);
+      writeString(property);
+      writeString(eventName);
+      writeString(newValue);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    append();
+  }
+
+  private byte[] takeRecord() {
+    byte[] payload = record.toByteArray();
+    record.reset();
+    return payload;
+  }
+
+  /**
+   * Frames the record just written and adds it to the pending group.
+   */
+  private void append() {
+    append(takeRecord(), 1);
+  }
+
+  /**
+   * Frames a payload holding the given number of records and adds it to the pending group.
+   * If this fills the group and its commit fails, the payload is dropped again, as the caller
+   * has not applied the change it describes.
+   */
+  private void append(byte[] payload, int records) {
+    int mark = pending.size();
+    frame(pending, payload);
+    pendingRecords += records;
+    if (holds > 0) {
+      heldRecords += records;
+      return;
+    }
+    if (pendingRecords >= groupSize) {
+      try {
+        commit();
+      } catch (IOException e) {
+        truncatePending(mark);
+        pendingRecords -= records;
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void frame(ByteArrayOutputStream to, byte[] payload) {
+    crc.reset();
+    crc.update(payload);
+    to.write(payload.length >>> 24);
+    to.write(payload.length >>> 16);
+    to.write(payload.length >>> 8);
+    to.write(payload.length);
+    int checksum = (int) crc.getValue();
+    to.write(checksum >>> 24);
+    to.write(checksum >>> 16);
+    to.write(checksum >>> 8);
+    to.write(checksum);
+    to.write(payload, 0, payload.length);
+  }
+
+  private void truncatePending(int length) {
+    byte[] kept = pending.toByteArray();
+    pending.reset();
+    pending.write(kept, 0, length);
+  }
+
+  /**
+   * Defers commits until the matching {@link #release()}, whatever the group size. Holds nest;
+   * the records logged under the outermost one are committed together as one group record.
+   */
+  void hold() {
+    if (holds++ == 0) {
+      heldFrom = pending.size();
+      heldRecords = 0;
+    }
+  }
+
+  /**
+   * Ends a {@link #hold()}; ending the outermost one commits everything logged under it as one
+   * group record. If that commit fails, the records stay pending for the next commit, as the
+   * changes they describe have been applied.
+   */
+  void release() throws IOException {
+    if (--holds > 0) {
+      return;
+    }
+    if (heldRecords > 1) {
+      byte[] held = pending.toByteArray();
+      truncatePending(heldFrom);
+      byte[] group = new byte[1 + held.length - heldFrom];
+      group[0] = GROUP;
+      System.arraycopy(held, heldFrom, group, 1, held.length - heldFrom);
+      frame(pending, group);
+      pendingRecords -= heldRecords - 1;
+    }
+    commit();
+  }
+
+  /**
+   * Writes the pending group with a single write and, if the policy says so, forces it to disk.
+   * If either fails, the file is cut back to where it was and the group stays pending.
+   */
+  public void commit() throws IOException {
+    if (pendingRecords == 0) {
+      return;
+    }
+    long start = channel.position();
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      if (syncPolicy == SyncPolicy.EVERY_COMMIT) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      try {
+        channel.truncate(start);
+        channel.position(start);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    pending.reset();
+    pendingRecords = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    commit();
+    channel.close();
+  }
+
+  private void writeEvent(CalendarEvent event) throws IOException {
+    out.writeLong(event.getSequence());
+    writeString(event.getEventName());
+    writeDateTime(event.getStart());
+    writeDateTime(event.getEnd());
+    out.writeBoolean(event.isAllDay());
+    writeString(event.getDescription());
+    writeString(event.getLocation());
+    out.writeBoolean(event.isPublic());
+  }
+
+  private static CalendarEvent readEvent(DataInputStream in) throws IOException {
+    long sequence = in.readLong();
+    CalendarEvent event = new CalendarEvent(readString(in), readDateTime(in), readDateTime(in),
+            in.readBoolean());
+    event.setDescription(readString(in));
+    event.setLocation(readString(in));
+    event.setPublic(in.readBoolean());
+    event.setSequence(sequence);
+    return event;
+  }
+
+  private void writeString(String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void writeDateTime(LocalDateTime dateTime) throws IOException {
+    out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+    out.writeInt(dateTime.getNano());
+  }
+
+  private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+    return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+  }
+}
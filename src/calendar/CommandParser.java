@@ -2,31 +2,59 @@ package calendar;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 public class CommandParser {
-  private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-  private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
   public static void processCommand(String command, CalendarManager calendar) throws Exception {
+    parse(command).run(calendar);
+  }
+
+  /**
+   * Parses a command line without touching any calendar. Throws the same exception that
+   * processCommand would for a malformed line.
+   */
+  static Command parse(String command) throws Exception {
+    Command parsed = CommandTokenizer.tryParse(command);
+    return parsed != null ? parsed : parseBySplitting(command);
+  }
+
+  /**
+   * The general parser: handles every command and produces every error message. The common
+   * forms are read by {@link CommandTokenizer} first, which parses them the same way without
+   * the copies made here.
+   */
+  static Command parseBySplitting(String command) throws Exception {
     String lowerCmd = command.toLowerCase();
     if (lowerCmd.startsWith("create event")) {
-      processCreateEvent(command, calendar);
+      return parseCreateEvent(command);
     } else if (lowerCmd.startsWith("edit events")) {
-      processEditCommand(command, calendar, true);
+      return parseEditCommand(command, true);
     } else if (lowerCmd.startsWith("edit event")) {
-      processEditCommand(command, calendar, false);
+      return parseEditCommand(command, false);
     } else if (lowerCmd.startsWith("print events on")) {
-      processPrintEventsOn(command, calendar);
+      return parsePrintEventsOn(command);
     } else if (lowerCmd.startsWith("print events from")) {
-      processPrintEventsRange(command, calendar);
+      return parsePrintEventsRange(command);
     } else if (lowerCmd.startsWith("export cal")) {
-      processExportCal(command, calendar);
+      return new Command.ExportCsv(fileArgument(command, "Invalid export command format."), CsvFormat.CAL);
     } else if (lowerCmd.startsWith("show status on")) {
-      processShowStatus(command, calendar);
+      return parseShowStatus(command);
     } else if (lowerCmd.startsWith("export googlecsv")) {
-      processExportGoogleCSV(command, calendar);
+      return new Command.ExportCsv(fileArgument(command, "Invalid export googlecsv command format."),
+              CsvFormat.GOOGLE);
+    } else if (lowerCmd.startsWith("import cal")) {
+      return parseImport(command, CsvFormat.CAL);
+    } else if (lowerCmd.startsWith("import googlecsv")) {
+      return parseImport(command, CsvFormat.GOOGLE);
+    } else if (lowerCmd.startsWith("export ics")) {
+      return new Command.ExportIcs(fileArgument(command, "Invalid export ics command format."));
+    } else if (lowerCmd.startsWith("import ics")) {
+      return parseImport(command, null);
+    } else if (lowerCmd.equals("begin")) {
+      return new Command.Begin();
+    } else if (lowerCmd.equals("commit")) {
+      return new Command.Commit();
+    } else if (lowerCmd.equals("rollback")) {
+      return new Command.Rollback();
     } else {
       throw new Exception("Invalid command: " + command);
     }
@@ -37,7 +65,7 @@ public class CommandParser {
   }
 
 
-  private static void processCreateEvent(String command, CalendarManager calendar) throws Exception {
+  private static Command parseCreateEvent(String command) throws Exception {
     boolean autoDecline = false;
     if (command.toLowerCase().contains("--autodecline")) {
       autoDecline = true;
@@ -57,21 +85,16 @@ public class CommandParser {
         String[] toParts = afterTo.split(" repeats ", 2);
         String endStr = toParts[0].trim();
         String repeatPart = toParts[1].trim();
-        LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
-        LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
-        List<CalendarEvent> occurrences = RecurringEventGenerator.generateRecurringEvents(
+        LocalDateTime startDateTime = FixedDateParser.parseDateTime(startStr);
+        LocalDateTime endDateTime = FixedDateParser.parseDateTime(endStr);
+        RecurringSeries series = RecurringEventGenerator.generateSeries(
                 eventName, startDateTime, endDateTime, repeatPart, false);
-        for (CalendarEvent occurrence : occurrences) {
-          calendar.addEvent(occurrence, autoDecline);
-        }
-        OutputHandler.getInstance().println("Recurring event created with " + occurrences.size() + " occurrences.");
+        return new Command.CreateSeries(series, autoDecline);
       } else {
         String endStr = afterTo.trim();
-        LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
-        LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
-        CalendarEvent event = new CalendarEvent(eventName, startDateTime, endDateTime, false);
-        calendar.addEvent(event, autoDecline);
-        OutputHandler.getInstance().println("Event created: " + event);
+        LocalDateTime startDateTime = FixedDateParser.parseDateTime(startStr);
+        LocalDateTime endDateTime = FixedDateParser.parseDateTime(endStr);
+        return new Command.CreateEvent(new CalendarEvent(eventName, startDateTime, endDateTime, false), autoDecline);
       }
     } else if (command.contains(" on ")) {
       String[] parts = command.split(" on ", 2);
@@ -81,30 +104,25 @@ public class CommandParser {
         String[] dateParts = remainder.split(" repeats ", 2);
         String dateStr = dateParts[0].trim();
         String repeatPart = dateParts[1].trim();
-        LocalDate date = LocalDate.parse(dateStr, dateFormatter);
+        LocalDate date = FixedDateParser.parseDate(dateStr);
         LocalDateTime startDateTime = date.atStartOfDay();
         LocalDateTime endDateTime = date.plusDays(1).atStartOfDay();
-        List<CalendarEvent> occurrences = RecurringEventGenerator.generateRecurringEvents(
+        RecurringSeries series = RecurringEventGenerator.generateSeries(
                 eventName, startDateTime, endDateTime, repeatPart, true);
-        for (CalendarEvent occurrence : occurrences) {
-          calendar.addEvent(occurrence, autoDecline);
-        }
-        OutputHandler.getInstance().println("Recurring all-day event created with " + occurrences.size() + " occurrences.");
+        return new Command.CreateSeries(series, autoDecline);
       } else {
         String dateStr = remainder.trim();
-        LocalDate date = LocalDate.parse(dateStr, dateFormatter);
+        LocalDate date = FixedDateParser.parseDate(dateStr);
         LocalDateTime startDateTime = date.atStartOfDay();
         LocalDateTime endDateTime = date.plusDays(1).atStartOfDay();
-        CalendarEvent event = new CalendarEvent(eventName, startDateTime, endDateTime, true);
-        calendar.addEvent(event, autoDecline);
-        OutputHandler.getInstance().println("All-day event created: " + event);
+        return new Command.CreateEvent(new CalendarEvent(eventName, startDateTime, endDateTime, true), autoDecline);
       }
     } else {
       throw new Exception("Invalid create event command format.");
     }
   }
 
-  private static void processEditCommand(String command, CalendarManager calendar, boolean plural) throws Exception {
+  private static Command parseEditCommand(String command, boolean plural) throws Exception {
     String prefix = plural ? "edit events" : "edit event";
     String remainder = command.substring(prefix.length()).trim();
     if (remainder.contains(" with ")) {
@@ -133,18 +151,12 @@ public class CommandParser {
           }
           String startStr = splitTo[0].trim();
           String endStr = splitTo[1].trim();
-          LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
-          LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
-          boolean updated = calendar.editSingleEvent(property, eventName, startDateTime, endDateTime, newValue);
-          if (updated) {
-            OutputHandler.getInstance().println("Event updated successfully.");
-          } else {
-            OutputHandler.getInstance().println("Event not found or update failed.");
-          }
+          LocalDateTime startDateTime = FixedDateParser.parseDateTime(startStr);
+          LocalDateTime endDateTime = FixedDateParser.parseDateTime(endStr);
+          return new Command.EditSingle(property, eventName, startDateTime, endDateTime, newValue);
         } else {
-          LocalDateTime startDateTime = LocalDateTime.parse(afterFrom, dateTimeFormatter);
-          int count = calendar.editEventsByStart(property, eventName, startDateTime, newValue);
-          OutputHandler.getInstance().println(count + " event(s) updated starting from " + startDateTime);
+          LocalDateTime startDateTime = FixedDateParser.parseDateTime(afterFrom);
+          return new Command.EditFrom(property, eventName, startDateTime, newValue);
         }
       } else {
         String[] tokens = beforeWith.split(" ", 2);
@@ -153,33 +165,23 @@ public class CommandParser {
         }
         String property = tokens[0].trim();
         String eventName = tokens[1].trim();
-        int count = calendar.editEventsByName(property, eventName, newValue);
-        OutputHandler.getInstance().println(count + " event(s) updated with new " + property);
+        return new Command.EditAll(property, eventName, newValue);
       }
     } else {
       throw new Exception("Edit command must contain 'with' clause.");
     }
   }
 
-  private static void processPrintEventsOn(String command, CalendarManager calendar) throws Exception {
+  private static Command parsePrintEventsOn(String command) throws Exception {
     String[] parts = command.split(" on ", 2);
     if (parts.length < 2) {
       throw new Exception("Invalid command format for printing events.");
     }
     String dateStr = parts[1].trim();
-    LocalDate date = LocalDate.parse(dateStr, dateFormatter);
-    List<CalendarEvent> events = calendar.getEventsOn(date);
-    if (events.isEmpty()) {
-      OutputHandler.getInstance().println("No events found on " + date);
-    } else {
-      OutputHandler.getInstance().println("Events on " + date + ":");
-      for (CalendarEvent event : events) {
-        OutputHandler.getInstance().println(" - " + event);
-      }
-    }
+    return new Command.PrintOn(FixedDateParser.parseDate(dateStr));
   }
 
-  private static void processPrintEventsRange(String command, CalendarManager calendar) throws Exception {
+  private static Command parsePrintEventsRange(String command) throws Exception {
     String[] parts = command.split(" from ", 2);
     if (parts.length < 2) {
       throw new Exception("Invalid command format for printing events in range.");
@@ -191,45 +193,44 @@ public class CommandParser {
     String[] timeParts = remainder.split(" to ", 2);
     String startStr = timeParts[0].trim();
     String endStr = timeParts[1].trim();
-    LocalDateTime startDateTime = LocalDateTime.parse(startStr, dateTimeFormatter);
-    LocalDateTime endDateTime = LocalDateTime.parse(endStr, dateTimeFormatter);
-    List<CalendarEvent> events = calendar.getEventsInRange(startDateTime, endDateTime);
-    if (events.isEmpty()) {
-      OutputHandler.getInstance().println("No events found between " + startDateTime + " and " + endDateTime);
-    } else {
-      OutputHandler.getInstance().println("Events between " + startDateTime + " and " + endDateTime + ":");
-      for (CalendarEvent event : events) {
-        OutputHandler.getInstance().println(" - " + event);
-      }
-    }
+    LocalDateTime startDateTime = FixedDateParser.parseDateTime(startStr);
+    LocalDateTime endDateTime = FixedDateParser.parseDateTime(endStr);
+    return new Command.PrintRange(startDateTime, endDateTime);
   }
 
-  private static void processExportCal(String command, CalendarManager calendar) throws Exception {
+  /**
+   * Returns the third word of an export or import command, the file name.
+   */
+  private static String fileArgument(String command, String formatError) throws Exception {
     String[] tokens = command.split(" ");
     if (tokens.length < 3) {
-      throw new Exception("Invalid export command format.");
+      throw new Exception(formatError);
     }
-    String fileName = tokens[2].trim();
-    calendar.exportToCSV(fileName);
+    return tokens[2].trim();
   }
 
-  private static void processExportGoogleCSV(String command, CalendarManager calendar) throws Exception {
-    String[] tokens = command.split(" ");
-    if (tokens.length < 3) {
-      throw new Exception("Invalid export googlecsv command format.");
+  /**
+   * Parses "import cal|googlecsv|ics <file> [--dedup] [--autodecline] [--noconflictcheck]";
+   * a null format stands for ics. Conflicts are reported as warnings unless --noconflictcheck
+   * is given.
+   */
+  private static Command parseImport(String command, CsvFormat format) throws Exception {
+    String fileName = fileArgument(command, "Invalid import command format.");
+    String lowerCmd = command.toLowerCase();
+    boolean dedup = lowerCmd.contains("--dedup");
+    boolean checkConflicts = !lowerCmd.contains("--noconflictcheck");
+    if (format == null) {
+      return new Command.ImportIcs(fileName, dedup, checkConflicts, hasAutoDecline(command));
     }
-    String fileName = tokens[2].trim();
-    calendar.exportToGoogleCSV(fileName);
+    return new Command.ImportCsv(fileName, format, dedup, checkConflicts, hasAutoDecline(command));
   }
 
-  private static void processShowStatus(String command, CalendarManager calendar) throws Exception {
+  private static Command parseShowStatus(String command) throws Exception {
     String[] parts = command.split(" on ", 2);
     if (parts.length < 2) {
       throw new Exception("Invalid command format for show status.");
     }
     String dateTimeStr = parts[1].trim();
-    LocalDateTime dateTime = LocalDateTime.parse(dateTimeStr, dateTimeFormatter);
-    boolean busy = calendar.isBusyAt(dateTime);
-    OutputHandler.getInstance().println("Status at " + dateTime + ": " + (busy ? "Busy" : "Available"));
+    return new Command.ShowStatus(FixedDateParser.parseDateTime(dateTimeStr));
   }
 }
@@ -0,0 +1,267 @@
+package calendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Parses the common command forms in a single pass over the line, without lower-cased copies,
+ * split arrays or trimmed intermediates. The command words are matched case-insensitively in
+ * place, the clause keywords (" from ", " to ", " on ", " with ", " repeats ") are found by
+ * position, and dates are read digit by digit by {@link FixedDateParser}. The result is the same
+ * typed {@link Command} the split-based parser builds.
+ * <p>
+ * The tokenizer only accepts lines it can parse exactly as the split-based parser would. For
+ * anything else (a malformed line, an unusual spelling, a non-ASCII character, a date outside
+ * the plain four-digit form, import and export commands) it returns null, and the caller falls
+ * back to the split-based parser, which then produces the same result or error it always has.
+ * The only exceptions it throws come from building the event or series, exactly as there.
+ */
+final class CommandTokenizer {
+  private static final String AUTO_DECLINE = "--autodecline";
+
+  private CommandTokenizer() { }
+
+  /**
+   * Returns the parsed command, or null if the line must go through the split-based parser.
+   */
+  static Command tryParse(CharSequence line) throws Exception {
+    int length = line.length();
+    for (int i = 0; i < length; i++) {
+      if (line.charAt(i) >= 0x80) {
+        return null;
+      }
+    }
+    if (startsWithIgnoreCase(line, "create event")) {
+      return createEvent(line, length);
+    } else if (startsWithIgnoreCase(line, "edit events")) {
+      return edit(line, "edit events".length(), length, true);
+    } else if (startsWithIgnoreCase(line, "edit event")) {
+      return edit(line, "edit event".length(), length, false);
+    } else if (startsWithIgnoreCase(line, "print events on")) {
+      int on = indexOf(line, " on ", 0, length);
+      LocalDate date = on < 0 ? null : date(line, on + 4, length);
+      return date == null ? null : new Command.PrintOn(date);
+    } else if (startsWithIgnoreCase(line, "print events from")) {
+      return printRange(line, length);
+    } else if (startsWithIgnoreCase(line, "show status on")) {
+      int on = indexOf(line, " on ", 0, length);
+      LocalDateTime dateTime = on < 0 ? null : dateTime(line, on + 4, length);
+      return dateTime == null ? null : new Command.ShowStatus(dateTime);
+    }
+    return null;
+  }
+
+  private static Command createEvent(CharSequence line, int length) throws Exception {
+    // The flag may only trail the line; anywhere else its removal would join the words around it.
+    int end = length;
+    boolean autoDecline = false;
+    int flag = indexOfIgnoreCase(line, AUTO_DECLINE, 0, length);
+    if (flag >= 0) {
+      if (!regionMatches(line, flag, AUTO_DECLINE) || trimEnd(line, flag + AUTO_DECLINE.length(), length)
+              != flag + AUTO_DECLINE.length()) {
+        return null;
+      }
+      autoDecline = true;
+      end = trimEnd(line, 0, flag);
+    }
+    if (!regionMatches(line, 0, "create event")) {
+      return null;
+    }
+    int from = indexOf(line, " from ", 0, end);
+    if (from >= 0) {
+      String name = name(line, from);
+      int to = indexOf(line, " to ", from + 6, end);
+      if (name == null || to < 0) {
+        return null;
+      }
+      int afterTo = trimStart(line, to + 4, end);
+      int afterToEnd = trimEnd(line, afterTo, end);
+      int repeats = repeats(line, afterTo, afterToEnd);
+      LocalDateTime start = dateTime(line, from + 6, to);
+      LocalDateTime finish = dateTime(line, afterTo, repeats < 0 ? afterToEnd : repeats);
+      if (repeats < -1 || start == null || finish == null) {
+        return null;
+      }
+      if (repeats < 0) {
+        return new Command.CreateEvent(new CalendarEvent(name, start, finish, false), autoDecline);
+      }
+      return new Command.CreateSeries(RecurringEventGenerator.generateSeries(name, start, finish,
+              trimmed(line, repeats + 9, afterToEnd), false), autoDecline);
+    }
+    int on = indexOf(line, " on ", 0, end);
+    if (on < 0) {
+      return null;
+    }
+    String name = name(line, on);
+    int dateStart = trimStart(line, on + 4, end);
+    int dateEnd = trimEnd(line, dateStart, end);
+    int repeats = repeats(line, dateStart, dateEnd);
+    if (name == null || repeats < -1) {
+      return null;
+    }
+    LocalDate date = date(line, dateStart, repeats < 0 ? dateEnd : repeats);
+    if (date == null) {
+      return null;
+    }
+    LocalDateTime start = date.atStartOfDay();
+    LocalDateTime finish = date.plusDays(1).atStartOfDay();
+    if (repeats < 0) {
+      return new Command.CreateEvent(new CalendarEvent(name, start, finish, true), autoDecline);
+    }
+    return new Command.CreateSeries(RecurringEventGenerator.generateSeries(name, start, finish,
+            trimmed(line, repeats + 9, dateEnd), true), autoDecline);
+  }
+
+  /**
+   * Returns the index of " repeats " in the range, -1 if there is none, or -2 if it only
+   * appears in another case (the split-based parser detects it but cannot split on it).
+   */
+  private static int repeats(CharSequence line, int from, int to) {
+    int repeats = indexOf(line, " repeats ", from, to);
+    if (repeats < 0 && indexOfIgnoreCase(line, " repeats ", from, to) >= 0) {
+      return -2;
+    }
+    return repeats;
+  }
+
+  /**
+   * Returns the event name between "create event" and the clause at the given index, or null
+   * if it contains the command words again (the split-based parser removes every copy).
+   */
+  private static String name(CharSequence line, int clause) {
+    if (indexOf(line, "create event", 1, clause) >= 0) {
+      return null;
+    }
+    return trimmed(line, "create event".length(), clause);
+  }
+
+  private static Command edit(CharSequence line, int prefix, int length, boolean plural) {
+    int start = trimStart(line, prefix, length);
+    int end = trimEnd(line, start, length);
+    int with = indexOf(line, " with ", start, end);
+    if (with < 0) {
+      return null;
+    }
+    String newValue = trimmed(line, with + 6, end);
+    int beforeEnd = trimEnd(line, start, with);
+    int from = indexOf(line, " from ", start, beforeEnd);
+    int space = indexOf(line, " ", start, from < 0 ? beforeEnd : trimEnd(line, start, from));
+    if (space < 0) {
+      return null;
+    }
+    String property = trimmed(line, start, space);
+    if (from < 0) {
+      return new Command.EditAll(property, trimmed(line, space + 1, beforeEnd), newValue);
+    }
+    String eventName = trimmed(line, space + 1, from);
+    int afterFrom = trimStart(line, from + 6, beforeEnd);
+    if (!plural) {
+      int to = indexOf(line, " to ", afterFrom, beforeEnd);
+      if (to < 0) {
+        return null;
+      }
+      LocalDateTime startDateTime = dateTime(line, afterFrom, to);
+      LocalDateTime endDateTime = dateTime(line, to + 4, beforeEnd);
+      if (startDateTime == null || endDateTime == null) {
+        return null;
+      }
+      return new Command.EditSingle(property, eventName, startDateTime, endDateTime, newValue);
+    }
+    LocalDateTime startDateTime = dateTime(line, afterFrom, beforeEnd);
+    return startDateTime == null ? null : new Command.EditFrom(property, eventName, startDateTime, newValue);
+  }
+
+  private static Command printRange(CharSequence line, int length) {
+    int from = indexOf(line, " from ", 0, length);
+    if (from < 0) {
+      return null;
+    }
+    int remainder = trimStart(line, from + 6, length);
+    int to = indexOf(line, " to ", remainder, trimEnd(line, remainder, length));
+    if (to < 0) {
+      return null;
+    }
+    LocalDateTime start = dateTime(line, remainder, to);
+    LocalDateTime end = dateTime(line, to + 4, length);
+    return start == null || end == null ? null : new Command.PrintRange(start, end);
+  }
+
+  private static LocalDate date(CharSequence line, int from, int to) {
+    from = trimStart(line, from, to);
+    return FixedDateParser.date(line, from, trimEnd(line, from, to));
+  }
+
+  private static LocalDateTime dateTime(CharSequence line, int from, int to) {
+    from = trimStart(line, from, to);
+    return FixedDateParser.dateTime(line, from, trimEnd(line, from, to), 'T');
+  }
+
+  private static String trimmed(CharSequence line, int from, int to) {
+    from = trimStart(line, from, to);
+    return line.subSequence(from, trimEnd(line, from, to)).toString();
+  }
+
+  // Trimming follows String.trim, which drops every character up to and including the space.
+  private static int trimStart(CharSequence line, int from, int to) {
+    while (from < to && line.charAt(from) <= ' ') {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimEnd(CharSequence line, int from, int to) {
+    while (to > from && line.charAt(to - 1) <= ' ') {
+      to--;
+    }
+    return to;
+  }
+
+  private static boolean startsWithIgnoreCase(CharSequence line, String prefix) {
+    if (line.length() < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (Character.toLowerCase(line.charAt(i)) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean regionMatches(CharSequence line, int at, String text) {
+    if (at + text.length() > line.length()) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      if (line.charAt(at + i) != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first index in [from, to) where the text starts and ends within the range.
+   */
+  private static int indexOf(CharSequence line, String text, int from, int to) {
+    for (int i = from; i + text.length() <= to; i++) {
+      if (regionMatches(line, i, text)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int indexOfIgnoreCase(CharSequence line, String lowerText, int from, int to) {
+    for (int i = from; i + lowerText.length() <= to; i++) {
+      int j = 0;
+      while (j < lowerText.length() && Character.toLowerCase(line.charAt(i + j)) == lowerText.charAt(j)) {
+        j++;
+      }
+      if (j == lowerText.length()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,149 @@
+package calendar;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * The CSV layouts the calendar exports: its own format and Google Calendar's.
+ * Rows are appended field by field to any Appendable, with dates formatted straight into it,
+ * so a row costs no intermediate strings. Text fields are quoted and embedded quotes doubled.
+ * Each format also parses its own rows back into events.
+ */
+enum CsvFormat {
+  CAL("EventName,Start,End,AllDay,Description,Location,Public\n") {
+    @Override
+    void appendRow(Appendable out, CalendarEvent event) throws IOException {
+      appendQuoted(out, event.getEventName());
+      out.append(',');
+      DATE_TIME.formatTo(event.getStart(), out);
+      out.append(',');
+      DATE_TIME.formatTo(event.getEnd(), out);
+      out.append(',').append(event.isAllDay() ? "true" : "false").append(',');
+      appendQuoted(out, event.getDescription());
+      out.append(',');
+      appendQuoted(out, event.getLocation());
+      out.append(',').append(event.isPublic() ? "true" : "false").append('\n');
+    }
+
+    @Override
+    CalendarEvent parseRow(List<String> fields) {
+      CalendarEvent event = new CalendarEvent(fields.get(0), FixedDateParser.parseCsvDateTime(fields.get(1)),
+              FixedDateParser.parseCsvDateTime(fields.get(2)), Boolean.parseBoolean(fields.get(3)));
+      event.setDescription(fields.get(4));
+      event.setLocation(fields.get(5));
+      event.setPublic(Boolean.parseBoolean(fields.get(6)));
+      return event;
+    }
+  },
+
+  GOOGLE("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private\n") {
+    @Override
+    void appendRow(Appendable out, CalendarEvent event) throws IOException {
+      appendQuoted(out, event.getEventName());
+      out.append(',');
+      if (event.isAllDay()) {
+        DATE.formatTo(event.getStart(), out);
+        out.append(",,");
+        DATE.formatTo(event.getStart(), out);
+        out.append(",,True,");
+      } else {
+        DATE.formatTo(event.getStart(), out);
+        out.append(',');
+        TIME.formatTo(event.getStart(), out);
+        out.append(',');
+        DATE.formatTo(event.getEnd(), out);
+        out.append(',');
+        TIME.formatTo(event.getEnd(), out);
+        out.append(",False,");
+      }
+      appendQuoted(out, event.getDescription());
+      out.append(',');
+      appendQuoted(out, event.getLocation());
+      out.append(',').append(event.isPublic() ? "False" : "True").append('\n');
+    }
+
+    @Override
+    CalendarEvent parseRow(List<String> fields) {
+      boolean allDay = Boolean.parseBoolean(fields.get(5));
+      LocalDate startDate = FixedDateParser.parseUsDate(fields.get(1));
+      CalendarEvent event;
+      if (allDay) {
+        // All-day rows carry only the date; the event spans the whole day, as when created.
+        event = new CalendarEvent(fields.get(0), startDate.atStartOfDay(),
+                startDate.plusDays(1).atStartOfDay(), true);
+      } else {
+        event = new CalendarEvent(fields.get(0),
+                LocalDateTime.of(startDate, FixedDateParser.parseClockTime(fields.get(2))),
+                LocalDateTime.of(FixedDateParser.parseUsDate(fields.get(3)),
+                        FixedDateParser.parseClockTime(fields.get(4))),
+                false);
+      }
+      event.setDescription(fields.get(6));
+      event.setLocation(fields.get(7));
+      event.setPublic(!Boolean.parseBoolean(fields.get(8)));
+      return event;
+    }
+  };
+
+  // Size of the write buffer between the rows and the file.
+  static final int BUFFER_SIZE = 1 << 16;
+
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("hh:mm a");
+
+  private final String header;
+  private final List<String> columns;
+
+  CsvFormat(String header) {
+    this.header = header;
+    this.columns = List.of(header.trim().split(","));
+  }
+
+  /**
+   * Returns the header line, including its line break.
+   */
+  String header() {
+    return header;
+  }
+
+  /**
+   * Returns the column names of the header.
+   */
+  List<String> columns() {
+    return columns;
+  }
+
+  /**
+   * Appends the row for one event, including its line break.
+   */
+  abstract void appendRow(Appendable out, CalendarEvent event) throws IOException;
+
+  /**
+   * Builds the event for a row with one field per column. Throws a DateTimeParseException
+   * for a malformed date or time.
+   */
+  abstract CalendarEvent parseRow(List<String> fields);
+
+  /**
+   * Appends a field in double quotes, doubling any double quote inside it.
+   */
+  static void appendQuoted(Appendable out, String value) throws IOException {
+    out.append('"');
+    if (value.indexOf('"') < 0) {
+      out.append(value);
+    } else {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"') {
+          out.append('"');
+        }
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+}
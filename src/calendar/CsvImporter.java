@@ -0,0 +1,98 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports a file written by one of the CSV exporters.
+ * The file is read record by record; a header row matching the format is skipped, as are
+ * blank lines. The events are then added as one batch: with conflict checks through
+ * {@link CalendarManager#addEvents} (warning, or rejecting the whole file with autoDecline),
+ * or without them through {@link CalendarManager#loadEvents}. With deduplication, a row is
+ * dropped if the calendar or an earlier row already has an event with its name, start and end.
+ */
+class CsvImporter {
+  private final CsvFormat format;
+  private final boolean dedup;
+  private final boolean checkConflicts;
+  private final boolean autoDecline;
+  private int skipped;
+
+  CsvImporter(CsvFormat format, boolean dedup, boolean checkConflicts, boolean autoDecline) {
+    this.format = format;
+    this.dedup = dedup;
+    this.checkConflicts = checkConflicts;
+    this.autoDecline = autoDecline;
+  }
+
+  /**
+   * Returns the number of rows dropped as duplicates by the last import.
+   */
+  int skipped() {
+    return skipped;
+  }
+
+  /**
+   * Imports the file into the calendar and returns the number of events added.
+   */
+  int importFile(String fileName, CalendarManager calendar) throws Exception {
+    try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName)),
+            CsvFormat.BUFFER_SIZE)) {
+      return importFrom(reader, calendar);
+    }
+  }
+
+  int importFrom(Reader reader, CalendarManager calendar) throws Exception {
+    CsvReader csv = new CsvReader(reader);
+    List<String> fields = new ArrayList<>(format.columns().size());
+    List<CalendarEvent> batch = new ArrayList<>();
+    Set<List<Object>> seen = dedup ? new HashSet<>() : null;
+    skipped = 0;
+    while (csv.readRecord(fields)) {
+      if (fields.size() == 1 && fields.get(0).isEmpty()
+              || csv.recordNumber() == 1 && fields.equals(format.columns())) {
+        continue;
+      }
+      if (fields.size() != format.columns().size()) {
+        throw new Exception("Invalid row " + csv.recordNumber() + ": expected "
+                + format.columns().size() + " fields but found " + fields.size() + ".");
+      }
+      CalendarEvent event;
+      try {
+        event = format.parseRow(fields);
+      } catch (DateTimeParseException e) {
+        throw new Exception("Invalid row " + csv.recordNumber() + ": " + e.getMessage());
+      }
+      if (seen != null && isDuplicate(event, seen, calendar)) {
+        skipped++;
+        continue;
+      }
+      batch.add(event);
+    }
+    if (checkConflicts) {
+      calendar.addEvents(batch, autoDecline);
+    } else {
+      calendar.loadEvents(batch);
+    }
+    return batch.size();
+  }
+
+  /**
+   * Returns true if an earlier event of the file or the calendar already has the event's name,
+   * start and end; the event is remembered for the rows after it.
+   */
+  static boolean isDuplicate(CalendarEvent event, Set<List<Object>> seen, CalendarManager calendar) {
+    String name = event.getEventName();
+    LocalDateTime start = event.getStart();
+    LocalDateTime end = event.getEnd();
+    return !seen.add(List.of(name, start, end)) || calendar.hasEvent(name, start, end);
+  }
+}
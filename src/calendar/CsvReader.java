@@ -0,0 +1,93 @@
+package calendar;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time from a character stream.
+ * Fields may be quoted; inside quotes, commas and line breaks are part of the field and a
+ * doubled quote stands for one quote. Records end at LF or CRLF. The input is read through a
+ * fixed buffer, so memory does not grow with the file.
+ */
+class CsvReader {
+  private final Reader in;
+  private final char[] buffer = new char[1 << 16];
+  private int position;
+  private int limit;
+  private final StringBuilder field = new StringBuilder();
+  private int recordNumber;
+
+  CsvReader(Reader in) {
+    this.in = in;
+  }
+
+  /**
+   * Reads the next record into the given list, replacing its contents.
+   * Returns false at the end of the input.
+   */
+  boolean readRecord(List<String> fields) throws IOException {
+    fields.clear();
+    int c = read();
+    if (c < 0) {
+      return false;
+    }
+    recordNumber++;
+    while (true) {
+      field.setLength(0);
+      if (c == '"') {
+        while (true) {
+          c = read();
+          if (c < 0) {
+            throw new IOException("Unterminated quoted field in record " + recordNumber + ".");
+          }
+          if (c == '"') {
+            c = read();
+            if (c != '"') {
+              break;
+            }
+          }
+          field.append((char) c);
+        }
+      } else {
+        while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+          field.append((char) c);
+          c = read();
+        }
+      }
+      fields.add(field.toString());
+      if (c == ',') {
+        c = read();
+        continue;
+      }
+      if (c == '\r') {
+        c = read();
+        if (c != '\n' && c >= 0) {
+          position--;
+        }
+      } else if (c >= 0 && c != '\n') {
+        throw new IOException("Unexpected character after quoted field in record " + recordNumber + ".");
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns the number of the record last read, starting from 1.
+   */
+  int recordNumber() {
+    return recordNumber;
+  }
+
+  private int read() throws IOException {
+    if (position == limit) {
+      limit = in.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position++];
+  }
+}
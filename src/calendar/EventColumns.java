@@ -0,0 +1,237 @@
+package calendar;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A struct-of-arrays copy of the stored events in calendar order: start and end times as
+ * epoch-minute long columns next to the event objects, and a column of the latest end among
+ * each row and the rows before it. Range scans binary-search both ends of the rows that can
+ * match and run as a primitive loop over them, only touching the event objects of candidates.
+ * Starts are rounded down and ends rounded up to the minute, so the column test never misses
+ * an event; candidates are then confirmed against the exact times.
+ * <p>
+ * Events arriving in calendar order are appended. An event that sorts earlier goes into a
+ * small sorted side buffer, itself a set of columns, which is merged into the main columns
+ * once it grows past the square root of their size; scans read both and merge the results.
+ */
+class EventColumns {
+  private static final int MIN_PENDING = 64;
+
+  private long[] startMinutes;
+  private long[] endMinutes;
+  private long[] maxEndMinutes;
+  private CalendarEvent[] events;
+  private int size;
+  // Events that arrived out of order, not yet merged in; null when there are none.
+  private EventColumns pending;
+
+  EventColumns(int capacity) {
+    int initial = Math.max(16, capacity);
+    startMinutes = new long[initial];
+    endMinutes = new long[initial];
+    maxEndMinutes = new long[initial];
+    events = new CalendarEvent[initial];
+  }
+
+  /**
+   * Builds the columns from events that are already in calendar order.
+   */
+  static EventColumns of(Iterable<CalendarEvent> ordered, int size) {
+    EventColumns columns = new EventColumns(size);
+    for (CalendarEvent event : ordered) {
+      columns.add(event);
+    }
+    return columns;
+  }
+
+  /**
+   * Adds an event: appended if it sorts after every event in the main columns, and otherwise
+   * put in its place in the side buffer.
+   */
+  void insert(CalendarEvent event) {
+    if (size == 0 || CalendarManager.START_ORDER.compare(events[size - 1], event) <= 0) {
+      add(event);
+      return;
+    }
+    if (pending == null) {
+      pending = new EventColumns(MIN_PENDING);
+    }
+    pending.insertAt(pending.upperBound(event), event);
+    if (pending.size > Math.max(MIN_PENDING, (int) Math.sqrt(size))) {
+      mergePending();
+    }
+  }
+
+  /**
+   * Returns the number of events, including those still in the side buffer.
+   */
+  int size() {
+    return pending == null ? size : size + pending.size;
+  }
+
+  private void add(CalendarEvent event) {
+    if (size == events.length) {
+      grow(size * 2);
+    }
+    set(size, event);
+    maxEndMinutes[size] = size == 0 ? endMinutes[0] : Math.max(maxEndMinutes[size - 1], endMinutes[size]);
+    size++;
+  }
+
+  private void grow(int capacity) {
+    startMinutes = Arrays.copyOf(startMinutes, capacity);
+    endMinutes = Arrays.copyOf(endMinutes, capacity);
+    maxEndMinutes = Arrays.copyOf(maxEndMinutes, capacity);
+    events = Arrays.copyOf(events, capacity);
+  }
+
+  private void set(int row, CalendarEvent event) {
+    startMinutes[row] = floorMinute(event.getStart());
+    endMinutes[row] = ceilMinute(event.getEnd());
+    events[row] = event;
+  }
+
+  /**
+   * Inserts an event at a row, shifting the later rows down; meant for the small side buffer.
+   */
+  private void insertAt(int row, CalendarEvent event) {
+    if (size == events.length) {
+      grow(size * 2);
+    }
+    System.arraycopy(startMinutes, row, startMinutes, row + 1, size - row);
+    System.arraycopy(endMinutes, row, endMinutes, row + 1, size - row);
+    System.arraycopy(events, row, events, row + 1, size - row);
+    set(row, event);
+    size++;
+    updateMaxEnds(row);
+  }
+
+  private void updateMaxEnds(int from) {
+    long max = from == 0 ? Long.MIN_VALUE : maxEndMinutes[from - 1];
+    for (int i = from; i < size; i++) {
+      max = Math.max(max, endMinutes[i]);
+      maxEndMinutes[i] = max;
+    }
+  }
+
+  /**
+   * Returns the row after every event that sorts at or before the given one.
+   */
+  private int upperBound(CalendarEvent event) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (CalendarManager.START_ORDER.compare(events[mid], event) > 0) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Merges the side buffer into the main columns in one pass.
+   */
+  private void mergePending() {
+    EventColumns merged = new EventColumns(size + pending.size);
+    int i = 0;
+    int j = 0;
+    while (i < size || j < pending.size) {
+      // The buffered event goes after main events it ties with, as it arrived later.
+      boolean fromMain = j == pending.size
+              || i < size && CalendarManager.START_ORDER.compare(events[i], pending.events[j]) <= 0;
+      merged.add(fromMain ? events[i++] : pending.events[j++]);
+    }
+    startMinutes = merged.startMinutes;
+    endMinutes = merged.endMinutes;
+    maxEndMinutes = merged.maxEndMinutes;
+    events = merged.events;
+    size = merged.size;
+    pending = null;
+  }
+
+  /**
+   * Returns the events overlapping [from, to), in calendar order.
+   */
+  List<CalendarEvent> findOverlapping(LocalDateTime from, LocalDateTime to) {
+    List<CalendarEvent> result = scan(from, to);
+    if (pending == null) {
+      return result;
+    }
+    List<CalendarEvent> buffered = pending.scan(from, to);
+    if (buffered.isEmpty()) {
+      return result;
+    }
+    List<CalendarEvent> merged = new ArrayList<>(result.size() + buffered.size());
+    int i = 0;
+    int j = 0;
+    while (i < result.size() && j < buffered.size()) {
+      merged.add(CalendarManager.START_ORDER.compare(result.get(i), buffered.get(j)) <= 0
+              ? result.get(i++) : buffered.get(j++));
+    }
+    merged.addAll(result.subList(i, result.size()));
+    merged.addAll(buffered.subList(j, buffered.size()));
+    return merged;
+  }
+
+  private List<CalendarEvent> scan(LocalDateTime from, LocalDateTime to) {
+    long fromMinute = floorMinute(from);
+    // Rows before this one all end by 'from', and rows from 'limit' on start at or after 'to'.
+    int first = firstMaxEndAfter(fromMinute);
+    int limit = firstStartAtOrAfter(ceilMinute(to));
+    long[] ends = endMinutes;
+    List<CalendarEvent> result = new ArrayList<>();
+    for (int i = first; i < limit; i++) {
+      if (ends[i] > fromMinute) {
+        CalendarEvent event = events[i];
+        if (event.getStart().isBefore(to) && event.getEnd().isAfter(from)) {
+          result.add(event);
+        }
+      }
+    }
+    return result;
+  }
+
+  private int firstMaxEndAfter(long minute) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (maxEndMinutes[mid] <= minute) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private int firstStartAtOrAfter(long minute) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (startMinutes[mid] < minute) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  static long floorMinute(LocalDateTime dateTime) {
+    return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+  }
+
+  static long ceilMinute(LocalDateTime dateTime) {
+    long minute = floorMinute(dateTime);
+    return dateTime.getSecond() == 0 && dateTime.getNano() == 0 ? minute : minute + 1;
+  }
+}
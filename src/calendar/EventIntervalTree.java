@@ -0,0 +1,248 @@
+package calendar;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An ordered store of calendar events, implemented as an augmented interval tree.
+ * Events are ordered by start time, then by sequence number, then by insertion order, and
+ * every node records the latest end time in its subtree so that overlap queries can skip
+ * whole subtrees. The tree is kept balanced (AVL), so insertion is O(log N), an overlap
+ * query is O(log N + k) for k matching events, and iteration yields events in start order.
+ */
+class EventIntervalTree implements Iterable<CalendarEvent> {
+  private static class Node {
+    final CalendarEvent event;
+    final LocalDateTime start;
+    final LocalDateTime end;
+    final long seq;
+    LocalDateTime maxEnd;
+    int height;
+    Node left;
+    Node right;
+
+    Node(CalendarEvent event) {
+      this.event = event;
+      this.start = event.getStart();
+      this.end = event.getEnd();
+      this.seq = event.getSequence();
+      this.maxEnd = end;
+      this.height = 1;
+    }
+  }
+
+  private Node root;
+  private int size;
+
+  /**
+   * Inserts an event into the tree.
+   * The event's start, end and sequence number are captured at insertion time.
+   */
+  public void insert(CalendarEvent event) {
+    root = insert(root, new Node(event));
+    size++;
+  }
+
+  /**
+   * Inserts a batch of events that is already sorted by start time and sequence number.
+   * Small batches are inserted one by one; when the batch is at least as large as the
+   * tree, the existing events and the batch are merged and the tree is rebuilt in O(N + M).
+   * Batch events order after existing events with the same start and sequence number.
+   */
+  public void insertAllSorted(List<CalendarEvent> sortedBatch) {
+    if (sortedBatch.size() < size) {
+      for (CalendarEvent event : sortedBatch) {
+        insert(event);
+      }
+      return;
+    }
+    List<Node> existing = new ArrayList<>(size);
+    collectNodes(root, existing);
+    Node[] merged = new Node[existing.size() + sortedBatch.size()];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (j < sortedBatch.size()) {
+      Node candidate = new Node(sortedBatch.get(j));
+      while (i < existing.size() && compare(existing.get(i), candidate) <= 0) {
+        merged[k++] = existing.get(i++);
+      }
+      merged[k++] = candidate;
+      j++;
+    }
+    while (i < existing.size()) {
+      merged[k++] = existing.get(i++);
+    }
+    root = build(merged, 0, merged.length - 1);
+    size = merged.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns all events in start order.
+   */
+  public List<CalendarEvent> toList() {
+    List<CalendarEvent> result = new ArrayList<>(size);
+    for (CalendarEvent event : this) {
+      result.add(event);
+    }
+    return result;
+  }
+
+  @Override
+  public Iterator<CalendarEvent> iterator() {
+    return new Iterator<CalendarEvent>() {
+      private final Deque<Node> stack = new ArrayDeque<>();
+
+      {
+        pushLeft(root);
+      }
+
+      private void pushLeft(Node node) {
+        while (node != null) {
+          stack.push(node);
+          node = node.left;
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return !stack.isEmpty();
+      }
+
+      @Override
+      public CalendarEvent next() {
+        if (stack.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node node = stack.pop();
+        pushLeft(node.right);
+        return node.event;
+      }
+    };
+  }
+
+  /**
+   * Returns the events overlapping the half-open range [from, to), in start order.
+   * An event overlaps when it starts before {@code to} and ends after {@code from},
+   * which is the same test as {@link CalendarEvent#conflictsWith(CalendarEvent)}.
+   */
+  public List<CalendarEvent> findOverlapping(LocalDateTime from, LocalDateTime to) {
+    List<CalendarEvent> result = new ArrayList<>();
+    collectOverlapping(root, from, to, result);
+    return result;
+  }
+
+  private void collectOverlapping(Node node, LocalDateTime from, LocalDateTime to,
+                                  List<CalendarEvent> result) {
+    // No event below this node ends after 'from', so nothing here can overlap.
+    if (node == null || !node.maxEnd.isAfter(from)) {
+      return;
+    }
+    collectOverlapping(node.left, from, to, result);
+    if (node.start.isBefore(to)) {
+      if (node.end.isAfter(from)) {
+        result.add(node.event);
+      }
+      collectOverlapping(node.right, from, to, result);
+    }
+  }
+
+  private static void collectNodes(Node node, List<Node> out) {
+    if (node == null) {
+      return;
+    }
+    collectNodes(node.left, out);
+    out.add(node);
+    collectNodes(node.right, out);
+  }
+
+  private static Node build(Node[] nodes, int lo, int hi) {
+    if (lo > hi) {
+      return null;
+    }
+    int mid = (lo + hi) >>> 1;
+    Node node = nodes[mid];
+    node.left = build(nodes, lo, mid - 1);
+    node.right = build(nodes, mid + 1, hi);
+    update(node);
+    return node;
+  }
+
+  private static int compare(Node a, Node b) {
+    int c = a.start.compareTo(b.start);
+    return c != 0 ? c : Long.compare(a.seq, b.seq);
+  }
+
+  private static Node insert(Node node, Node newNode) {
+    if (node == null) {
+      return newNode;
+    }
+    if (compare(newNode, node) < 0) {
+      node.left = insert(node.left, newNode);
+    } else {
+      node.right = insert(node.right, newNode);
+    }
+    return rebalance(node);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static void update(Node node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    LocalDateTime max = node.end;
+    if (node.left != null && node.left.maxEnd.isAfter(max)) {
+      max = node.left.maxEnd;
+    }
+    if (node.right != null && node.right.maxEnd.isAfter(max)) {
+      max = node.right.maxEnd;
+    }
+    node.maxEnd = max;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node pivot = node.left;
+    node.left = pivot.right;
+    pivot.right = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node pivot = node.right;
+    node.right = pivot.left;
+    pivot.left = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private static Node rebalance(Node node) {
+    update(node);
+    int balance = height(node.left) - height(node.right);
+    if (balance > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balance < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+}
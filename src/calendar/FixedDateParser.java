@@ -0,0 +1,138 @@
+package calendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses the fixed date and time layouts of commands and CSV files by reading the digits
+ * straight from the text and checking their ranges, without the general formatter machinery
+ * and its intermediate objects. Only text in the exact layout with every value in range is
+ * read directly. Anything else goes to the formatter for the layout and gets exactly its
+ * result or error: a malformed value, a year outside 0001-9999, or a day past the end of its
+ * month, which the formatter moves back to the last day.
+ */
+final class FixedDateParser {
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final DateTimeFormatter CSV_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+  private static final DateTimeFormatter US_DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  private static final DateTimeFormatter CLOCK_TIME = DateTimeFormatter.ofPattern("hh:mm a");
+
+  // The AM/PM markers depend on the default locale; they are only read directly if they are these.
+  private static final boolean ENGLISH_MARKERS = "01:00 AM".equals(CLOCK_TIME.format(LocalTime.of(1, 0)))
+          && "01:00 PM".equals(CLOCK_TIME.format(LocalTime.of(13, 0)));
+
+  private FixedDateParser() { }
+
+  /**
+   * Parses "yyyy-MM-dd", as a date in a command.
+   */
+  static LocalDate parseDate(CharSequence text) {
+    LocalDate date = date(text, 0, text.length());
+    return date != null ? date : LocalDate.parse(text, DATE);
+  }
+
+  /**
+   * Parses "yyyy-MM-dd'T'HH:mm", as a date and time in a command.
+   */
+  static LocalDateTime parseDateTime(CharSequence text) {
+    LocalDateTime dateTime = dateTime(text, 0, text.length(), 'T');
+    return dateTime != null ? dateTime : LocalDateTime.parse(text, DATE_TIME);
+  }
+
+  /**
+   * Parses "yyyy-MM-dd HH:mm", as in the calendar's own CSV format.
+   */
+  static LocalDateTime parseCsvDateTime(CharSequence text) {
+    LocalDateTime dateTime = dateTime(text, 0, text.length(), ' ');
+    return dateTime != null ? dateTime : LocalDateTime.parse(text, CSV_DATE_TIME);
+  }
+
+  /**
+   * Parses "MM/dd/yyyy", as in Google Calendar's CSV format.
+   */
+  static LocalDate parseUsDate(CharSequence text) {
+    if (text.length() == 10 && text.charAt(2) == '/' && text.charAt(5) == '/') {
+      int month = digits(text, 0, 2);
+      int day = digits(text, 3, 2);
+      int year = digits(text, 6, 4);
+      if (isValidDate(year, month, day)) {
+        return LocalDate.of(year, month, day);
+      }
+    }
+    return LocalDate.parse(text, US_DATE);
+  }
+
+  /**
+   * Parses "hh:mm a", a twelve-hour time as in Google Calendar's CSV format.
+   */
+  static LocalTime parseClockTime(CharSequence text) {
+    if (ENGLISH_MARKERS && text.length() == 8 && text.charAt(2) == ':' && text.charAt(5) == ' '
+            && text.charAt(7) == 'M' && (text.charAt(6) == 'A' || text.charAt(6) == 'P')) {
+      int hour = digits(text, 0, 2);
+      int minute = digits(text, 3, 2);
+      if (hour >= 1 && hour <= 12 && minute >= 0 && minute <= 59) {
+        return LocalTime.of(hour % 12 + (text.charAt(6) == 'P' ? 12 : 0), minute);
+      }
+    }
+    return LocalTime.parse(text, CLOCK_TIME);
+  }
+
+  /**
+   * Reads "yyyy-MM-dd" from text[from, to), or returns null unless that is a date in exactly
+   * this layout with every value in range.
+   */
+  static LocalDate date(CharSequence text, int from, int to) {
+    if (to - from != 10 || text.charAt(from + 4) != '-' || text.charAt(from + 7) != '-') {
+      return null;
+    }
+    int year = digits(text, from, 4);
+    int month = digits(text, from + 5, 2);
+    int day = digits(text, from + 8, 2);
+    return isValidDate(year, month, day) ? LocalDate.of(year, month, day) : null;
+  }
+
+  /**
+   * Reads "yyyy-MM-dd", the separator and "HH:mm" from text[from, to), or returns null unless
+   * that is a date and time in exactly this layout with every value in range.
+   */
+  static LocalDateTime dateTime(CharSequence text, int from, int to, char separator) {
+    if (to - from != 16 || text.charAt(from + 4) != '-' || text.charAt(from + 7) != '-'
+            || text.charAt(from + 10) != separator || text.charAt(from + 13) != ':') {
+      return null;
+    }
+    int year = digits(text, from, 4);
+    int month = digits(text, from + 5, 2);
+    int day = digits(text, from + 8, 2);
+    int hour = digits(text, from + 11, 2);
+    int minute = digits(text, from + 14, 2);
+    if (!isValidDate(year, month, day) || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+      return null;
+    }
+    return LocalDateTime.of(year, month, day, hour, minute);
+  }
+
+  private static boolean isValidDate(int year, int month, int day) {
+    return year >= 1 && month >= 1 && month <= 12 && day >= 1
+            && (day <= 28 || day <= Month.of(month).length(Year.isLeap(year)));
+  }
+
+  /**
+   * Returns the value of count decimal digits, or -1 if any of them is not a digit.
+   */
+  private static int digits(CharSequence text, int from, int count) {
+    int value = 0;
+    for (int i = from; i < from + count; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
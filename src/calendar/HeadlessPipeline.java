@@ -0,0 +1,153 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a headless command file as a pipeline. A reader thread cuts the file into chunks of
+ * lines and hands each chunk to a pool of parser threads; the futures go into a bounded queue
+ * in file order. The calling thread takes them in that order and applies the parsed commands
+ * one at a time, so the calendar sees exactly the sequence the sequential loop would, and the
+ * output (echo, results, the first error, "Exiting.") is the same. Once the applier stops, the
+ * reader and parsers are cancelled.
+ */
+class HeadlessPipeline {
+  static final int CHUNK_SIZE = 256;
+  static final int MAX_PARSE_THREADS = 256;
+
+  private final int parseThreads;
+  // Chunks read ahead of the applier; bounds memory on large files.
+  private final int window;
+
+  HeadlessPipeline(int parseThreads) {
+    this.parseThreads = parseThreads;
+    this.window = parseThreads * 4;
+  }
+
+  /**
+   * A run of consecutive lines and their parsed commands (null for "exit").
+   * A read error, if any, happened right after the last line.
+   */
+  private static final class Chunk {
+    final String[] lines;
+    final int size;
+    final Command[] commands;
+    final IOException readError;
+    final boolean last;
+
+    Chunk(String[] lines, int size, IOException readError, boolean last) {
+      this.lines = lines;
+      this.size = size;
+      this.commands = new Command[size];
+      this.readError = readError;
+      this.last = last;
+    }
+
+    Chunk parse() {
+      for (int i = 0; i < size; i++) {
+        if (!lines[i].equalsIgnoreCase("exit")) {
+          try {
+            commands[i] = CommandParser.parse(lines[i]);
+          } catch (Exception e) {
+            commands[i] = new Command.Failed(e);
+          }
+        }
+      }
+      return this;
+    }
+  }
+
+  void run(CalendarManager calendar, String fileName) {
+    BlockingQueue<Future<Chunk>> parsed = new ArrayBlockingQueue<>(window);
+    ExecutorService parsers = Executors.newFixedThreadPool(parseThreads, task -> {
+      Thread thread = new Thread(task, "command-parser");
+      thread.setDaemon(true);
+      return thread;
+    });
+    Thread reader = new Thread(() -> read(fileName, parsers, parsed), "command-reader");
+    reader.setDaemon(true);
+    reader.start();
+    try {
+      apply(calendar, parsed);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      reader.interrupt();
+      parsers.shutdownNow();
+    }
+  }
+
+  private void read(String fileName, ExecutorService parsers, BlockingQueue<Future<Chunk>> parsed) {
+    String[] lines = new String[CHUNK_SIZE];
+    int size = 0;
+    try {
+      try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+        String line;
+        while ((line = br.readLine()) != null) {
+          lines[size++] = line;
+          if (size == CHUNK_SIZE) {
+            Chunk chunk = new Chunk(lines, size, null, false);
+            parsed.put(parsers.submit(chunk::parse));
+            lines = new String[CHUNK_SIZE];
+            size = 0;
+          }
+        }
+      } catch (IOException e) {
+        parsed.put(CompletableFuture.completedFuture(new Chunk(lines, size, e, true).parse()));
+        return;
+      }
+      Chunk chunk = new Chunk(lines, size, null, true);
+      parsed.put(parsers.submit(chunk::parse));
+    } catch (InterruptedException | RejectedExecutionException e) {
+      // The applier stopped early and shut the parsers down.
+    }
+  }
+
+  private static void apply(CalendarManager calendar, BlockingQueue<Future<Chunk>> parsed)
+          throws InterruptedException {
+    while (true) {
+      Chunk chunk = take(parsed);
+      for (int i = 0; i < chunk.size; i++) {
+        OutputHandler.getInstance().echo(chunk.lines[i]);
+        if (chunk.commands[i] == null) {
+          OutputHandler.getInstance().println("Exiting.");
+          return;
+        }
+        try {
+          chunk.commands[i].run(calendar);
+        } catch (IOException e) {
+          OutputHandler.getInstance().println("Error reading file: " + e.getMessage());
+          return;
+        } catch (Exception e) {
+          OutputHandler.getInstance().println("Command error: " + e.getMessage());
+          return;
+        }
+      }
+      if (chunk.readError != null) {
+        OutputHandler.getInstance().println("Error reading file: " + chunk.readError.getMessage());
+        return;
+      }
+      if (chunk.last) {
+        return;
+      }
+    }
+  }
+
+  private static Chunk take(BlockingQueue<Future<Chunk>> parsed) throws InterruptedException {
+    try {
+      return parsed.take().get();
+    } catch (ExecutionException e) {
+      // Chunk.parse catches every Exception, so only an Error can get here.
+      throw (Error) e.getCause();
+    }
+  }
+}
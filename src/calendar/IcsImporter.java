@@ -0,0 +1,537 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports an iCalendar (RFC 5545) file such as the one {@link IcsWriter} produces.
+ * The file is read one unfolded content line at a time. A VEVENT with an RRULE becomes a
+ * {@link RecurringSeries} without expanding its occurrences; the weekly and daily rules the
+ * calendar can represent are accepted, bounded by COUNT or UNTIL, with EXDATE dates excluded.
+ * A VEVENT with a RECURRENCE-ID replaces that occurrence of the series with the same UID.
+ * Other VEVENTs become stored events. Time zones are ignored: times are read as local times.
+ * Everything is read before anything is added, so a malformed file leaves the calendar unchanged.
+ * The flags are those of {@link CsvImporter}. With autoDecline, a conflict of any series or
+ * event, with the calendar or with another one in the file, rejects the whole file. With
+ * deduplication, an event is dropped if the calendar or an earlier event of the file already
+ * has its name, start and end, and a series is dropped if the calendar already has every one
+ * of its occurrences.
+ */
+class IcsImporter {
+  private final boolean dedup;
+  private final boolean checkConflicts;
+  private final boolean autoDecline;
+  private int seriesCount;
+  private int skipped;
+
+  IcsImporter(boolean dedup, boolean checkConflicts, boolean autoDecline) {
+    this.dedup = dedup;
+    this.checkConflicts = checkConflicts;
+    this.autoDecline = autoDecline;
+  }
+
+  /**
+   * Returns the number of recurring series added by the last import.
+   */
+  int seriesCount() {
+    return seriesCount;
+  }
+
+  /**
+   * Returns the number of events and series dropped as duplicates by the last import.
+   */
+  int skipped() {
+    return skipped;
+  }
+
+  /**
+   * Imports the file into the calendar and returns the number of single events added.
+   */
+  int importFile(String fileName, CalendarManager calendar) throws Exception {
+    try (Reader reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8)) {
+      return importFrom(reader, calendar);
+    }
+  }
+
+  int importFrom(Reader reader, CalendarManager calendar) throws Exception {
+    ContentLines lines = new ContentLines(new BufferedReader(reader, CsvFormat.BUFFER_SIZE));
+    List<CalendarEvent> single = new ArrayList<>();
+    Map<String, RecurringSeries> seriesByUid = new LinkedHashMap<>();
+    List<Component> overrides = new ArrayList<>();
+    Component component = null;
+    int nested = 0;
+    String line;
+    while ((line = lines.next()) != null) {
+      Property property = Property.parse(line, lines.number());
+      if (property.name.equals("BEGIN")) {
+        if (component != null) {
+          nested++;
+        } else if (property.value.equalsIgnoreCase("VEVENT")) {
+          component = new Component(lines.number());
+        }
+      } else if (property.name.equals("END") && component != null) {
+        if (nested > 0) {
+          nested--;
+          continue;
+        }
+        if (component.first("RECURRENCE-ID") != null) {
+          overrides.add(component);
+        } else if (component.first("RRULE") != null) {
+          seriesByUid.put(component.uid(), component.toSeries());
+        } else {
+          single.add(component.toEvent());
+        }
+        component = null;
+      } else if (component != null && nested == 0) {
+        component.properties.add(property);
+      }
+    }
+    if (component != null) {
+      throw new Exception("Invalid event at line " + component.line + ": missing END:VEVENT.");
+    }
+
+    // An override becomes a detached occurrence when it starts on the date it replaces.
+    List<CalendarEvent> detached = new ArrayList<>();
+    List<RecurringSeries> detachedFrom = new ArrayList<>();
+    for (Component override : overrides) {
+      CalendarEvent event = override.toEvent();
+      RecurringSeries from = seriesByUid.get(override.uid());
+      LocalDate replaced = override.dateTime(override.first("RECURRENCE-ID")).toLocalDate();
+      if (from != null && from.occursOn(replaced)) {
+        from.exclude(replaced);
+        if (event.getStart().toLocalDate().equals(replaced)) {
+          detached.add(event);
+          detachedFrom.add(from);
+          continue;
+        }
+      }
+      single.add(event);
+    }
+
+    skipped = 0;
+    if (dedup) {
+      Set<List<Object>> seen = new HashSet<>();
+      int events = single.size();
+      single.removeIf(event -> CsvImporter.isDuplicate(event, seen, calendar));
+      skipped += events - single.size();
+      for (int i = 0; i < detached.size(); i++) {
+        if (CsvImporter.isDuplicate(detached.get(i), seen, calendar)) {
+          detached.remove(i);
+          detachedFrom.remove(i--);
+          skipped++;
+        }
+      }
+    }
+    List<RecurringSeries> series = new ArrayList<>();
+    Set<RecurringSeries> added = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (RecurringSeries s : seriesByUid.values()) {
+      if (!s.iterator().hasNext()) {
+        continue;
+      }
+      if (dedup && hasEveryOccurrence(calendar, s)) {
+        skipped++;
+        continue;
+      }
+      series.add(s);
+      added.add(s);
+    }
+    for (int i = detached.size() - 1; i >= 0; i--) {
+      // A series whose every occurrence was replaced, or that is a duplicate, is not added;
+      // its replacements stand alone.
+      if (!added.contains(detachedFrom.get(i))) {
+        single.add(detached.remove(i));
+        detachedFrom.remove(i);
+      }
+    }
+    if (checkConflicts && autoDecline) {
+      checkDeclines(calendar, series, single, detached);
+    }
+
+    // The series, events and detached occurrences of a file are journaled as one group.
+    calendar.holdJournal();
+    try {
+      for (RecurringSeries s : series) {
+        if (checkConflicts) {
+          calendar.addSeries(s, false);
+        } else {
+          calendar.loadSeries(s);
+        }
+      }
+      if (checkConflicts) {
+        calendar.addEvents(single, false);
+      } else {
+        calendar.loadEvents(single);
+      }
+      for (int i = 0; i < detached.size(); i++) {
+        calendar.addDetached(detachedFrom.get(i), detached.get(i), checkConflicts);
+      }
+    } finally {
+      calendar.releaseJournal();
+    }
+    seriesCount = series.size();
+    return single.size() + detached.size();
+  }
+
+  private static boolean hasEveryOccurrence(CalendarManager calendar, RecurringSeries s) {
+    for (CalendarEvent occurrence : s) {
+      if (!calendar.hasEvent(occurrence.getEventName(), occurrence.getStart(), occurrence.getEnd())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Throws if any series or event of the file conflicts with the calendar or with another one
+   * in the file, by checking each of them as its own declining owner.
+   */
+  private static void checkDeclines(CalendarManager calendar, List<RecurringSeries> series,
+                                    List<CalendarEvent> single, List<CalendarEvent> detached) throws Exception {
+    int[] seriesOwners = new int[series.size()];
+    for (int i = 0; i < seriesOwners.length; i++) {
+      seriesOwners[i] = i;
+    }
+    List<CalendarEvent> candidates = new ArrayList<>(single);
+    candidates.addAll(detached);
+    int[] owners = new int[candidates.size()];
+    for (int i = 0; i < owners.length; i++) {
+      owners[i] = series.size() + i;
+    }
+    boolean[] autoDecline = new boolean[series.size() + candidates.size()];
+    Arrays.fill(autoDecline, true);
+    calendar.checkDeclines(candidates, owners, series, seriesOwners, autoDecline);
+  }
+
+  /**
+   * Reads content lines, joining folded continuation lines (those starting with a space or tab)
+   * onto the line before them.
+   */
+  private static class ContentLines {
+    private final BufferedReader in;
+    private String pending;
+    private int physical;
+    private int number;
+
+    ContentLines(BufferedReader in) {
+      this.in = in;
+    }
+
+    String next() throws IOException {
+      String first = pending != null ? pending : readNonEmpty();
+      if (first == null) {
+        return null;
+      }
+      number = physical;
+      pending = null;
+      StringBuilder unfolded = null;
+      String line;
+      while ((line = readNonEmpty()) != null) {
+        if (line.charAt(0) != ' ' && line.charAt(0) != '\t') {
+          pending = line;
+          break;
+        }
+        if (unfolded == null) {
+          unfolded = new StringBuilder(first);
+        }
+        unfolded.append(line, 1, line.length());
+      }
+      return unfolded == null ? first : unfolded.toString();
+    }
+
+    /**
+     * Returns the line number where the last content line began.
+     */
+    int number() {
+      return number;
+    }
+
+    private String readNonEmpty() throws IOException {
+      String line;
+      do {
+        line = in.readLine();
+        physical++;
+      } while (line != null && line.isEmpty());
+      return line;
+    }
+  }
+
+  /**
+   * A content line: a name, whether VALUE=DATE was given, and the raw value.
+   * Other parameters, such as TZID, are ignored.
+   */
+  private static class Property {
+    final String name;
+    final boolean dateOnly;
+    final String value;
+
+    private Property(String name, boolean dateOnly, String value) {
+      this.name = name;
+      this.dateOnly = dateOnly;
+      this.value = value;
+    }
+
+    static Property parse(String line, int number) throws Exception {
+      int nameEnd = 0;
+      while (nameEnd < line.length() && line.charAt(nameEnd) != ';' && line.charAt(nameEnd) != ':') {
+        nameEnd++;
+      }
+      boolean dateOnly = false;
+      int i = nameEnd;
+      while (i < line.length() && line.charAt(i) == ';') {
+        int paramStart = ++i;
+        boolean quoted = false;
+        while (i < line.length() && (quoted || line.charAt(i) != ';' && line.charAt(i) != ':')) {
+          if (line.charAt(i) == '"') {
+            quoted = !quoted;
+          }
+          i++;
+        }
+        if (line.regionMatches(true, paramStart, "VALUE=DATE", 0, 10) && i - paramStart == 10) {
+          dateOnly = true;
+        }
+      }
+      if (i >= line.length()) {
+        throw new Exception("Invalid line " + number + ": missing ':'.");
+      }
+      return new Property(line.substring(0, nameEnd).toUpperCase(), dateOnly, line.substring(i + 1));
+    }
+  }
+
+  /**
+   * The properties of one VEVENT, in file order, and the line it began on.
+   */
+  private static class Component {
+    final int line;
+    final List<Property> properties = new ArrayList<>();
+
+    Component(int line) {
+      this.line = line;
+    }
+
+    Property first(String name) {
+      for (Property property : properties) {
+        if (property.name.equals(name)) {
+          return property;
+        }
+      }
+      return null;
+    }
+
+    String uid() {
+      Property uid = first("UID");
+      return uid == null ? "" : uid.value;
+    }
+
+    CalendarEvent toEvent() throws Exception {
+      Property startProperty = required("DTSTART");
+      LocalDateTime start = dateTime(startProperty);
+      Property endProperty = first("DTEND");
+      Property duration = first("DURATION");
+      LocalDateTime end;
+      if (endProperty != null) {
+        end = dateTime(endProperty);
+      } else if (duration != null) {
+        end = start.plus(duration(duration));
+      } else {
+        // Without an end, a date lasts the whole day and a date-time is an instant.
+        end = startProperty.dateOnly ? start.plusDays(1) : start;
+      }
+      return withProperties(new CalendarEvent(text("SUMMARY"), start, end, startProperty.dateOnly));
+    }
+
+    RecurringSeries toSeries() throws Exception {
+      Property startProperty = required("DTSTART");
+      LocalDateTime start = dateTime(startProperty);
+      // Occurrences of an all-day series take the whole of their own date.
+      CalendarEvent template = startProperty.dateOnly
+              ? withProperties(new CalendarEvent(text("SUMMARY"), start, start.plusDays(1), true))
+              : toEvent();
+      LocalDate firstDate = start.toLocalDate();
+      int mask = 0;
+      String frequency = null;
+      Long count = null;
+      LocalDateTime until = null;
+      boolean untilDateOnly = false;
+      for (String part : required("RRULE").value.split(";")) {
+        int equals = part.indexOf('=');
+        String key = part.substring(0, Math.max(equals, 0)).toUpperCase();
+        String value = part.substring(equals + 1);
+        switch (key) {
+          case "FREQ":
+            frequency = value.toUpperCase();
+            break;
+          case "INTERVAL":
+            if (!value.equals("1")) {
+              throw invalid("unsupported RRULE interval " + value + ".");
+            }
+            break;
+          case "BYDAY":
+            for (String day : value.split(",")) {
+              mask |= 1 << weekdayIndex(day);
+            }
+            break;
+          case "COUNT":
+            count = parseNumber(value);
+            break;
+          case "UNTIL":
+            untilDateOnly = value.length() == 8;
+            until = parseDateTime(value);
+            break;
+          case "WKST":
+            break;
+          default:
+            throw invalid("unsupported RRULE part " + part + ".");
+        }
+      }
+      if ("DAILY".equals(frequency)) {
+        if (mask == 0) {
+          mask = 0x7F;
+        }
+      } else if ("WEEKLY".equals(frequency)) {
+        if (mask == 0) {
+          mask = 1 << (firstDate.getDayOfWeek().getValue() - 1);
+        }
+      } else {
+        throw invalid("unsupported RRULE frequency " + frequency + ".");
+      }
+      LocalDate lastDate;
+      if (count != null) {
+        lastDate = count > 0 ? RecurringEventGenerator.nthRecurringDate(firstDate, mask, count)
+                : firstDate.minusDays(1);
+      } else if (until != null) {
+        lastDate = until.toLocalDate();
+        // An UNTIL earlier in the day than the occurrences' start excludes its own date.
+        if (!untilDateOnly && until.toLocalTime().isBefore(start.toLocalTime())) {
+          lastDate = lastDate.minusDays(1);
+        }
+      } else {
+        throw invalid("a recurrence needs COUNT or UNTIL.");
+      }
+      RecurringSeries series = new RecurringSeries(template, mask, firstDate, lastDate);
+      for (Property property : properties) {
+        if (property.name.equals("EXDATE")) {
+          for (String value : property.value.split(",")) {
+            series.exclude(parseDateTime(value).toLocalDate());
+          }
+        }
+      }
+      return series;
+    }
+
+    private CalendarEvent withProperties(CalendarEvent event) {
+      event.setDescription(text("DESCRIPTION"));
+      event.setLocation(text("LOCATION"));
+      Property classification = first("CLASS");
+      event.setPublic(classification == null || classification.value.equalsIgnoreCase("PUBLIC"));
+      return event;
+    }
+
+    private Property required(String name) throws Exception {
+      Property property = first(name);
+      if (property == null) {
+        throw invalid("missing " + name + ".");
+      }
+      return property;
+    }
+
+    /**
+     * Returns the unescaped value of a TEXT property, or an empty string if it is absent.
+     */
+    private String text(String name) {
+      Property property = first(name);
+      if (property == null) {
+        return "";
+      }
+      String value = property.value;
+      if (value.indexOf('\\') < 0) {
+        return value;
+      }
+      StringBuilder text = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '\\' && i + 1 < value.length()) {
+          c = value.charAt(++i);
+          text.append(c == 'n' || c == 'N' ? '\n' : c);
+        } else {
+          text.append(c);
+        }
+      }
+      return text.toString();
+    }
+
+    LocalDateTime dateTime(Property property) throws Exception {
+      return parseDateTime(property.value);
+    }
+
+    private LocalDateTime parseDateTime(String value) throws Exception {
+      try {
+        if (value.length() == 8) {
+          return LocalDate.of(digits(value, 0, 4), digits(value, 4, 6), digits(value, 6, 8)).atStartOfDay();
+        }
+        if ((value.length() == 15 || value.length() == 16 && value.charAt(15) == 'Z') && value.charAt(8) == 'T') {
+          return LocalDateTime.of(digits(value, 0, 4), digits(value, 4, 6), digits(value, 6, 8),
+                  digits(value, 9, 11), digits(value, 11, 13), digits(value, 13, 15));
+        }
+      } catch (DateTimeException | NumberFormatException e) {
+        // Reported below.
+      }
+      throw invalid("bad date or time " + value + ".");
+    }
+
+    private Duration duration(Property property) throws Exception {
+      String value = property.value;
+      try {
+        int weeks = value.indexOf('W');
+        if (weeks > 0) {
+          return Duration.ofDays(7 * Long.parseLong(value.substring(value.indexOf('P') + 1, weeks)));
+        }
+        return Duration.parse(value);
+      } catch (RuntimeException e) {
+        throw invalid("bad duration " + value + ".");
+      }
+    }
+
+    private int weekdayIndex(String day) throws Exception {
+      for (DayOfWeek weekday : DayOfWeek.values()) {
+        if (IcsWriter.BYDAY[weekday.ordinal()].equalsIgnoreCase(day)) {
+          return weekday.ordinal();
+        }
+      }
+      throw invalid("unsupported BYDAY value " + day + ".");
+    }
+
+    private long parseNumber(String value) throws Exception {
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        throw invalid("bad number " + value + ".");
+      }
+    }
+
+    private static int digits(String value, int from, int to) {
+      return Integer.parseInt(value.substring(from, to));
+    }
+
+    private Exception invalid(String message) {
+      return new Exception("Invalid event at line " + line + ": " + message);
+    }
+  }
+}
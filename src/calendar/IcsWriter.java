@@ -0,0 +1,255 @@
+package calendar;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a calendar as an iCalendar (RFC 5545) file.
+ * Each stored event becomes a VEVENT, and each recurring series becomes a single VEVENT with a
+ * weekly RRULE whose BYDAY list is the series' weekday mask and whose UNTIL is its last date,
+ * so the file grows with the number of series rather than their occurrences. An occurrence
+ * detached from its series by an edit is written as an override (same UID, RECURRENCE-ID);
+ * any other excluded date becomes an EXDATE. Times are written as floating local times.
+ */
+class IcsWriter {
+  static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+  static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+  // BYDAY codes indexed by weekday mask bit, Monday first.
+  static final String[] BYDAY = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+  // Longest line in octets before it is folded onto a continuation line.
+  private static final int LINE_LIMIT = 75;
+
+  private final Writer out;
+  private final String stamp;
+  private final StringBuilder line = new StringBuilder(128);
+
+  IcsWriter(Writer out) {
+    this.out = out;
+    this.stamp = DATE_TIME.format(LocalDateTime.now(ZoneOffset.UTC)) + "Z";
+  }
+
+  /**
+   * Writes the calendar to the given file in UTF-8.
+   */
+  static void write(CalendarManager calendar, String fileName) throws IOException {
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName),
+            StandardCharsets.UTF_8), CsvFormat.BUFFER_SIZE)) {
+      new IcsWriter(writer).writeCalendar(calendar);
+    }
+  }
+
+  void writeCalendar(CalendarManager calendar) throws IOException {
+    property("BEGIN", "VCALENDAR");
+    property("VERSION", "2.0");
+    property("PRODID", "-//calendar//Calendar App//EN");
+    Map<Long, List<RecurringSeries>> seriesBySequence = new HashMap<>();
+    for (RecurringSeries s : calendar.allSeries()) {
+      seriesBySequence.computeIfAbsent(s.getTemplate().getSequence(), k -> new ArrayList<>(1)).add(s);
+    }
+    // Dates of each series that are replaced by a detached occurrence rather than removed.
+    Map<RecurringSeries, Set<LocalDate>> detached = new IdentityHashMap<>();
+    if (!seriesBySequence.isEmpty()) {
+      for (CalendarEvent event : calendar.storedEvents()) {
+        RecurringSeries from = detachedFrom(event, seriesBySequence);
+        if (from != null) {
+          detached.computeIfAbsent(from, k -> new HashSet<>()).add(event.getStart().toLocalDate());
+        }
+      }
+    }
+    for (CalendarEvent event : calendar.storedEvents()) {
+      writeEvent(event, detachedFrom(event, seriesBySequence));
+    }
+    for (RecurringSeries s : calendar.allSeries()) {
+      writeSeries(s, detached.getOrDefault(s, Set.of()));
+    }
+    property("END", "VCALENDAR");
+  }
+
+  /**
+   * Returns the series an event was detached from, or null for an ordinary event.
+   */
+  private static RecurringSeries detachedFrom(CalendarEvent event, Map<Long, List<RecurringSeries>> seriesBySequence) {
+    List<RecurringSeries> candidates = seriesBySequence.get(event.getSequence());
+    if (candidates != null) {
+      LocalDate date = event.getStart().toLocalDate();
+      for (RecurringSeries s : candidates) {
+        if (s.getExcludedDates().contains(date)) {
+          return s;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void writeEvent(CalendarEvent event, RecurringSeries from) throws IOException {
+    property("BEGIN", "VEVENT");
+    if (from == null) {
+      property("UID", event.getSequence() + "@calendar");
+    } else {
+      property("UID", uid(from));
+      CalendarEvent template = from.getTemplate();
+      LocalDate date = event.getStart().toLocalDate();
+      dateProperty("RECURRENCE-ID", LocalDateTime.of(date, template.getStart().toLocalTime()),
+              template.isAllDay());
+    }
+    property("DTSTAMP", stamp);
+    dateProperty("DTSTART", event.getStart(), event.isAllDay());
+    if (event.isAllDay()) {
+      // DTEND of an all-day event is exclusive; an event ending at midnight ends on that date.
+      LocalDateTime end = event.getEnd();
+      dateProperty("DTEND", end.toLocalTime().equals(LocalTime.MIDNIGHT)
+              ? end : end.plusDays(1), true);
+    } else {
+      dateProperty("DTEND", event.getEnd(), false);
+    }
+    writeProperties(event);
+    property("END", "VEVENT");
+  }
+
+  private void writeSeries(RecurringSeries s, Set<LocalDate> detached) throws IOException {
+    CalendarEvent template = s.getTemplate();
+    LocalDate first = RecurringEventGenerator.nextRecurringDate(s.getFirstDate(), s.getWeekdayMask());
+    if (first.isAfter(s.getLastDate())) {
+      return;
+    }
+    property("BEGIN", "VEVENT");
+    property("UID", uid(s));
+    property("DTSTAMP", stamp);
+    if (template.isAllDay()) {
+      // Occurrences of an all-day series take the whole of their own date.
+      dateProperty("DTSTART", first.atStartOfDay(), true);
+    } else {
+      dateProperty("DTSTART", LocalDateTime.of(first, template.getStart().toLocalTime()), false);
+      dateProperty("DTEND", LocalDateTime.of(first, template.getEnd().toLocalTime()), false);
+    }
+    line.setLength(0);
+    line.append("RRULE:FREQ=WEEKLY;BYDAY=");
+    String separator = "";
+    for (int bit = 0; bit < BYDAY.length; bit++) {
+      if ((s.getWeekdayMask() & (1 << bit)) != 0) {
+        line.append(separator).append(BYDAY[bit]);
+        separator = ",";
+      }
+    }
+    line.append(";UNTIL=");
+    if (template.isAllDay()) {
+      DATE.formatTo(s.getLastDate(), line);
+    } else {
+      DATE_TIME.formatTo(LocalDateTime.of(s.getLastDate(), template.getStart().toLocalTime()), line);
+    }
+    writeLine();
+    List<LocalDate> removed = new ArrayList<>();
+    for (LocalDate excluded : s.getExcludedDates()) {
+      if (!detached.contains(excluded)) {
+        removed.add(excluded);
+      }
+    }
+    removed.sort(null);
+    for (LocalDate excluded : removed) {
+      dateProperty("EXDATE", LocalDateTime.of(excluded, template.getStart().toLocalTime()), template.isAllDay());
+    }
+    writeProperties(template);
+    property("END", "VEVENT");
+  }
+
+  /**
+   * A series' UID. A split series shares its sequence number with its head, so the first date
+   * tells the two apart.
+   */
+  private static String uid(RecurringSeries s) {
+    return s.getTemplate().getSequence() + "-" + DATE.format(s.getFirstDate()) + "@calendar";
+  }
+
+  private void writeProperties(CalendarEvent event) throws IOException {
+    textProperty("SUMMARY", event.getEventName());
+    if (!event.getDescription().isEmpty()) {
+      textProperty("DESCRIPTION", event.getDescription());
+    }
+    if (!event.getLocation().isEmpty()) {
+      textProperty("LOCATION", event.getLocation());
+    }
+    property("CLASS", event.isPublic() ? "PUBLIC" : "PRIVATE");
+  }
+
+  private void property(String name, String value) throws IOException {
+    line.setLength(0);
+    line.append(name).append(':').append(value);
+    writeLine();
+  }
+
+  private void dateProperty(String name, LocalDateTime value, boolean dateOnly) throws IOException {
+    line.setLength(0);
+    line.append(name);
+    if (dateOnly) {
+      line.append(";VALUE=DATE:");
+      DATE.formatTo(value, line);
+    } else {
+      line.append(':');
+      DATE_TIME.formatTo(value, line);
+    }
+    writeLine();
+  }
+
+  /**
+   * Writes a TEXT property, escaping backslashes, semicolons, commas and line breaks.
+   */
+  private void textProperty(String name, String value) throws IOException {
+    line.setLength(0);
+    line.append(name).append(':');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+        case ';':
+        case ',':
+          line.append('\\').append(c);
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          break;
+        default:
+          line.append(c);
+      }
+    }
+    writeLine();
+  }
+
+  /**
+   * Writes the line buffer with a CRLF, folding it so no line exceeds the octet limit.
+   * A fold never splits a UTF-8 sequence or a surrogate pair.
+   */
+  private void writeLine() throws IOException {
+    int octets = 0;
+    int start = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : Character.isLowSurrogate(c) ? 0 : 3;
+      if (octets + size > LINE_LIMIT) {
+        out.append(line, start, i).append("\r\n ");
+        start = i;
+        octets = 1;
+      }
+      octets += size;
+    }
+    out.append(line, start, line.length()).append("\r\n");
+  }
+}
@@ -0,0 +1,719 @@
+package calendar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An off-heap event store backed by two memory-mapped files.
+ * The record file holds a header and one fixed-width record per stored event or recurring
+ * series: epoch-minute start and end, the sequence number, a word of flags, the series weekday
+ * mask and the seconds of the start and end, the nanoseconds of the start and end, the series'
+ * last date, offsets of the name, description and location in the string file and the hash of
+ * the name. The string file holds length-prefixed UTF-8 strings. A series record is followed by
+ * one exclusion record per date already excluded from the series when it was appended.
+ * <p>
+ * The record file is mapped in segments of up to 1 GB, so it is not limited by the size of a
+ * single mapping; the string file is one mapping of up to 2 GB. An edited string is rewritten
+ * in place when it fits and appended otherwise, and once more than half of the string file is
+ * left unused by edits, the live strings are moved down over the gaps.
+ * <p>
+ * The heap only holds primitive indexes of the stored events: their records in calendar order
+ * (see {@link RecordIndex}) and a hash table of records by name. Lookups read the primitive
+ * record fields straight from the mapping and only build CalendarEvent objects for matching
+ * records. Like {@link CalendarSnapshot}, times are kept whole: a time within a minute is flagged
+ * and its seconds and nanoseconds are stored next to the minute. The indexes work in minutes,
+ * so a lookup checks the flagged events it finds against the exact times.
+ */
+public class MappedEventStore implements Closeable {
+  private static final int MAGIC = 0x43414C4D; // "CALM"
+  private static final int VERSION = 2;
+  // The record file's header takes one record slot, so that records never straddle segments.
+  private static final int HEADER_SIZE = 64;
+  private static final int STRING_HEADER_SIZE = 16;
+  static final int RECORD_SIZE = 64;
+  static final int SEGMENT_SIZE = 1 << 30;
+  private static final long MINUTES_PER_DAY = 24 * 60;
+
+  // Header layout; the string file's header stops after the used size.
+  private static final int USED = 8;
+  private static final int UNUSED_STRINGS = 16;
+
+  // Record layout.
+  private static final int START = 0;
+  private static final int END = 8;
+  private static final int SEQUENCE = 16;
+  private static final int FLAGS = 24;
+  private static final int START_NANO = 28;
+  private static final int LAST_DAY = 32;
+  private static final int NAME = 40;
+  private static final int DESCRIPTION = 44;
+  private static final int LOCATION = 48;
+  private static final int NAME_HASH = 52;
+  private static final int END_NANO = 56;
+  private static final int[] STRING_FIELDS = {NAME, DESCRIPTION, LOCATION};
+
+  private static final int ALL_DAY = 1;
+  private static final int PUBLIC = 2;
+  private static final int SERIES = 4;
+  private static final int EXCLUSION = 8;
+  private static final int KIND = SERIES | EXCLUSION;
+  private static final int SUB_MINUTE = 16;
+  // The flags word also holds the weekday mask of a series and, with SUB_MINUTE, the seconds
+  // of the start and end.
+  private static final int MASK_SHIFT = 8;
+  private static final int START_SECOND_SHIFT = 16;
+  private static final int END_SECOND_SHIFT = 22;
+
+  // Offset stored for an empty string, which takes no space in the string file.
+  private static final int EMPTY = -1;
+  // Unused string bytes below which the string file is not compacted.
+  private static final long MIN_COMPACTION = 1 << 20;
+
+  private final FileChannel recordChannel;
+  private final FileChannel stringChannel;
+  private final int segmentSize;
+  private final int segmentShift;
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+  private long mapped;
+  private MappedByteBuffer strings;
+  private int size;
+  private int stringsUsed;
+  private long unusedStrings;
+
+  // Stored events in calendar order.
+  private final RecordIndex byTime = new RecordIndex(0);
+  // Stored events by name: a hash table of doubly linked chains through the records.
+  private int[] nameHeads = new int[16];
+  private int[] nextNamed = new int[16];
+  private int[] previousNamed = new int[16];
+  private int events;
+  // Stored events with a time within a minute; while there are none, minute order is exact.
+  private int subMinuteEvents;
+
+  private MappedEventStore(FileChannel recordChannel, FileChannel stringChannel, int segmentSize)
+          throws IOException {
+    this.recordChannel = recordChannel;
+    this.stringChannel = stringChannel;
+    this.segmentSize = segmentSize;
+    this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+    boolean fresh = recordChannel.size() == 0;
+    long length = Math.max(recordChannel.size(), Math.min(segmentSize, HEADER_SIZE + 1024L * RECORD_SIZE));
+    while (mapped < length) {
+      segments.add(map(recordChannel, mapped, Math.min(segmentSize, length - mapped)));
+      mapped += segments.get(segments.size() - 1).capacity();
+    }
+    strings = stringChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+            Math.max(stringChannel.size(), STRING_HEADER_SIZE + 64 * 1024L));
+    MappedByteBuffer header = segments.get(0);
+    if (fresh) {
+      writeHeader(header, 0);
+      header.putLong(UNUSED_STRINGS, 0);
+      writeHeader(strings, 0);
+    }
+    if (header.getInt(0) != MAGIC || strings.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+      throw new IOException("Not a calendar store: " + recordChannel);
+    }
+    size = (int) header.getLong(USED);
+    stringsUsed = (int) strings.getLong(USED);
+    unusedStrings = header.getLong(UNUSED_STRINGS);
+    Arrays.fill(nameHeads, -1);
+    for (int i = 0; i < size; i++) {
+      if (isEvent(i)) {
+        indexEvent(i);
+      }
+    }
+  }
+
+  /**
+   * Opens the store at the given path, creating it if needed. Strings go to "<path>.strings".
+   */
+  public static MappedEventStore open(String fileName) throws IOException {
+    return open(fileName, SEGMENT_SIZE);
+  }
+
+  /**
+   * Opens the store with the record file mapped in segments of the given size, a power of two
+   * no smaller than a record.
+   */
+  static MappedEventStore open(String fileName, int segmentSize) throws IOException {
+    Path recordPath = Paths.get(fileName);
+    Path stringPath = Paths.get(fileName + ".strings");
+    FileChannel recordChannel = FileChannel.open(recordPath,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    FileChannel stringChannel = FileChannel.open(stringPath,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    return new MappedEventStore(recordChannel, stringChannel, segmentSize);
+  }
+
+  private static void writeHeader(MappedByteBuffer buffer, long used) {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putLong(USED, used);
+  }
+
+  /**
+   * Returns the number of records: events, series and series exclusions together.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of stored events, not counting series and exclusion records.
+   */
+  public int eventCount() {
+    return events;
+  }
+
+  /**
+   * Appends a stored event and returns its record index.
+   */
+  public int append(CalendarEvent event) {
+    int index = newRecord();
+    writeEvent(index, event, 0);
+    indexEvent(index);
+    return index;
+  }
+
+  /**
+   * Appends a recurring series and returns its record index. The record keeps the template's
+   * times and properties along with the weekday mask and date bounds; the series' excluded
+   * dates go into exclusion records right after it.
+   */
+  public int appendSeries(RecurringSeries series) {
+    int index = newRecord();
+    writeEvent(index, series.getTemplate(), SERIES);
+    putInt(index, FLAGS, getInt(index, FLAGS) | series.getWeekdayMask() << MASK_SHIFT);
+    putLong(index, START, minuteOf(LocalDateTime.of(series.getFirstDate(),
+            series.getTemplate().getStart().toLocalTime())));
+    putLong(index, LAST_DAY, series.getLastDate().toEpochDay());
+    for (LocalDate excluded : series.getExcludedDates()) {
+      int exclusion = newRecord();
+      putLong(exclusion, START, 0);
+      putLong(exclusion, END, 0);
+      putLong(exclusion, SEQUENCE, series.getTemplate().getSequence());
+      putInt(exclusion, FLAGS, EXCLUSION);
+      putInt(exclusion, START_NANO, 0);
+      putInt(exclusion, END_NANO, 0);
+      putLong(exclusion, LAST_DAY, excluded.toEpochDay());
+      for (int field : STRING_FIELDS) {
+        putInt(exclusion, field, EMPTY);
+      }
+      putInt(exclusion, NAME_HASH, 0);
+    }
+    return index;
+  }
+
+  /**
+   * Rewrites the name, description, location and flags of a record after an edit.
+   * Only strings that changed are written to the string file.
+   */
+  public void update(int index, CalendarEvent event) {
+    int flags = getInt(index, FLAGS);
+    putInt(index, FLAGS, flags & ~(ALL_DAY | PUBLIC) | flagsOf(event));
+    if (!readString(getInt(index, NAME)).equals(event.getEventName())) {
+      boolean indexed = (flags & KIND) == 0;
+      if (indexed) {
+        unlinkName(index);
+      }
+      putInt(index, NAME, replaceString(getInt(index, NAME), event.getEventName()));
+      putInt(index, NAME_HASH, event.getEventName().hashCode());
+      if (indexed) {
+        linkName(index);
+      }
+    }
+    updateString(index, DESCRIPTION, event.getDescription());
+    updateString(index, LOCATION, event.getLocation());
+    if (unusedStrings > MIN_COMPACTION && unusedStrings > stringsUsed / 2) {
+      compactStrings();
+    }
+  }
+
+  /**
+   * Moves the last date of a series record, as when the series is split.
+   */
+  public void updateSeriesEnd(int index, LocalDate lastDate) {
+    putLong(index, LAST_DAY, lastDate.toEpochDay());
+  }
+
+  public boolean isSeries(int index) {
+    return (getInt(index, FLAGS) & SERIES) != 0;
+  }
+
+  public boolean isExclusion(int index) {
+    return (getInt(index, FLAGS) & EXCLUSION) != 0;
+  }
+
+  private boolean isEvent(int index) {
+    return (getInt(index, FLAGS) & KIND) == 0;
+  }
+
+  /**
+   * Returns the date removed by an exclusion record from the series just before it.
+   */
+  public LocalDate excludedDate(int index) {
+    return LocalDate.ofEpochDay(getLong(index, LAST_DAY));
+  }
+
+  public long startMinute(int index) {
+    return getLong(index, START);
+  }
+
+  public long endMinute(int index) {
+    return getLong(index, END);
+  }
+
+  public long sequence(int index) {
+    return getLong(index, SEQUENCE);
+  }
+
+  /**
+   * Builds the event (or, for a series record, the template event) stored at the index.
+   */
+  public CalendarEvent eventAt(int index) {
+    int flags = getInt(index, FLAGS);
+    CalendarEvent event = new CalendarEvent(readString(getInt(index, NAME)),
+            startAt(index, flags), endAt(index, flags), (flags & ALL_DAY) != 0);
+    event.setDescription(readString(getInt(index, DESCRIPTION)));
+    event.setLocation(readString(getInt(index, LOCATION)));
+    event.setPublic((flags & PUBLIC) != 0);
+    event.setSequence(getLong(index, SEQUENCE));
+    return event;
+  }
+
+  /**
+   * Builds the series stored at the index, which must be a series record.
+   * Excluded dates are not part of the record; they follow in exclusion records or are implied
+   * by stored events that share the series' sequence number.
+   */
+  public RecurringSeries seriesAt(int index) {
+    CalendarEvent template = eventAt(index);
+    return new RecurringSeries(template, getInt(index, FLAGS) >>> MASK_SHIFT & 0xFF,
+            template.getStart().toLocalDate(), LocalDate.ofEpochDay(getLong(index, LAST_DAY)));
+  }
+
+  /**
+   * Returns the records of the stored events (not series) overlapping [from, to), in calendar
+   * order. A whole-minute event overlaps exactly when it ends after the minute 'from' falls in
+   * and starts before 'to' rounded up to the minute; the index finds those, along with the
+   * flagged events that may overlap, which are then checked against their exact times.
+   */
+  public int[] findOverlapping(LocalDateTime from, LocalDateTime to) {
+    long fromMinute = EventColumns.floorMinute(from);
+    int[] found = byTime.find(fromMinute, EventColumns.ceilMinute(to));
+    int count = 0;
+    for (int index : found) {
+      int flags = getInt(index, FLAGS);
+      boolean overlaps = (flags & SUB_MINUTE) == 0 ? getLong(index, END) > fromMinute
+              : startAt(index, flags).isBefore(to) && endAt(index, flags).isAfter(from);
+      if (overlaps) {
+        found[count++] = index;
+      }
+    }
+    return inCalendarOrder(Arrays.copyOf(found, count));
+  }
+
+  /**
+   * Returns the records of the stored events on the given date, in calendar order: all-day
+   * events on their start date, and timed events on every date from their start date through
+   * their end date.
+   */
+  public int[] findOn(LocalDate date) {
+    long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+    int[] found = byTime.find(dayStart, dayStart + MINUTES_PER_DAY);
+    int count = 0;
+    for (int index : found) {
+      if ((getInt(index, FLAGS) & ALL_DAY) == 0 || getLong(index, START) >= dayStart) {
+        found[count++] = index;
+      }
+    }
+    return inCalendarOrder(Arrays.copyOf(found, count));
+  }
+
+  /**
+   * Returns the records of the stored events with the given name, in calendar order.
+   */
+  public int[] findNamed(String name) {
+    int hash = name.hashCode();
+    int[] found = new int[4];
+    int count = 0;
+    for (int index = nameHeads[hash & (nameHeads.length - 1)]; index >= 0; index = nextNamed[index]) {
+      if (getInt(index, NAME_HASH) == hash && readString(getInt(index, NAME)).equals(name)) {
+        if (count == found.length) {
+          found = Arrays.copyOf(found, count * 2);
+        }
+        found[count++] = index;
+      }
+    }
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = found[i];
+    }
+    // Chains are in insertion order, which is mostly calendar order already.
+    Arrays.sort(order, this::compareRecords);
+    for (int i = 0; i < count; i++) {
+      found[i] = order[i];
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  /**
+   * Returns the records of every stored event, in calendar order.
+   */
+  public int[] allEvents() {
+    return inCalendarOrder(byTime.all());
+  }
+
+  /**
+   * Returns true if a stored event (not a series) is in progress at the given instant.
+   */
+  public boolean isBusyAt(LocalDateTime dateTime) {
+    long minute = EventColumns.floorMinute(dateTime);
+    // Whole-minute events in progress end after this minute; flagged ones are checked exactly.
+    for (int index : byTime.find(minute, minute + 1)) {
+      int flags = getInt(index, FLAGS);
+      if ((flags & SUB_MINUTE) == 0 ? getLong(index, END) > minute
+              : !startAt(index, flags).isAfter(dateTime) && endAt(index, flags).isAfter(dateTime)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Flushes the mappings to disk.
+   */
+  public void force() {
+    MappedByteBuffer header = segments.get(0);
+    header.putLong(USED, size);
+    header.putLong(UNUSED_STRINGS, unusedStrings);
+    strings.putLong(USED, stringsUsed);
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+    strings.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    recordChannel.close();
+    stringChannel.close();
+  }
+
+  /**
+   * Adds an event record to the time and name indexes.
+   */
+  private void indexEvent(int index) {
+    byTime.insert(getLong(index, START), getLong(index, END), getLong(index, SEQUENCE), index);
+    events++;
+    if ((getInt(index, FLAGS) & SUB_MINUTE) != 0) {
+      subMinuteEvents++;
+    }
+    if (events > nameHeads.length) {
+      // Keep chains short: rebuild the table at twice the size.
+      nameHeads = new int[nameHeads.length * 2];
+      Arrays.fill(nameHeads, -1);
+      // Records are indexed in order, so the earlier ones are the ones already in the table.
+      for (int i = 0; i < index; i++) {
+        if (isEvent(i)) {
+          linkName(i);
+        }
+      }
+    }
+    linkName(index);
+  }
+
+  private void linkName(int index) {
+    if (index >= nextNamed.length) {
+      int capacity = Math.max(index + 1, nextNamed.length * 2);
+      nextNamed = Arrays.copyOf(nextNamed, capacity);
+      previousNamed = Arrays.copyOf(previousNamed, capacity);
+    }
+    int bucket = getInt(index, NAME_HASH) & (nameHeads.length - 1);
+    int head = nameHeads[bucket];
+    // Records are added at the tail of their chain through the head's back link.
+    if (head < 0) {
+      nameHeads[bucket] = index;
+      previousNamed[index] = index;
+    } else {
+      int tail = previousNamed[head];
+      nextNamed[tail] = index;
+      previousNamed[index] = tail;
+      previousNamed[head] = index;
+    }
+    nextNamed[index] = -1;
+  }
+
+  private void unlinkName(int index) {
+    int bucket = getInt(index, NAME_HASH) & (nameHeads.length - 1);
+    int head = nameHeads[bucket];
+    int next = nextNamed[index];
+    if (index == head) {
+      nameHeads[bucket] = next;
+      if (next >= 0) {
+        previousNamed[next] = previousNamed[index];
+      }
+      return;
+    }
+    int previous = previousNamed[index];
+    nextNamed[previous] = next;
+    previousNamed[next >= 0 ? next : head] = previous;
+  }
+
+  private int newRecord() {
+    long needed = recordOffset(size + 1);
+    while (needed > mapped) {
+      int last = segments.size() - 1;
+      long start = (long) last << segmentShift;
+      int capacity = segments.get(last).capacity();
+      if (capacity < segmentSize) {
+        long grown = Math.min(segmentSize, Math.max(needed - start, 2L * capacity));
+        segments.set(last, map(recordChannel, start, grown));
+        mapped = start + grown;
+      } else {
+        long grown = Math.min(segmentSize, Math.max(needed - mapped, HEADER_SIZE + 1024L * RECORD_SIZE));
+        segments.add(map(recordChannel, mapped, grown));
+        mapped += grown;
+      }
+    }
+    int index = size++;
+    segments.get(0).putLong(USED, size);
+    return index;
+  }
+
+  private void writeEvent(int index, CalendarEvent event, int kind) {
+    LocalDateTime start = event.getStart();
+    LocalDateTime end = event.getEnd();
+    boolean subMinute = start.getSecond() != 0 || start.getNano() != 0
+            || end.getSecond() != 0 || end.getNano() != 0;
+    putLong(index, START, minuteOf(start));
+    putLong(index, END, minuteOf(end));
+    putLong(index, SEQUENCE, event.getSequence());
+    putInt(index, FLAGS, flagsOf(event) | kind | (subMinute ? SUB_MINUTE
+            | start.getSecond() << START_SECOND_SHIFT | end.getSecond() << END_SECOND_SHIFT : 0));
+    putInt(index, START_NANO, start.getNano());
+    putInt(index, END_NANO, end.getNano());
+    putLong(index, LAST_DAY, 0);
+    putInt(index, NAME, writeString(event.getEventName()));
+    putInt(index, DESCRIPTION, writeString(event.getDescription()));
+    putInt(index, LOCATION, writeString(event.getLocation()));
+    putInt(index, NAME_HASH, event.getEventName().hashCode());
+  }
+
+  private static int flagsOf(CalendarEvent event) {
+    return (event.isAllDay() ? ALL_DAY : 0) | (event.isPublic() ? PUBLIC : 0);
+  }
+
+  private void updateString(int index, int field, String value) {
+    int offset = getInt(index, field);
+    if (!readString(offset).equals(value)) {
+      putInt(index, field, replaceString(offset, value));
+    }
+  }
+
+  /**
+   * Replaces the string at an offset, rewriting it in place if the new value is no longer,
+   * and returns the offset of the new value.
+   */
+  private int replaceString(int offset, String value) {
+    if (offset == EMPTY) {
+      return writeString(value);
+    }
+    int length = strings.getInt(offset);
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (!value.isEmpty() && bytes.length <= length) {
+      strings.putInt(offset, bytes.length);
+      strings.put(offset + 4, bytes);
+      unusedStrings += length - bytes.length;
+      return offset;
+    }
+    unusedStrings += 4 + length;
+    return writeString(value);
+  }
+
+  private int writeString(String value) {
+    if (value.isEmpty()) {
+      return EMPTY;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    long needed = STRING_HEADER_SIZE + (long) stringsUsed + 4 + bytes.length;
+    if (needed > Integer.MAX_VALUE) {
+      throw new UncheckedIOException(new IOException("String area of the calendar store is full."));
+    }
+    if (needed > strings.capacity()) {
+      long capacity = Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * strings.capacity()));
+      strings = map(stringChannel, 0, capacity);
+    }
+    int offset = STRING_HEADER_SIZE + stringsUsed;
+    strings.putInt(offset, bytes.length);
+    strings.put(offset + 4, bytes);
+    stringsUsed += 4 + bytes.length;
+    strings.putLong(USED, stringsUsed);
+    return offset;
+  }
+
+  private String readString(int offset) {
+    if (offset == EMPTY) {
+      return "";
+    }
+    byte[] bytes = new byte[strings.getInt(offset)];
+    strings.get(offset + 4, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Moves the live strings down over the space edits left unused, in offset order, so each
+   * string only moves towards the start of the file, and points the records at their new places.
+   */
+  void compactStrings() {
+    // Each string belongs to one record field; sort (offset, record) pairs by offset.
+    long[] owners = new long[16];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (isExclusion(i)) {
+        continue;
+      }
+      for (int field : STRING_FIELDS) {
+        int offset = getInt(i, field);
+        if (offset != EMPTY) {
+          if (count == owners.length) {
+            owners = Arrays.copyOf(owners, count * 2);
+          }
+          owners[count++] = (long) offset << 32 | i;
+        }
+      }
+    }
+    Arrays.sort(owners, 0, count);
+    int used = 0;
+    for (int k = 0; k < count; k++) {
+      int offset = (int) (owners[k] >>> 32);
+      int index = (int) owners[k];
+      int moved = STRING_HEADER_SIZE + used;
+      byte[] bytes = new byte[4 + strings.getInt(offset)];
+      strings.get(offset, bytes);
+      strings.put(moved, bytes);
+      for (int field : STRING_FIELDS) {
+        if (getInt(index, field) == offset) {
+          putInt(index, field, moved);
+        }
+      }
+      used += bytes.length;
+    }
+    stringsUsed = used;
+    unusedStrings = 0;
+    strings.putLong(USED, stringsUsed);
+    segments.get(0).putLong(UNUSED_STRINGS, 0);
+  }
+
+  /**
+   * Returns the bytes of the string file in use, unused space left by edits included.
+   */
+  int stringBytes() {
+    return stringsUsed;
+  }
+
+  private long getLong(int index, int field) {
+    long position = recordOffset(index) + field;
+    return segments.get((int) (position >>> segmentShift)).getLong((int) (position & (segmentSize - 1)));
+  }
+
+  private int getInt(int index, int field) {
+    long position = recordOffset(index) + field;
+    return segments.get((int) (position >>> segmentShift)).getInt((int) (position & (segmentSize - 1)));
+  }
+
+  private void putLong(int index, int field, long value) {
+    long position = recordOffset(index) + field;
+    segments.get((int) (position >>> segmentShift)).putLong((int) (position & (segmentSize - 1)), value);
+  }
+
+  private void putInt(int index, int field, int value) {
+    long position = recordOffset(index) + field;
+    segments.get((int) (position >>> segmentShift)).putInt((int) (position & (segmentSize - 1)), value);
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static long recordOffset(int index) {
+    return HEADER_SIZE + (long) index * RECORD_SIZE;
+  }
+
+  private LocalDateTime startAt(int index, int flags) {
+    LocalDateTime start = dateTimeOf(getLong(index, START));
+    return (flags & SUB_MINUTE) == 0 ? start
+            : start.withSecond(flags >>> START_SECOND_SHIFT & 63).withNano(getInt(index, START_NANO));
+  }
+
+  private LocalDateTime endAt(int index, int flags) {
+    LocalDateTime end = dateTimeOf(getLong(index, END));
+    return (flags & SUB_MINUTE) == 0 ? end
+            : end.withSecond(flags >>> END_SECOND_SHIFT & 63).withNano(getInt(index, END_NANO));
+  }
+
+  /**
+   * Returns the nanoseconds of a record's start within its minute.
+   */
+  private long startWithinMinute(int index) {
+    int flags = getInt(index, FLAGS);
+    return (flags & SUB_MINUTE) == 0 ? 0
+            : (flags >>> START_SECOND_SHIFT & 63) * 1_000_000_000L + getInt(index, START_NANO);
+  }
+
+  private int compareRecords(int a, int b) {
+    int c = Long.compare(getLong(a, START), getLong(b, START));
+    if (c == 0) {
+      c = Long.compare(startWithinMinute(a), startWithinMinute(b));
+    }
+    return c != 0 ? c : Long.compare(getLong(a, SEQUENCE), getLong(b, SEQUENCE));
+  }
+
+  /**
+   * Puts records in minute order into calendar order. The index orders events by start minute,
+   * so only events starting in the same minute can be out of order, and only if one is flagged;
+   * an insertion sort fixes those runs in place.
+   */
+  private int[] inCalendarOrder(int[] records) {
+    if (subMinuteEvents == 0) {
+      return records;
+    }
+    for (int i = 1; i < records.length; i++) {
+      int record = records[i];
+      int j = i;
+      while (j > 0 && getLong(records[j - 1], START) == getLong(record, START)
+              && compareRecords(records[j - 1], record) > 0) {
+        records[j] = records[j - 1];
+        j--;
+      }
+      records[j] = record;
+    }
+    return records;
+  }
+
+  private static long minuteOf(LocalDateTime dateTime) {
+    return EventColumns.floorMinute(dateTime);
+  }
+
+  private static LocalDateTime dateTimeOf(long minute) {
+    return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+  }
+}
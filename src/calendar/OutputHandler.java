@@ -1,10 +1,16 @@
 package calendar;
 
+import java.io.IOException;
 import javax.annotation.processing.Generated;
 
 public class OutputHandler {
   private static OutputHandler instance = new OutputHandler();
 
+  // Batched sink that lines go to instead of System.out; null when printing directly.
+  private volatile BatchedOutputSink sink;
+  private volatile boolean echo = true;
+  private Thread exitFlush;
+
   private OutputHandler() { }
 
   public static OutputHandler getInstance() {
@@ -13,6 +19,72 @@ public class OutputHandler {
 
   @Generated("Excluded from mutation testing")
   public void println(String s) {
-    System.out.println(s);
+    BatchedOutputSink current = sink;
+    if (current != null) {
+      current.println(s);
+    } else {
+      System.out.println(s);
+    }
+  }
+
+  /**
+   * Prints a line held in a builder that the caller reuses for the next line.
+   */
+  @Generated("Excluded from mutation testing")
+  public void println(CharSequence s) {
+    BatchedOutputSink current = sink;
+    if (current != null) {
+      current.println(s);
+    } else {
+      System.out.println(s.toString());
+    }
+  }
+
+  /**
+   * Echoes a command as "> command", unless echo is turned off.
+   */
+  public void echo(String command) {
+    if (!echo) {
+      return;
+    }
+    BatchedOutputSink current = sink;
+    if (current != null) {
+      current.println("> ", command);
+    } else {
+      System.out.println("> " + command);
+    }
+  }
+
+  public void setEcho(boolean echo) {
+    this.echo = echo;
+  }
+
+  /**
+   * Sends all further output to the given sink, closing any sink used before.
+   * The sink is also flushed if the JVM shuts down before it is closed.
+   */
+  public synchronized void useSink(BatchedOutputSink newSink) throws IOException {
+    closeSink();
+    sink = newSink;
+    exitFlush = new Thread(newSink::flush, "output-exit-flush");
+    Runtime.getRuntime().addShutdownHook(exitFlush);
+  }
+
+  /**
+   * Flushes and closes the current sink, if any, and goes back to printing directly.
+   */
+  public synchronized void closeSink() throws IOException {
+    BatchedOutputSink current = sink;
+    if (current == null) {
+      return;
+    }
+    sink = null;
+    try {
+      Runtime.getRuntime().removeShutdownHook(exitFlush);
+    } catch (IllegalStateException e) {
+      // Already shutting down; the hook flushes the sink.
+    }
+    exitFlush = null;
+    current.close();
   }
 }
@@ -0,0 +1,79 @@
+package calendar;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Writes a CSV export with the row formatting spread over a ForkJoinPool.
+ * The calling thread cuts the ordered events into fixed-size chunks and submits each one;
+ * a worker formats its chunk into a buffer and encodes it, and the calling thread writes the
+ * buffers to the file in submission order. Only a bounded window of chunks is in flight, so
+ * memory stays flat, and the bytes match the sequential exporter, which uses the same rows
+ * and charset.
+ */
+class ParallelCsvExporter {
+  static final int CHUNK_SIZE = 4096;
+
+  private final ForkJoinPool pool;
+  private final int window;
+
+  ParallelCsvExporter(ForkJoinPool pool) {
+    this.pool = pool;
+    // Enough chunks to keep every worker busy while the oldest one is written.
+    this.window = pool.getParallelism() * 2 + 1;
+  }
+
+  void write(String fileName, CsvFormat format, Iterable<CalendarEvent> ordered) throws IOException {
+    Charset charset = Charset.defaultCharset();
+    Deque<ForkJoinTask<ByteBuffer>> inFlight = new ArrayDeque<>();
+    try (FileChannel channel = new FileOutputStream(fileName).getChannel()) {
+      writeFully(channel, charset.encode(format.header()));
+      Iterator<CalendarEvent> events = ordered.iterator();
+      while (events.hasNext() || !inFlight.isEmpty()) {
+        while (events.hasNext() && inFlight.size() < window) {
+          CalendarEvent[] chunk = nextChunk(events);
+          inFlight.add(pool.submit(() -> formatChunk(format, chunk, charset)));
+        }
+        writeFully(channel, inFlight.poll().join());
+      }
+    } finally {
+      for (ForkJoinTask<ByteBuffer> task : inFlight) {
+        task.cancel(false);
+      }
+    }
+  }
+
+  private static CalendarEvent[] nextChunk(Iterator<CalendarEvent> events) {
+    CalendarEvent[] chunk = new CalendarEvent[CHUNK_SIZE];
+    int size = 0;
+    while (size < CHUNK_SIZE && events.hasNext()) {
+      chunk[size++] = events.next();
+    }
+    return size == CHUNK_SIZE ? chunk : Arrays.copyOf(chunk, size);
+  }
+
+  private static ByteBuffer formatChunk(CsvFormat format, CalendarEvent[] chunk, Charset charset)
+          throws IOException {
+    StringBuilder rows = new StringBuilder(chunk.length * 96);
+    for (CalendarEvent event : chunk) {
+      format.appendRow(rows, event);
+    }
+    return charset.encode(CharBuffer.wrap(rows));
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package calendar;
+
+import java.util.Arrays;
+
+/**
+ * The stored events of a {@link MappedEventStore} in calendar order, kept on the heap as
+ * primitive columns: epoch-minute start and end, sequence number and record index, and the
+ * latest end among each row and the rows before it. A lookup binary-searches both ends of the
+ * rows that can match and scans only those, without touching the mapping.
+ * <p>
+ * Like {@link EventColumns}, rows arriving in calendar order are appended, and a row that sorts
+ * earlier goes into a small sorted side buffer that is merged in once it grows past the square
+ * root of the size.
+ */
+class RecordIndex {
+  private static final int MIN_PENDING = 64;
+
+  private long[] starts;
+  private long[] ends;
+  private long[] sequences;
+  private long[] maxEnds;
+  private int[] records;
+  private int size;
+  // Rows that arrived out of order, not yet merged in; null when there are none.
+  private RecordIndex pending;
+
+  RecordIndex(int capacity) {
+    int initial = Math.max(16, capacity);
+    starts = new long[initial];
+    ends = new long[initial];
+    sequences = new long[initial];
+    maxEnds = new long[initial];
+    records = new int[initial];
+  }
+
+  /**
+   * Returns the number of rows, including those still in the side buffer.
+   */
+  int size() {
+    return pending == null ? size : size + pending.size;
+  }
+
+  /**
+   * Adds the row of a record.
+   */
+  void insert(long start, long end, long sequence, int record) {
+    if (size == 0 || compare(size - 1, start, sequence) <= 0) {
+      add(start, end, sequence, record);
+      return;
+    }
+    if (pending == null) {
+      pending = new RecordIndex(MIN_PENDING);
+    }
+    pending.insertAt(pending.upperBound(start, sequence), start, end, sequence, record);
+    if (pending.size > Math.max(MIN_PENDING, (int) Math.sqrt(size))) {
+      mergePending();
+    }
+  }
+
+  /**
+   * Returns the records of the rows that end at or after minEnd and start before startBefore,
+   * in calendar order.
+   */
+  int[] find(long minEnd, long startBefore) {
+    int[] rows = scan(minEnd, startBefore);
+    int[] buffered = pending == null ? new int[0] : pending.scan(minEnd, startBefore);
+    int[] found = new int[rows.length + buffered.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < rows.length || j < buffered.length) {
+      boolean fromMain = j == buffered.length
+              || i < rows.length && compare(rows[i], pending.starts[buffered[j]], pending.sequences[buffered[j]]) <= 0;
+      found[k++] = fromMain ? records[rows[i++]] : pending.records[buffered[j++]];
+    }
+    return found;
+  }
+
+  /**
+   * Returns the records of every row, in calendar order.
+   */
+  int[] all() {
+    return find(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns the rows, not counting the side buffer, that end at or after minEnd and start
+   * before startBefore.
+   */
+  private int[] scan(long minEnd, long startBefore) {
+    // Rows before 'first' all end before minEnd, and rows from 'limit' on start too late.
+    int first = firstMaxEndAtLeast(minEnd);
+    int limit = firstStartAtOrAfter(startBefore);
+    int[] rows = new int[Math.max(0, Math.min(16, limit - first))];
+    int count = 0;
+    for (int i = first; i < limit; i++) {
+      if (ends[i] >= minEnd) {
+        if (count == rows.length) {
+          rows = Arrays.copyOf(rows, Math.max(16, count * 2));
+        }
+        rows[count++] = i;
+      }
+    }
+    return count == rows.length ? rows : Arrays.copyOf(rows, count);
+  }
+
+  private int compare(int row, long start, long sequence) {
+    int c = Long.compare(starts[row], start);
+    return c != 0 ? c : Long.compare(sequences[row], sequence);
+  }
+
+  private void add(long start, long end, long sequence, int record) {
+    if (size == records.length) {
+      grow(size * 2);
+    }
+    set(size, start, end, sequence, record);
+    maxEnds[size] = size == 0 ? end : Math.max(maxEnds[size - 1], end);
+    size++;
+  }
+
+  private void grow(int capacity) {
+    starts = Arrays.copyOf(starts, capacity);
+    ends = Arrays.copyOf(ends, capacity);
+    sequences = Arrays.copyOf(sequences, capacity);
+    maxEnds = Arrays.copyOf(maxEnds, capacity);
+    records = Arrays.copyOf(records, capacity);
+  }
+
+  private void set(int row, long start, long end, long sequence, int record) {
+    starts[row] = start;
+    ends[row] = end;
+    sequences[row] = sequence;
+    records[row] = record;
+  }
+
+  /**
+   * Inserts a row, shifting the later rows down; meant for the small side buffer.
+   */
+  private void insertAt(int row, long start, long end, long sequence, int record) {
+    if (size == records.length) {
+      grow(size * 2);
+    }
+    System.arraycopy(starts, row, starts, row + 1, size - row);
+    System.arraycopy(ends, row, ends, row + 1, size - row);
+    System.arraycopy(sequences, row, sequences, row + 1, size - row);
+    System.arraycopy(records, row, records, row + 1, size - row);
+    set(row, start, end, sequence, record);
+    size++;
+    long max = row == 0 ? Long.MIN_VALUE : maxEnds[row - 1];
+    for (int i = row; i < size; i++) {
+      max = Math.max(max, ends[i]);
+      maxEnds[i] = max;
+    }
+  }
+
+  /**
+   * Merges the side buffer into the main rows in one pass.
+   */
+  private void mergePending() {
+    RecordIndex merged = new RecordIndex(size + pending.size);
+    int i = 0;
+    int j = 0;
+    while (i < size || j < pending.size) {
+      // A buffered row goes after main rows it ties with, as it arrived later.
+      boolean fromMain = j == pending.size
+              || i < size && compare(i, pending.starts[j], pending.sequences[j]) <= 0;
+      if (fromMain) {
+        merged.add(starts[i], ends[i], sequences[i], records[i++]);
+      } else {
+        merged.add(pending.starts[j], pending.ends[j], pending.sequences[j], pending.records[j++]);
+      }
+    }
+    starts = merged.starts;
+    ends = merged.ends;
+    sequences = merged.sequences;
+    maxEnds = merged.maxEnds;
+    records = merged.records;
+    size = merged.size;
+    pending = null;
+  }
+
+  private int upperBound(long start, long sequence) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(mid, start, sequence) > 0) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+
+  private int firstMaxEndAtLeast(long minute) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (maxEnds[mid] < minute) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private int firstStartAtOrAfter(long minute) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (starts[mid] < minute) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+}
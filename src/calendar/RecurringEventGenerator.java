@@ -3,12 +3,11 @@ package calendar;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class RecurringEventGenerator {
-  private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-  private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
 
   /**
    * Maps a DayOfWeek to its corresponding character.
@@ -36,6 +35,75 @@ public class RecurringEventGenerator {
     return weekdaysStr.toUpperCase().indexOf(dayChar) >= 0;
   }
 
+  /**
+   * Converts a weekdays string such as "MWF" into a 7-bit mask, Monday in bit 0 through
+   * Sunday in bit 6. Letters that name no day, and strings that name no day at all, are rejected.
+   */
+  public static int weekdayMask(String weekdaysStr) throws Exception {
+    int mask = 0;
+    for (char c : weekdaysStr.toUpperCase().toCharArray()) {
+      int index = "MTWRFSU".indexOf(c);
+      if (index < 0) {
+        throw new Exception("Invalid weekday '" + c + "' in recurring event.");
+      }
+      mask |= 1 << index;
+    }
+    if (mask == 0) {
+      throw new Exception("Recurring event must repeat on at least one weekday.");
+    }
+    return mask;
+  }
+
+  /**
+   * Checks whether the given day is included in the weekday mask.
+   */
+  public static boolean isRecurringDay(DayOfWeek day, int mask) {
+    return (mask & (1 << (day.getValue() - 1))) != 0;
+  }
+
+  /**
+   * Returns the first date on or after the given date whose weekday is in the (non-empty) mask.
+   */
+  public static LocalDate nextRecurringDate(LocalDate date, int mask) {
+    int index = date.getDayOfWeek().getValue() - 1;
+    // Rotate the mask so that bit 0 is the given date's weekday; the lowest set bit is the jump.
+    int rotated = ((mask >>> index) | (mask << (7 - index))) & 0x7F;
+    return date.plusDays(Integer.numberOfTrailingZeros(rotated));
+  }
+
+  /**
+   * Counts the dates from 'from' to 'to' (inclusive) whose weekday is in the mask.
+   */
+  public static long countRecurringDays(LocalDate from, LocalDate to, int mask) {
+    long days = to.toEpochDay() - from.toEpochDay() + 1;
+    if (days <= 0) {
+      return 0;
+    }
+    long count = (days / 7) * Integer.bitCount(mask);
+    int index = from.getDayOfWeek().getValue() - 1;
+    for (int i = 0; i < days % 7; i++) {
+      if ((mask & (1 << ((index + i) % 7))) != 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the date of the nth (1-based) occurrence on or after 'from' for a non-empty mask.
+   */
+  public static LocalDate nthRecurringDate(LocalDate from, int mask, long n) {
+    int perWeek = Integer.bitCount(mask);
+    // Every 7-day window starting at 'from' holds exactly perWeek occurrences.
+    long weeks = (n - 1) / perWeek;
+    long remaining = (n - 1) % perWeek;
+    LocalDate date = nextRecurringDate(from.plusWeeks(weeks), mask);
+    for (long i = 0; i < remaining; i++) {
+      date = nextRecurringDate(date.plusDays(1), mask);
+    }
+    return date;
+  }
+
   /**
    * Generates recurring events based on the provided repeatPart.
    * The repeatPart can specify either a fixed number of occurrences using "for N times"
@@ -47,60 +115,71 @@ public class RecurringEventGenerator {
                                                             String repeatPart,
                                                             boolean isAllDay)
           throws Exception {
+    return streamRecurringEvents(eventName, startDateTime, endDateTime, repeatPart, isAllDay)
+            .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  /**
+   * Parses the provided repeatPart like generateRecurringEvents, but returns the occurrences
+   * as a lazy stream instead of a list. Occurrences are built only as they are consumed,
+   * so callers can bound the work with limit or filter and stream huge series in constant memory.
+   */
+  public static Stream<CalendarEvent> streamRecurringEvents(String eventName,
+                                                            LocalDateTime startDateTime,
+                                                            LocalDateTime endDateTime,
+                                                            String repeatPart,
+                                                            boolean isAllDay)
+          throws Exception {
+    return generateSeries(eventName, startDateTime, endDateTime, repeatPart, isAllDay).stream();
+  }
+
+  /**
+   * Parses the provided repeatPart into a series whose occurrences are built on demand.
+   * Accepts the same "for N times" and "until <dateTime>" forms as generateRecurringEvents.
+   */
+  public static RecurringSeries generateSeries(String eventName,
+                                               LocalDateTime startDateTime,
+                                               LocalDateTime endDateTime,
+                                               String repeatPart,
+                                               boolean isAllDay)
+          throws Exception {
 
     String trimmed = repeatPart.trim();
     if (trimmed.isEmpty()) {
       throw new Exception("Invalid recurring event format.");
     }
 
-    List<CalendarEvent> occurrences = new ArrayList<>();
     String[] tokens = repeatPart.split(" ");
-    String weekdaysStr = tokens[0].trim().toUpperCase();
+    int mask = weekdayMask(tokens[0].trim());
+    LocalDate firstDate = startDateTime.toLocalDate();
+    LocalDate lastDate;
 
     if (repeatPart.toLowerCase().contains(" for ")) {
       if (tokens.length < 4 || !tokens[1].equalsIgnoreCase("for") || !tokens[3].equalsIgnoreCase("times")) {
         throw new Exception("Invalid recurring event format (for N times).");
       }
       int occurrencesCount = Integer.parseInt(tokens[2]);
-      LocalDateTime current = startDateTime;
-      while (occurrences.size() < occurrencesCount) {
-        if (isRecurringDay(current.getDayOfWeek(), weekdaysStr)) {
-          addOccurrence(occurrences, eventName, current, startDateTime, endDateTime, isAllDay);
-        }
-        current = current.plusDays(1);
-      }
+      // The series ends on the date of the last requested occurrence.
+      lastDate = occurrencesCount > 0 ? nthRecurringDate(firstDate, mask, occurrencesCount) : firstDate.minusDays(1);
     } else if (repeatPart.toLowerCase().contains(" until ")) {
       int index = repeatPart.toLowerCase().indexOf("until");
       String untilPart = repeatPart.substring(index + "until".length()).trim();
       LocalDateTime untilDateTime;
       if (isAllDay) {
-        LocalDate untilDate = LocalDate.parse(untilPart, dateFormatter);
+        LocalDate untilDate = FixedDateParser.parseDate(untilPart);
         untilDateTime = untilDate.plusDays(1).atStartOfDay();
       } else {
-        untilDateTime = LocalDateTime.parse(untilPart, dateTimeFormatter);
+        untilDateTime = FixedDateParser.parseDateTime(untilPart);
       }
-      LocalDateTime current = startDateTime;
-      while (!current.isAfter(untilDateTime.minusSeconds(1))) {
-        if (isRecurringDay(current.getDayOfWeek(), weekdaysStr)) {
-          addOccurrence(occurrences, eventName, current, startDateTime, endDateTime, isAllDay);
-        }
-        current = current.plusDays(1);
+      // The last date is the latest one whose occurrence starts before the until boundary.
+      lastDate = untilDateTime.toLocalDate();
+      if (LocalDateTime.of(lastDate, startDateTime.toLocalTime()).isAfter(untilDateTime.minusSeconds(1))) {
+        lastDate = lastDate.minusDays(1);
       }
     } else {
       throw new Exception("Invalid recurring event format.");
     }
-    return occurrences;
-  }
-
-  /**
-   * Helper method to add an occurrence to the list.
-   */
-  private static void addOccurrence(List<CalendarEvent> occurrences, String eventName,
-                                    LocalDateTime current, LocalDateTime startDateTime,
-                                    LocalDateTime endDateTime, boolean isAllDay) {
-    LocalDate currentDate = current.toLocalDate();
-    LocalDateTime occStart = LocalDateTime.of(currentDate, startDateTime.toLocalTime());
-    LocalDateTime occEnd = LocalDateTime.of(currentDate, endDateTime.toLocalTime());
-    occurrences.add(new CalendarEvent(eventName, occStart, occEnd, isAllDay));
+    CalendarEvent template = new CalendarEvent(eventName, startDateTime, endDateTime, isAllDay);
+    return new RecurringSeries(template, mask, firstDate, lastDate);
   }
 }
@@ -0,0 +1,294 @@
+package calendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A recurring event stored as a rule rather than as materialized occurrences.
+ * The series occurs on every day between firstDate and lastDate (inclusive) whose weekday
+ * is in the weekday mask (see {@link RecurringEventGenerator#weekdayMask}), except for
+ * excluded dates. Each occurrence takes its
+ * name, properties and time of day from a template event and starts and ends on its own date.
+ * Occurrences are built on demand, so edits to a returned occurrence do not affect the series.
+ * Every occurrence shares the template's sequence number, which orders it among other events.
+ */
+public class RecurringSeries implements Iterable<CalendarEvent> {
+  private final CalendarEvent template;
+  private final int weekdayMask;
+  private final LocalDate firstDate;
+  private LocalDate lastDate;
+  private final Set<LocalDate> excludedDates;
+
+  public RecurringSeries(CalendarEvent template, int weekdayMask, LocalDate firstDate, LocalDate lastDate) {
+    this.template = template;
+    this.weekdayMask = weekdayMask;
+    this.firstDate = firstDate;
+    this.lastDate = lastDate;
+    this.excludedDates = new HashSet<>();
+  }
+
+  /**
+   * Returns the event whose name, properties and times of day every occurrence copies.
+   */
+  public CalendarEvent getTemplate() {
+    return template;
+  }
+
+  public String getEventName() {
+    return template.getEventName();
+  }
+
+  public int getWeekdayMask() {
+    return weekdayMask;
+  }
+
+  public LocalDate getFirstDate() {
+    return firstDate;
+  }
+
+  public LocalDate getLastDate() {
+    return lastDate;
+  }
+
+  /**
+   * Returns the dates removed from the series, which are all dates it would otherwise occur on.
+   */
+  public Set<LocalDate> getExcludedDates() {
+    return Collections.unmodifiableSet(excludedDates);
+  }
+
+  /**
+   * Returns true if the series has an occurrence on the given date.
+   */
+  public boolean occursOn(LocalDate date) {
+    return !date.isBefore(firstDate) && !date.isAfter(lastDate)
+            && RecurringEventGenerator.isRecurringDay(date.getDayOfWeek(), weekdayMask)
+            && !excludedDates.contains(date);
+  }
+
+  /**
+   * Builds the occurrence on the given date, which must be a date the series occurs on.
+   */
+  public CalendarEvent occurrenceOn(LocalDate date) {
+    return copyTemplate(date);
+  }
+
+  /**
+   * Returns the number of occurrences in the series.
+   */
+  public int count() {
+    // Excluded dates are always dates the series would otherwise occur on.
+    return (int) (RecurringEventGenerator.countRecurringDays(firstDate, lastDate, weekdayMask)
+            - excludedDates.size());
+  }
+
+  /**
+   * Returns the occurrences overlapping the half-open range [from, to), in start order,
+   * using the same test as {@link CalendarEvent#conflictsWith(CalendarEvent)}.
+   * Occurrences never leave their own date, so only the dates from 'from' to 'to' are visited.
+   */
+  public List<CalendarEvent> findOverlapping(LocalDateTime from, LocalDateTime to) {
+    List<CalendarEvent> result = new ArrayList<>();
+    LocalDate date = from.toLocalDate().isAfter(firstDate) ? from.toLocalDate() : firstDate;
+    LocalDate last = to.toLocalDate().isBefore(lastDate) ? to.toLocalDate() : lastDate;
+    for (date = RecurringEventGenerator.nextRecurringDate(date, weekdayMask); !date.isAfter(last);
+         date = RecurringEventGenerator.nextRecurringDate(date.plusDays(1), weekdayMask)) {
+      if (!excludedDates.contains(date)
+              && LocalDateTime.of(date, template.getStart().toLocalTime()).isBefore(to)
+              && LocalDateTime.of(date, template.getEnd().toLocalTime()).isAfter(from)) {
+        result.add(occurrenceOn(date));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if an occurrence of this series conflicts with an occurrence of the other.
+   * Occurrences can only meet on a date both series occur on, so this compares the times of
+   * day and the weekday masks, then looks for a shared date that neither series excludes.
+   */
+  public boolean conflictsWith(RecurringSeries other) {
+    int mask = weekdayMask & other.weekdayMask;
+    if (mask == 0 || !template.getStart().toLocalTime().isBefore(other.template.getEnd().toLocalTime())
+            || !template.getEnd().toLocalTime().isAfter(other.template.getStart().toLocalTime())) {
+      return false;
+    }
+    LocalDate date = firstDate.isAfter(other.firstDate) ? firstDate : other.firstDate;
+    LocalDate last = lastDate.isBefore(other.lastDate) ? lastDate : other.lastDate;
+    // Each date passed over is excluded from one of the series, so this stops soon.
+    for (date = RecurringEventGenerator.nextRecurringDate(date, mask); !date.isAfter(last);
+         date = RecurringEventGenerator.nextRecurringDate(date.plusDays(1), mask)) {
+      if (!excludedDates.contains(date) && !other.excludedDates.contains(date)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if an occurrence of the series is in progress at the given instant.
+   */
+  public boolean isBusyAt(LocalDateTime dateTime) {
+    LocalDate date = dateTime.toLocalDate();
+    return occursOn(date)
+            && !template.getStart().toLocalTime().isAfter(dateTime.toLocalTime())
+            && template.getEnd().toLocalTime().isAfter(dateTime.toLocalTime());
+  }
+
+  /**
+   * Removes the occurrence on the given date from the series.
+   */
+  public void exclude(LocalDate date) {
+    if (occursOn(date)) {
+      excludedDates.add(date);
+    }
+  }
+
+  /**
+   * Splits the series at the given date: this series keeps the occurrences before it and
+   * the returned series, with a copy of the template, holds the occurrences from it onwards.
+   */
+  public RecurringSeries splitAt(LocalDate date) {
+    RecurringSeries tail = new RecurringSeries(copyTemplate(date), weekdayMask, date, lastDate);
+    for (LocalDate excluded : excludedDates) {
+      if (!excluded.isBefore(date)) {
+        tail.exclude(excluded);
+      }
+    }
+    excludedDates.removeAll(tail.excludedDates);
+    lastDate = date.minusDays(1);
+    return tail;
+  }
+
+  /**
+   * Iterates over the occurrences in start order, building each one as it is reached.
+   */
+  @Override
+  public Iterator<CalendarEvent> iterator() {
+    return new Iterator<CalendarEvent>() {
+      private LocalDate next = advance(firstDate);
+
+      private LocalDate advance(LocalDate date) {
+        date = RecurringEventGenerator.nextRecurringDate(date, weekdayMask);
+        while (!date.isAfter(lastDate) && excludedDates.contains(date)) {
+          date = RecurringEventGenerator.nextRecurringDate(date.plusDays(1), weekdayMask);
+        }
+        return date;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return !next.isAfter(lastDate);
+      }
+
+      @Override
+      public CalendarEvent next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        CalendarEvent occurrence = occurrenceOn(next);
+        next = advance(next.plusDays(1));
+        return occurrence;
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy stream of the occurrences in start order.
+   * Occurrences are built as the stream is consumed, so short-circuiting operations such as
+   * limit stop the expansion early, and the stream splits evenly for parallel consumers.
+   */
+  public Stream<CalendarEvent> stream() {
+    return StreamSupport.stream(new OccurrenceSpliterator(0,
+            RecurringEventGenerator.countRecurringDays(firstDate, lastDate, weekdayMask)), false);
+  }
+
+  /**
+   * Returns a lazy stream of the occurrences dated from 'from' to 'to' (inclusive), in start order.
+   */
+  public Stream<CalendarEvent> stream(LocalDate from, LocalDate to) {
+    LocalDate last = to.isBefore(lastDate) ? to : lastDate;
+    long skipped = RecurringEventGenerator.countRecurringDays(firstDate, from.minusDays(1), weekdayMask);
+    long end = RecurringEventGenerator.countRecurringDays(firstDate, last, weekdayMask);
+    return StreamSupport.stream(new OccurrenceSpliterator(skipped, Math.max(skipped, end)), false);
+  }
+
+  /**
+   * Walks a range of occurrence positions [index, end), where position k is the (k+1)th date
+   * matching the weekday mask from firstDate on. Any position maps to its date directly, so
+   * a split hands off half of the remaining range without visiting it.
+   */
+  private class OccurrenceSpliterator implements Spliterator<CalendarEvent> {
+    private long index;
+    private final long end;
+    // Date of position 'index', or null when it still has to be computed.
+    private LocalDate nextDate;
+
+    OccurrenceSpliterator(long index, long end) {
+      this.index = index;
+      this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super CalendarEvent> action) {
+      while (index < end) {
+        LocalDate date = nextDate != null ? nextDate
+                : RecurringEventGenerator.nthRecurringDate(firstDate, weekdayMask, index + 1);
+        index++;
+        nextDate = RecurringEventGenerator.nextRecurringDate(date.plusDays(1), weekdayMask);
+        if (!excludedDates.contains(date)) {
+          action.accept(occurrenceOn(date));
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Spliterator<CalendarEvent> trySplit() {
+      if (end - index < 2) {
+        return null;
+      }
+      long mid = index + (end - index) / 2;
+      OccurrenceSpliterator prefix = new OccurrenceSpliterator(index, mid);
+      prefix.nextDate = nextDate;
+      index = mid;
+      nextDate = null;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+      int characteristics = ORDERED | NONNULL | DISTINCT;
+      // Positions map one to one onto occurrences only when nothing is excluded.
+      return excludedDates.isEmpty() ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+  }
+
+  private CalendarEvent copyTemplate(LocalDate date) {
+    CalendarEvent event = new CalendarEvent(template.getEventName(),
+            LocalDateTime.of(date, template.getStart().toLocalTime()),
+            LocalDateTime.of(date, template.getEnd().toLocalTime()), template.isAllDay());
+    event.setDescription(template.getDescription());
+    event.setLocation(template.getLocation());
+    event.setPublic(template.isPublic());
+    event.setSequence(template.getSequence());
+    return event;
+  }
+}
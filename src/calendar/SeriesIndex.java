@@ -0,0 +1,169 @@
+package calendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of recurring series by the span of dates from their first to their last date,
+ * implemented as an augmented interval tree like {@link EventIntervalTree}. Series are ordered
+ * by first date, then by the order in which they were added, and every node records the latest
+ * last date in its subtree, so a lookup of the series spanning a range of dates is O(log S + k).
+ * A series' first date never changes; when its last date moves earlier, as when the series is
+ * split, {@link #spanChanged} brings the index up to date.
+ */
+class SeriesIndex {
+  private static class Node {
+    final RecurringSeries series;
+    final long first;
+    final int order;
+    long last;
+    long maxLast;
+    int height;
+    Node left;
+    Node right;
+
+    Node(RecurringSeries series, int order) {
+      this.series = series;
+      this.first = series.getFirstDate().toEpochDay();
+      this.order = order;
+      this.last = series.getLastDate().toEpochDay();
+      this.maxLast = last;
+      this.height = 1;
+    }
+  }
+
+  private Node root;
+  private final Map<RecurringSeries, Node> nodes = new IdentityHashMap<>();
+
+  /**
+   * Adds a series to the index.
+   */
+  public void add(RecurringSeries series) {
+    Node node = new Node(series, nodes.size());
+    nodes.put(series, node);
+    root = insert(root, node);
+  }
+
+  /**
+   * Returns the position of a series in the order the series were added.
+   */
+  public int position(RecurringSeries series) {
+    return nodes.get(series).order;
+  }
+
+  /**
+   * Updates the index after the last date of a series moved earlier.
+   */
+  public void spanChanged(RecurringSeries series) {
+    Node node = nodes.get(series);
+    node.last = series.getLastDate().toEpochDay();
+    refresh(root, node);
+  }
+
+  /**
+   * Returns the series whose span of dates overlaps [from, to], by first date.
+   */
+  public List<RecurringSeries> overlapping(LocalDate from, LocalDate to) {
+    List<RecurringSeries> result = new ArrayList<>();
+    if (root != null) {
+      collectOverlapping(root, from.toEpochDay(), to.toEpochDay(), result);
+    }
+    return result;
+  }
+
+  private static void collectOverlapping(Node node, long from, long to, List<RecurringSeries> result) {
+    // No series below this node lasts until 'from', so nothing here can overlap.
+    if (node == null || node.maxLast < from) {
+      return;
+    }
+    collectOverlapping(node.left, from, to, result);
+    if (node.first <= to) {
+      if (node.last >= from) {
+        result.add(node.series);
+      }
+      collectOverlapping(node.right, from, to, result);
+    }
+  }
+
+  /**
+   * Recomputes the latest last dates on the path from a subtree's root down to the node.
+   */
+  private static void refresh(Node node, Node changed) {
+    if (node != changed) {
+      refresh(compare(changed, node) < 0 ? node.left : node.right, changed);
+    }
+    update(node);
+  }
+
+  private static int compare(Node a, Node b) {
+    int c = Long.compare(a.first, b.first);
+    return c != 0 ? c : Integer.compare(a.order, b.order);
+  }
+
+  private static Node insert(Node node, Node newNode) {
+    if (node == null) {
+      return newNode;
+    }
+    if (compare(newNode, node) < 0) {
+      node.left = insert(node.left, newNode);
+    } else {
+      node.right = insert(node.right, newNode);
+    }
+    return rebalance(node);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static void update(Node node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    long max = node.last;
+    if (node.left != null && node.left.maxLast > max) {
+      max = node.left.maxLast;
+    }
+    if (node.right != null && node.right.maxLast > max) {
+      max = node.right.maxLast;
+    }
+    node.maxLast = max;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node pivot = node.left;
+    node.left = pivot.right;
+    pivot.right = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node pivot = node.right;
+    node.right = pivot.left;
+    pivot.left = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private static Node rebalance(Node node) {
+    update(node);
+    int balance = height(node.left) - height(node.right);
+    if (balance > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balance < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+}
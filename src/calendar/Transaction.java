@@ -0,0 +1,97 @@
+package calendar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The commands staged between "begin" and "commit". Committing applies them as one batch, all
+ * or nothing: if any staged command declines conflicts, the events and series of the whole
+ * transaction are first checked together, and a declined conflict leaves the calendar
+ * as it was. The commands are then applied in staging order, each run of consecutive single
+ * events inserted with one sort and one merge, and print what they would have printed one at
+ * a time. Edits never change times, so the up-front check finds the same conflicts.
+ */
+final class Transaction {
+  private final List<Command> staged = new ArrayList<>();
+
+  void stage(Command command) {
+    staged.add(command);
+  }
+
+  int size() {
+    return staged.size();
+  }
+
+  /**
+   * Applies the staged commands and then writes their journal records as one group.
+   *
+   * @throws IOException if every command was applied but the journal could not be written;
+   *     the records stay pending in the journal and are written with its next commit
+   * @throws Exception if the transaction was rolled back
+   */
+  void commit(CalendarManager calendar) throws Exception {
+    List<CalendarEvent> candidates = new ArrayList<>();
+    int[] owners = new int[staged.size()];
+    List<RecurringSeries> stagedSeries = new ArrayList<>();
+    int[] seriesOwners = new int[staged.size()];
+    boolean[] autoDecline = new boolean[staged.size()];
+    boolean declines = false;
+    for (int i = 0; i < staged.size(); i++) {
+      Command command = staged.get(i);
+      if (command instanceof Command.CreateEvent) {
+        autoDecline[i] = ((Command.CreateEvent) command).autoDecline;
+        owners[candidates.size()] = i;
+        candidates.add(((Command.CreateEvent) command).event);
+      } else if (command instanceof Command.CreateSeries) {
+        autoDecline[i] = ((Command.CreateSeries) command).autoDecline;
+        seriesOwners[stagedSeries.size()] = i;
+        stagedSeries.add(((Command.CreateSeries) command).series);
+      }
+      declines |= autoDecline[i];
+    }
+    if (declines) {
+      calendar.checkDeclines(candidates, owners, stagedSeries, seriesOwners, autoDecline);
+    }
+
+    calendar.holdJournal();
+    try {
+      List<Command.CreateEvent> run = new ArrayList<>();
+      for (Command command : staged) {
+        if (command instanceof Command.CreateEvent) {
+          run.add((Command.CreateEvent) command);
+          continue;
+        }
+        addRun(calendar, run);
+        if (command instanceof Command.CreateSeries) {
+          // Checked already; this only prints the warnings.
+          calendar.addSeries(((Command.CreateSeries) command).series, false);
+          ((Command.CreateSeries) command).report();
+        } else {
+          command.apply(calendar);
+        }
+      }
+      addRun(calendar, run);
+    } catch (Exception e) {
+      try {
+        calendar.releaseJournal();
+      } catch (IOException journalFailure) {
+        e.addSuppressed(journalFailure);
+      }
+      throw e;
+    }
+    calendar.releaseJournal();
+  }
+
+  private static void addRun(CalendarManager calendar, List<Command.CreateEvent> run) {
+    if (run.isEmpty()) {
+      return;
+    }
+    List<CalendarEvent> events = new ArrayList<>(run.size());
+    for (Command.CreateEvent create : run) {
+      events.add(create.event);
+    }
+    calendar.addChecked(events, i -> run.get(i).report());
+    run.clear();
+  }
+}
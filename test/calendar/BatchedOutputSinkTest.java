@@ -0,0 +1,77 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class BatchedOutputSinkTest {
+  private static final String NL = System.lineSeparator();
+
+  @Test
+  public void testFlush_WritesLinesInOrder() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    BatchedOutputSink sink = new BatchedOutputSink(target, false, 64, 10_000);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sink.println("line " + i);
+      expected.append("line ").append(i).append(NL);
+    }
+    sink.println("> ", "exit");
+    expected.append("> exit").append(NL);
+    sink.flush();
+    assertEquals(expected.toString(), target.toString());
+    sink.close();
+  }
+
+  @Test
+  public void testIdleSink_FlushesAfterInterval() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    try (BatchedOutputSink sink = new BatchedOutputSink(target, false, 1 << 16, 20)) {
+      sink.println("prompt");
+      long deadline = System.currentTimeMillis() + 5000;
+      while (target.size() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      assertEquals("prompt" + NL, target.toString());
+    }
+  }
+
+  @Test
+  public void testZeroInterval_WaitsForFlush() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    try (BatchedOutputSink sink = new BatchedOutputSink(target, false, 1 << 16, 0)) {
+      sink.println("held");
+      Thread.sleep(50);
+      assertEquals(0, target.size());
+      sink.flush();
+      assertEquals("held" + NL, target.toString());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_RejectsNonPositiveFlushSize() {
+    new BatchedOutputSink(new ByteArrayOutputStream(), false, 0, 100);
+  }
+
+  @Test
+  public void testClose_ReportsWriteFailure() {
+    OutputStream broken = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+    BatchedOutputSink sink = new BatchedOutputSink(broken, true, 16, 10_000);
+    for (int i = 0; i < 100; i++) {
+      sink.println("line " + i);
+    }
+    try {
+      sink.close();
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertEquals("disk full", e.getMessage());
+    }
+  }
+}
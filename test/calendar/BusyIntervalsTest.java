@@ -0,0 +1,80 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BusyIntervalsTest {
+
+  private LocalDateTime at(int hour) {
+    return LocalDateTime.of(2025, 3, 1, 0, 0).plusHours(hour);
+  }
+
+  @Test
+  public void testContains_HalfOpenBounds() {
+    BusyIntervals busy = new BusyIntervals();
+    busy.add(at(9), at(10));
+    assertTrue(busy.contains(at(9)));
+    assertFalse(busy.contains(at(10)));
+    assertFalse(busy.contains(at(8)));
+  }
+
+  @Test
+  public void testAdd_MergesOverlappingAndTouching() {
+    BusyIntervals busy = new BusyIntervals();
+    busy.add(at(9), at(10));
+    busy.add(at(12), at(13));
+    busy.add(at(15), at(16));
+    assertEquals(3, busy.size());
+    busy.add(at(10), at(12));
+    assertEquals(2, busy.size());
+    busy.add(at(8), at(17));
+    assertEquals(1, busy.size());
+    assertTrue(busy.contains(at(11)));
+    assertTrue(busy.contains(at(16)));
+    assertFalse(busy.contains(at(17)));
+  }
+
+  @Test
+  public void testAdd_ContainedIntervalIsNoOp() {
+    BusyIntervals busy = new BusyIntervals();
+    busy.add(at(8), at(18));
+    busy.add(at(9), at(10));
+    assertEquals(1, busy.size());
+    assertTrue(busy.contains(at(17)));
+  }
+
+  @Test
+  public void testAdd_EmptyOrInvertedIgnored() {
+    BusyIntervals busy = new BusyIntervals();
+    busy.add(at(9), at(9));
+    busy.add(at(11), at(10));
+    assertEquals(0, busy.size());
+    assertFalse(busy.contains(at(9)));
+    assertFalse(busy.contains(at(10)));
+  }
+
+  @Test
+  public void testAddAllSorted_MatchesIncrementalAdds() {
+    Random random = new Random(7);
+    List<CalendarEvent> sorted = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      int start = random.nextInt(500);
+      sorted.add(new CalendarEvent("E" + i, at(start), at(start + random.nextInt(6) - 1), false));
+    }
+    sorted.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+    BusyIntervals bulk = new BusyIntervals();
+    bulk.addAllSorted(sorted);
+    BusyIntervals incremental = new BusyIntervals();
+    for (CalendarEvent e : sorted) {
+      incremental.add(e.getStart(), e.getEnd());
+    }
+    assertEquals(incremental.size(), bulk.size());
+    for (int hour = 0; hour < 510; hour++) {
+      assertEquals(incremental.contains(at(hour)), bulk.contains(at(hour)));
+    }
+  }
+}
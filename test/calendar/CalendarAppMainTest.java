@@ -120,4 +120,85 @@ public class CalendarAppMainTest {
     assertTrue("Should indicate invalid mode",
             output.contains("Invalid mode. Use interactive or headless."));
   }
+
+  // Test headless mode: batched output to standard output matches direct output.
+  @Test
+  public void testMainHeadlessMode_BatchedOutputMatchesDirect() throws Exception {
+    File temp = File.createTempFile("commands", ".txt");
+    try (PrintWriter writer = new PrintWriter(temp)) {
+      for (int day = 1; day <= 28; day++) {
+        writer.printf("create event Day%d on 2025-02-%02d%n", day, day);
+      }
+      writer.println("print events from 2025-02-01T00:00 to 2025-03-01T00:00");
+      writer.println("exit");
+    }
+    String direct = captureOutput(() ->
+            CalendarApp.main(new String[]{"--mode", "headless", temp.getAbsolutePath()}));
+    String batched = captureOutput(() -> CalendarApp.main(new String[]{"--mode", "headless",
+        temp.getAbsolutePath(), "--batch-output", "--flush-size", "100"}));
+    assertEquals(direct, batched);
+    temp.delete();
+  }
+
+  // Test headless mode: output sent to a file, without command echo.
+  @Test
+  public void testMainHeadlessMode_OutputFileWithoutEcho() throws Exception {
+    File temp = File.createTempFile("commands", ".txt");
+    File out = File.createTempFile("output", ".txt");
+    try (PrintWriter writer = new PrintWriter(temp)) {
+      writer.println("create event HeadlessTest on 2025-03-06");
+      writer.println("exit");
+    }
+    String output = captureOutput(() -> CalendarApp.main(new String[]{"--mode", "headless",
+        temp.getAbsolutePath(), "--output", out.getAbsolutePath(), "--no-echo"}));
+    assertEquals("", output);
+    String written = new String(java.nio.file.Files.readAllBytes(out.toPath()));
+    assertTrue(written.startsWith("All-day event created:"));
+    assertFalse(written.contains("> "));
+    temp.delete();
+    out.delete();
+  }
+
+  // Test bad output options: reported without starting the calendar.
+  @Test
+  public void testMainHeadlessMode_RejectsBadFlushOptions() {
+    String output = captureOutput(() -> CalendarApp.main(new String[]{"--mode", "headless", "commands.txt",
+        "--batch-output", "--flush-size", "-5"}));
+    assertEquals("Error opening output: --flush-size must be a whole number from 1 to "
+            + BatchedOutputSink.MAX_FLUSH_SIZE + ", not -5.", output.trim());
+    output = captureOutput(() -> CalendarApp.main(new String[]{"--mode", "headless", "commands.txt",
+        "--batch-output", "--flush-interval", "soon"}));
+    assertEquals("Error opening output: --flush-interval must be a whole number from 0 up, not soon.",
+            output.trim());
+  }
+
+  // Test a bad pipeline option: reported instead of escaping as an exception.
+  @Test
+  public void testMainHeadlessMode_RejectsBadParseThreads() throws Exception {
+    File temp = File.createTempFile("commands", ".txt");
+    try (PrintWriter writer = new PrintWriter(temp)) {
+      writer.println("exit");
+    }
+    for (String threads : new String[]{"0", "many"}) {
+      String output = captureOutput(() -> CalendarApp.main(new String[]{"--mode", "headless",
+          temp.getAbsolutePath(), "--pipeline", "--parse-threads", threads}));
+      assertEquals("Error starting pipeline: --parse-threads must be a whole number from 1 to "
+              + HeadlessPipeline.MAX_PARSE_THREADS + ", not " + threads + ".", output.trim());
+    }
+    temp.delete();
+  }
+
+  // Test a bad journal option: reported with the usual message, nothing opened.
+  @Test
+  public void testMainHeadlessMode_RejectsBadGroupCommit() throws Exception {
+    File journal = File.createTempFile("calendar", ".journal");
+    journal.delete();
+    for (String group : new String[]{"abc", "0"}) {
+      String output = captureOutput(() -> CalendarApp.main(new String[]{"--mode", "headless", "commands.txt",
+          "--journal", journal.getAbsolutePath(), "--group-commit", group}));
+      assertEquals("Error opening storage: --group-commit must be a whole number from 1 to "
+              + CommandJournal.MAX_GROUP_SIZE + ", not " + group + ".", output.trim());
+    }
+    assertFalse(journal.exists());
+  }
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 public class CalendarEventTest {
 
@@ -86,4 +87,26 @@ public class CalendarEventTest {
     String expected = "Holiday (All Day on 2025-03-01), Description: Vacation, Location: Beach, Private";
     assertEquals(expected, event.toString());
   }
+
+  @Test
+  public void testAppendTo_MatchesFormatterOutsideFourDigitYears() {
+    DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    for (int year : new int[]{-5, 0, 7, 999, 2025, 9999, 12000}) {
+      LocalDateTime start = LocalDateTime.of(year, 1, 2, 3, 4, 59);
+      LocalDateTime end = LocalDateTime.of(year, 12, 31, 23, 59);
+      CalendarEvent timed = new CalendarEvent("T", start, end, false);
+      assertEquals("T from " + start.format(dtf) + " to " + end.format(dtf) + ", Public", timed.toString());
+      CalendarEvent allDay = new CalendarEvent("A", start, end, true);
+      assertEquals("A (All Day on " + start.toLocalDate() + "), Public", allDay.toString());
+    }
+  }
+
+  @Test
+  public void testAppendTo_AppendsToExistingBuilder() {
+    CalendarEvent event = new CalendarEvent("Meeting", LocalDateTime.of(2025, 3, 1, 10, 0),
+            LocalDateTime.of(2025, 3, 1, 11, 0), false);
+    StringBuilder row = new StringBuilder(" - ");
+    assertSame(row, event.appendTo(row));
+    assertEquals(" - " + event, row.toString());
+  }
 }
@@ -6,6 +6,7 @@ import java.io.*;
 import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class CalendarManagerTest {
@@ -345,4 +346,204 @@ public class CalendarManagerTest {
     assertTrue(content.contains("GoogleTest"));
     file.delete();
   }
+
+  @Test
+  public void testAddEvents_AutoDeclineAddsNothing() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    manager.addEvent(new CalendarEvent("Existing", LocalDateTime.of(2025, 3, 5, 10, 0),
+            LocalDateTime.of(2025, 3, 5, 11, 0), false), true);
+    List<CalendarEvent> batch = List.of(
+            new CalendarEvent("Series", LocalDateTime.of(2025, 3, 4, 10, 0),
+                    LocalDateTime.of(2025, 3, 4, 11, 0), false),
+            new CalendarEvent("Series", LocalDateTime.of(2025, 3, 5, 10, 30),
+                    LocalDateTime.of(2025, 3, 5, 11, 30), false),
+            new CalendarEvent("Series", LocalDateTime.of(2025, 3, 6, 10, 0),
+                    LocalDateTime.of(2025, 3, 6, 11, 0), false));
+    try {
+      manager.addEvents(batch, true);
+      fail("Expected conflict with existing event");
+    } catch (Exception e) {
+      assertEquals("Conflict detected with event: Existing", e.getMessage());
+    }
+    assertEquals(1, manager.getAllEvents().size());
+  }
+
+  @Test
+  public void testAddEvents_ConflictWithinBatch() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    List<CalendarEvent> batch = List.of(
+            new CalendarEvent("Second", LocalDateTime.of(2025, 3, 1, 10, 30),
+                    LocalDateTime.of(2025, 3, 1, 11, 30), false),
+            new CalendarEvent("First", LocalDateTime.of(2025, 3, 1, 10, 0),
+                    LocalDateTime.of(2025, 3, 1, 11, 0), false));
+    try {
+      manager.addEvents(batch, true);
+      fail("Expected conflict inside the batch");
+    } catch (Exception e) {
+      assertEquals("Conflict detected with event: First", e.getMessage());
+    }
+    assertTrue(manager.getAllEvents().isEmpty());
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(baos));
+    try {
+      manager.addEvents(batch, false);
+    } finally {
+      System.setOut(originalOut);
+    }
+    assertTrue(baos.toString().contains("Warning: Event conflicts with First"));
+    assertEquals(2, manager.getAllEvents().size());
+  }
+
+  @Test
+  public void testAddEvents_WarnsAsWhenAddedOneAtATime() throws Exception {
+    String[] names = {"Long", "Short", "Late", "Inner", "Existing"};
+    int[][] times = {{9, 0, 13, 0}, {9, 30, 10, 30}, {9, 45, 14, 0}, {10, 15, 11, 0}, {10, 0, 12, 0}};
+    String[] outputs = new String[2];
+    for (int run = 0; run < 2; run++) {
+      CalendarManager manager = new CalendarManager();
+      List<CalendarEvent> batch = new ArrayList<>();
+      for (int i = 0; i < names.length; i++) {
+        batch.add(new CalendarEvent(names[i], LocalDateTime.of(2025, 3, 1, times[i][0], times[i][1]),
+                LocalDateTime.of(2025, 3, 1, times[i][2], times[i][3]), false));
+      }
+      manager.addEvent(batch.remove(batch.size() - 1), false);
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      PrintStream originalOut = System.out;
+      System.setOut(new PrintStream(baos));
+      try {
+        if (run == 0) {
+          manager.addEvents(batch, false);
+        } else {
+          for (CalendarEvent event : batch) {
+            manager.addEvent(event, false);
+          }
+        }
+      } finally {
+        System.setOut(originalOut);
+      }
+      outputs[run] = baos.toString();
+    }
+    assertEquals(outputs[1], outputs[0]);
+  }
+
+  @Test
+  public void testAddEvents_MergesInStartOrder() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    manager.addEvent(new CalendarEvent("Existing", LocalDateTime.of(2025, 3, 2, 9, 0),
+            LocalDateTime.of(2025, 3, 2, 10, 0), false), true);
+    manager.addEvents(List.of(
+            new CalendarEvent("Late", LocalDateTime.of(2025, 3, 3, 9, 0),
+                    LocalDateTime.of(2025, 3, 3, 10, 0), false),
+            new CalendarEvent("Early", LocalDateTime.of(2025, 3, 1, 9, 0),
+                    LocalDateTime.of(2025, 3, 1, 10, 0), false)), true);
+    List<CalendarEvent> events = manager.getAllEvents();
+    assertEquals("Early", events.get(0).getEventName());
+    assertEquals("Existing", events.get(1).getEventName());
+    assertEquals("Late", events.get(2).getEventName());
+  }
+
+  @Test
+  public void testGetEventsOn_SpansEveryDayInOrder() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CalendarEvent retreat = new CalendarEvent("Retreat", LocalDateTime.of(2025, 3, 1, 18, 0),
+            LocalDateTime.of(2025, 3, 4, 9, 0), false);
+    CalendarEvent holiday = new CalendarEvent("Holiday", LocalDateTime.of(2025, 3, 2, 0, 0),
+            LocalDateTime.of(2025, 3, 3, 0, 0), true);
+    manager.addEvent(retreat, false);
+    manager.addEvent(holiday, false);
+    assertEquals(List.of(retreat, holiday), manager.getEventsOn(LocalDate.of(2025, 3, 2)));
+    assertEquals(List.of(retreat), manager.getEventsOn(LocalDate.of(2025, 3, 3)));
+    assertEquals(List.of(retreat), manager.getEventsOn(LocalDate.of(2025, 3, 4)));
+    assertTrue(manager.getEventsOn(LocalDate.of(2025, 3, 5)).isEmpty());
+  }
+
+  @Test
+  public void testEditName_RekeysForLaterEdits() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CalendarEvent e1 = new CalendarEvent("Standup", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 9, 15), false);
+    CalendarEvent e2 = new CalendarEvent("Standup", LocalDateTime.of(2025, 3, 4, 9, 0),
+            LocalDateTime.of(2025, 3, 4, 9, 15), false);
+    manager.addEvent(e1, false);
+    manager.addEvent(e2, false);
+    assertEquals(1, manager.editEventsByStart("name", "Standup", LocalDateTime.of(2025, 3, 4, 0, 0), "Sync"));
+    assertEquals("Sync", e2.getEventName());
+    assertEquals(1, manager.editEventsByName("location", "Standup", "Room 1"));
+    assertEquals(1, manager.editEventsByName("location", "Sync", "Room 2"));
+    assertEquals("Room 1", e1.getLocation());
+    assertEquals("Room 2", e2.getLocation());
+    assertTrue(manager.editSingleEvent("description", "Sync", e2.getStart(), e2.getEnd(), "Moved"));
+    assertFalse(manager.editSingleEvent("description", "Standup", e2.getStart(), e2.getEnd(), "Stale"));
+    assertEquals(1, manager.editEventsByName("name", "Sync", "Standup"));
+    assertEquals(2, manager.editEventsByName("public", "Standup", "false"));
+  }
+
+  @Test
+  public void testEditName_MergesIntoExistingName() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    for (int day = 1; day <= 5; day++) {
+      manager.addEvent(new CalendarEvent("A", LocalDateTime.of(2025, 3, day, 10, 0),
+              LocalDateTime.of(2025, 3, day, 11, 0), false), false);
+    }
+    manager.addEvent(new CalendarEvent("B", LocalDateTime.of(2025, 3, 2, 12, 0),
+            LocalDateTime.of(2025, 3, 2, 13, 0), false), false);
+    manager.addEvent(new CalendarEvent("B", LocalDateTime.of(2025, 3, 4, 12, 0),
+            LocalDateTime.of(2025, 3, 4, 13, 0), false), false);
+    assertEquals(3, manager.editEventsByStart("name", "A", LocalDateTime.of(2025, 3, 3, 0, 0), "B"));
+    assertEquals(4, manager.editEventsByStart("location", "B", LocalDateTime.of(2025, 3, 3, 0, 0), "Room"));
+    assertEquals(2, manager.editEventsByName("name", "A", "B"));
+    assertTrue(manager.editSingleEvent("description", "B", LocalDateTime.of(2025, 3, 1, 10, 0),
+            LocalDateTime.of(2025, 3, 1, 11, 0), "First"));
+    assertEquals(1, manager.editEventsByStart("description", "B", LocalDateTime.of(2025, 3, 5, 0, 0), "Last"));
+    assertEquals(7, manager.editEventsByName("name", "B", "B"));
+    assertEquals(7, manager.editEventsByStart("public", "B", LocalDateTime.of(2025, 3, 1, 0, 0), "false"));
+  }
+
+  @Test
+  public void testSeries_EditsSplitAndDetachOccurrences() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    manager.addSeries(RecurringEventGenerator.generateSeries("Class", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 10, 0), "MWF for 6 times", false), true);
+    assertEquals(6, manager.getAllEvents().size());
+    assertTrue(manager.isBusyAt(LocalDateTime.of(2025, 3, 5, 9, 30)));
+    assertEquals(1, manager.getEventsOn(LocalDate.of(2025, 3, 10)).size());
+
+    assertTrue(manager.editSingleEvent("description", "Class", LocalDateTime.of(2025, 3, 5, 9, 0),
+            LocalDateTime.of(2025, 3, 5, 10, 0), "Quiz"));
+    assertEquals(3, manager.editEventsByStart("location", "Class", LocalDateTime.of(2025, 3, 10, 0, 0), "Lab"));
+    assertEquals(6, manager.editEventsByName("public", "Class", "false"));
+
+    List<CalendarEvent> events = manager.getAllEvents();
+    assertEquals(6, events.size());
+    assertEquals("Quiz", events.get(1).getDescription());
+    assertEquals("", events.get(2).getDescription());
+    assertEquals("", events.get(2).getLocation());
+    assertEquals("Lab", events.get(3).getLocation());
+    for (CalendarEvent event : events) {
+      assertFalse(event.isPublic());
+    }
+  }
+
+  @Test
+  public void testSeries_AutoDeclineLeavesCalendarUnchanged() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    manager.addEvent(new CalendarEvent("Dentist", LocalDateTime.of(2025, 3, 7, 9, 30),
+            LocalDateTime.of(2025, 3, 7, 10, 30), false), true);
+    try {
+      manager.addSeries(RecurringEventGenerator.generateSeries("Class", LocalDateTime.of(2025, 3, 3, 9, 0),
+              LocalDateTime.of(2025, 3, 3, 10, 0), "MWF for 6 times", false), true);
+      fail("Expected conflict with Dentist");
+    } catch (Exception e) {
+      assertEquals("Conflict detected with event: Dentist", e.getMessage());
+    }
+    assertEquals(1, manager.getAllEvents().size());
+    try {
+      manager.addEvent(new CalendarEvent("Dentist", LocalDateTime.of(2025, 3, 5, 9, 30),
+              LocalDateTime.of(2025, 3, 5, 10, 30), false), true);
+    } catch (Exception e) {
+      fail("Declined series must not be stored: " + e.getMessage());
+    }
+  }
 }
@@ -0,0 +1,105 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CalendarSnapshotTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("calendar", ".snapshot");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private CalendarEvent event(String name, int day, int startHour, int endHour) {
+    return new CalendarEvent(name, LocalDateTime.of(2025, 3, day, startHour, 0),
+            LocalDateTime.of(2025, 3, day, endHour, 0), false);
+  }
+
+  private List<String> describe(CalendarManager calendar) {
+    List<String> result = new ArrayList<>();
+    for (CalendarEvent e : calendar.getAllEvents()) {
+      result.add(e + " " + e.getStart() + " " + e.getEnd() + " " + e.getDescription() + " " + e.getLocation());
+    }
+    return result;
+  }
+
+  @Test
+  public void testWriteAndLoad_RestoresEventsSeriesAndEdits() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(event("Lunch", 3, 12, 13), false);
+    calendar.addEvent(event("Overlap", 3, 12, 14), false);
+    calendar.addEvent(new CalendarEvent("Holiday", LocalDateTime.of(2025, 3, 7, 0, 0),
+            LocalDateTime.of(2025, 3, 7, 23, 59), true), false);
+    calendar.addSeries(RecurringEventGenerator.generateSeries("Standup",
+            LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 3, 9, 15),
+            "MWF for 6 times", false), false);
+    calendar.editSingleEvent("location", "Standup", LocalDateTime.of(2025, 3, 5, 9, 0),
+            LocalDateTime.of(2025, 3, 5, 9, 15), "Hall");
+    calendar.editEventsByStart("description", "Standup", LocalDateTime.of(2025, 3, 10, 9, 0), "Later");
+    calendar.editEventsByName("public", "Lunch", "false");
+
+    CalendarSnapshot.write(calendar, file.getPath());
+    CalendarManager loaded = new CalendarManager();
+    CalendarSnapshot.load(file.getPath(), loaded);
+
+    assertEquals(describe(calendar), describe(loaded));
+    assertFalse(loaded.getAllEvents().get(1).isPublic());
+    assertTrue(loaded.isBusyAt(LocalDateTime.of(2025, 3, 12, 9, 5)));
+    assertEquals(calendar.getEventsOn(LocalDate.of(2025, 3, 5)).size(),
+            loaded.getEventsOn(LocalDate.of(2025, 3, 5)).size());
+    assertFalse(new File(file.getPath() + ".tmp").exists());
+  }
+
+  @Test
+  public void testWriteAndLoad_KeepsSubMinuteTimes() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(new CalendarEvent("Precise", LocalDateTime.of(2025, 3, 3, 9, 0, 30),
+            LocalDateTime.of(2025, 3, 3, 9, 1, 15, 500), false), false);
+    CalendarSnapshot.write(calendar, file.getPath());
+    CalendarManager loaded = new CalendarManager();
+    CalendarSnapshot.load(file.getPath(), loaded);
+    assertEquals(LocalDateTime.of(2025, 3, 3, 9, 0, 30), loaded.getAllEvents().get(0).getStart());
+    assertEquals(LocalDateTime.of(2025, 3, 3, 9, 1, 15, 500), loaded.getAllEvents().get(0).getEnd());
+  }
+
+  @Test
+  public void testWrite_StoresRepeatedStringsOnce() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    for (int day = 1; day <= 20; day++) {
+      CalendarEvent e = event("A fairly long repeated event name", day, 9, 10);
+      e.setDescription("A fairly long repeated description");
+      calendar.addEvent(e, false);
+    }
+    CalendarSnapshot.write(calendar, file.getPath());
+    // 20 fixed-width records plus one copy of each string.
+    assertTrue(Files.size(file.toPath()) < 20 * 40 + 200);
+  }
+
+  @Test(expected = Exception.class)
+  public void testLoad_RejectsOtherFiles() throws Exception {
+    Files.write(file.toPath(), "EventName,Start,End\n".getBytes());
+    CalendarSnapshot.load(file.getPath(), new CalendarManager());
+  }
+
+  @Test(expected = Exception.class)
+  public void testLoad_RejectsNonEmptyCalendar() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(event("Lunch", 3, 12, 13), false);
+    CalendarSnapshot.write(calendar, file.getPath());
+    CalendarSnapshot.load(file.getPath(), calendar);
+  }
+}
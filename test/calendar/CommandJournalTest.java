@@ -0,0 +1,255 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommandJournalTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("calendar", ".journal");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private CommandJournal open(int groupSize) throws Exception {
+    return CommandJournal.open(file.getPath(), CommandJournal.SyncPolicy.EVERY_COMMIT, groupSize);
+  }
+
+  private CalendarEvent event(String name, int day, int startHour, int endHour) {
+    return new CalendarEvent(name, LocalDateTime.of(2025, 3, day, startHour, 0),
+            LocalDateTime.of(2025, 3, day, endHour, 0), false);
+  }
+
+  private List<String> describe(CalendarManager calendar) {
+    List<String> result = new ArrayList<>();
+    for (CalendarEvent e : calendar.getAllEvents()) {
+      result.add(e + " " + e.getDescription() + " " + e.getLocation());
+    }
+    return result;
+  }
+
+  @Test
+  public void testReplay_RebuildsCalendarWithoutOutput() throws Exception {
+    List<String> expected;
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      calendar.addEvent(event("Lunch", 3, 12, 13), false);
+      calendar.addEvent(event("Overlap", 3, 12, 14), false);
+      calendar.addSeries(RecurringEventGenerator.generateSeries("Standup",
+              LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 3, 9, 15),
+              "MWF for 6 times", false), false);
+      calendar.editSingleEvent("location", "Standup", LocalDateTime.of(2025, 3, 5, 9, 0),
+              LocalDateTime.of(2025, 3, 5, 9, 15), "Hall");
+      calendar.editEventsByStart("description", "Standup", LocalDateTime.of(2025, 3, 10, 9, 0), "Later");
+      calendar.editEventsByName("name", "Lunch", "Brunch");
+      expected = describe(calendar);
+    }
+    PrintStream originalOut = System.out;
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(output));
+    CalendarManager replayed = new CalendarManager();
+    try (CommandJournal journal = open(1)) {
+      assertEquals(6, replayed.attachJournal(journal));
+    } finally {
+      System.setOut(originalOut);
+    }
+    assertEquals("", output.toString());
+    assertEquals(expected, describe(replayed));
+  }
+
+  @Test
+  public void testReplay_CutsTornTailAndKeepsAppending() throws Exception {
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      calendar.addEvent(event("First", 3, 9, 10), false);
+      calendar.addEvent(event("Second", 3, 11, 12), false);
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 3);
+    }
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      assertEquals(1, calendar.attachJournal(journal));
+      calendar.addEvent(event("Third", 3, 13, 14), false);
+    }
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      assertEquals(2, calendar.attachJournal(journal));
+      assertEquals("Third", calendar.getAllEvents().get(1).getEventName());
+    }
+  }
+
+  @Test
+  public void testReplay_StopsAtBadChecksum() throws Exception {
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      calendar.addEvent(event("First", 3, 9, 10), false);
+      calendar.addEvent(event("Second", 3, 11, 12), false);
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(raf.length() - 1);
+      int last = raf.read();
+      raf.seek(raf.length() - 1);
+      raf.write(last ^ 0xFF);
+    }
+    try (CommandJournal journal = open(1)) {
+      assertEquals(1, new CalendarManager().attachJournal(journal));
+    }
+  }
+
+  @Test
+  public void testGroupCommit_WritesOnceGroupIsFull() throws Exception {
+    try (CommandJournal journal = open(3)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      calendar.addEvent(event("First", 3, 9, 10), false);
+      calendar.addEvent(event("Second", 3, 11, 12), false);
+      assertEquals(0, file.length());
+      calendar.addEvent(event("Third", 3, 13, 14), false);
+      assertTrue(file.length() > 0);
+      calendar.addEvent(event("Fourth", 3, 15, 16), false);
+      long afterGroup = file.length();
+      journal.commit();
+      assertTrue(file.length() > afterGroup);
+    }
+  }
+
+  @Test
+  public void testLoadEvents_LogsBatchAsOneGroup() throws Exception {
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      calendar.loadEvents(List.of(event("First", 3, 9, 10), event("Second", 3, 11, 12),
+              event("Third", 3, 13, 14)));
+    }
+    try (CommandJournal journal = open(1)) {
+      assertEquals(3, new CalendarManager().attachJournal(journal));
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 3);
+    }
+    try (CommandJournal journal = open(1)) {
+      assertEquals(0, new CalendarManager().attachJournal(journal));
+    }
+  }
+
+  @Test
+  public void testHold_NestsAndCommitsOnOutermostRelease() throws Exception {
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      calendar.holdJournal();
+      calendar.addEvent(event("First", 3, 9, 10), false);
+      calendar.loadEvents(List.of(event("Second", 3, 11, 12), event("Third", 3, 13, 14)));
+      assertEquals(0, file.length());
+      calendar.releaseJournal();
+      assertTrue(file.length() > 0);
+    }
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      assertEquals(3, calendar.attachJournal(journal));
+      assertEquals(3, calendar.getAllEvents().size());
+    }
+  }
+
+  @Test
+  public void testFailedLog_LeavesCalendarUnchanged() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    CommandJournal journal = open(1);
+    calendar.attachJournal(journal);
+    calendar.addEvent(event("Lunch", 3, 12, 13), false);
+    journal.close();
+    try {
+      calendar.addEvent(event("Dinner", 3, 18, 19), false);
+      fail();
+    } catch (UncheckedIOException expected) {
+    }
+    try {
+      calendar.editEventsByName("location", "Lunch", "Hall");
+      fail();
+    } catch (UncheckedIOException expected) {
+    }
+    assertEquals(1, calendar.getAllEvents().size());
+    assertEquals("", calendar.getAllEvents().get(0).getLocation());
+  }
+
+  @Test
+  public void testReplay_ReadsJournalLargerThanReadBuffer() throws Exception {
+    try (CommandJournal journal = open(64)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      for (int i = 0; i < 3000; i++) {
+        calendar.addEvent(new CalendarEvent("Event" + i, LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i),
+                LocalDateTime.of(2025, 1, 1, 0, 30).plusHours(i), false), false);
+      }
+    }
+    assertTrue(file.length() > 1 << 16);
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      assertEquals(3000, calendar.attachJournal(journal));
+      assertEquals("Event2999", calendar.getAllEvents().get(2999).getEventName());
+    }
+  }
+
+  @Test
+  public void testReplay_TransactionWithBatchAndEdit() throws Exception {
+    List<String> expected;
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(new ByteArrayOutputStream()));
+    try (CommandJournal journal = open(1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      for (String command : new String[]{"begin",
+          "create event First from 2025-03-03T09:00 to 2025-03-03T10:00",
+          "create event Second from 2025-03-03T11:00 to 2025-03-03T12:00",
+          "edit events location First with Hall",
+          "create event Third from 2025-03-03T13:00 to 2025-03-03T14:00",
+          "commit"}) {
+        CommandParser.processCommand(command, calendar);
+      }
+      calendar.addEvent(event("After", 4, 9, 10), false);
+      expected = describe(calendar);
+    } finally {
+      System.setOut(originalOut);
+    }
+    assertTrue(expected.get(0).contains("Hall"));
+    CalendarManager replayed = new CalendarManager();
+    try (CommandJournal journal = open(1)) {
+      assertEquals(5, replayed.attachJournal(journal));
+    }
+    assertEquals(expected, describe(replayed));
+  }
+
+  @Test(expected = Exception.class)
+  public void testAttachJournal_RejectsCalendarWithStore() throws Exception {
+    File storeFile = File.createTempFile("events", ".store");
+    storeFile.delete();
+    CalendarManager calendar = new CalendarManager();
+    try (MappedEventStore store = MappedEventStore.open(storeFile.getPath());
+         CommandJournal journal = open(1)) {
+      calendar.attachStore(store);
+      calendar.attachJournal(journal);
+    } finally {
+      storeFile.delete();
+      new File(storeFile.getPath() + ".strings").delete();
+    }
+  }
+}
@@ -224,6 +224,31 @@ public class CommandParserTest {
     f.delete();
   }
 
+  @Test
+  public void testProcessImportCal_RoundTripWithDedup() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CommandParser.processCommand("create event ImportTest from 2025-03-01T10:00 to 2025-03-01T11:00", manager);
+    String fileName = "test_import_cal.csv";
+    CommandParser.processCommand("export cal " + fileName, manager);
+    PrintStream originalOut = System.out;
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(output));
+    try {
+      CommandParser.processCommand("import cal " + fileName + " --dedup", manager);
+    } finally {
+      System.setOut(originalOut);
+      new File(fileName).delete();
+    }
+    assertTrue(output.toString().contains("Imported 0 event(s) from "));
+    assertTrue(output.toString().contains("(1 duplicate(s) skipped)"));
+    assertEquals(1, manager.getAllEvents().size());
+  }
+
+  @Test(expected = Exception.class)
+  public void testProcessImportGoogleCSV_MissingFile() throws Exception {
+    CommandParser.processCommand("import googlecsv no_such_file.csv", new CalendarManager());
+  }
+
   @Test(expected = Exception.class)
   public void testProcessExportCal_Invalid() throws Exception {
     CalendarManager manager = new CalendarManager();
@@ -0,0 +1,88 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class CommandTokenizerTest {
+
+  @Test
+  public void testTryParse_CommonForms() throws Exception {
+    Command.CreateEvent create = (Command.CreateEvent) CommandTokenizer.tryParse(
+            "create event  Team Sync  from 2025-03-04T09:00 to 2025-03-04T09:30 --autodecline");
+    assertEquals("Team Sync", create.event.getEventName());
+    assertEquals(LocalDateTime.of(2025, 3, 4, 9, 0), create.event.getStart());
+    assertEquals(LocalDateTime.of(2025, 3, 4, 9, 30), create.event.getEnd());
+    assertTrue(create.autoDecline);
+
+    Command.CreateSeries series = (Command.CreateSeries) CommandTokenizer.tryParse(
+            "create event Gym on 2025-03-03 repeats MWF for 4 times");
+    assertTrue(series.series.getTemplate().isAllDay());
+    assertEquals(4, series.series.count());
+
+    Command.EditSingle single = (Command.EditSingle) CommandTokenizer.tryParse(
+            "edit event location Team Sync from 2025-03-04T09:00 to 2025-03-04T09:30 with Room 2");
+    assertEquals("location", single.property);
+    assertEquals("Team Sync", single.eventName);
+    assertEquals("Room 2", single.newValue);
+
+    Command.EditAll all = (Command.EditAll) CommandTokenizer.tryParse("EDIT EVENTS name Gym with Run");
+    assertEquals("Gym", all.eventName);
+    assertEquals("Run", all.newValue);
+
+    assertEquals(LocalDate.of(2025, 3, 4),
+            ((Command.PrintOn) CommandTokenizer.tryParse("print events on 2025-03-04 ")).date);
+    assertEquals(LocalDateTime.of(2025, 3, 4, 9, 5),
+            ((Command.ShowStatus) CommandTokenizer.tryParse("show status on \t2025-03-04T09:05")).dateTime);
+  }
+
+  @Test
+  public void testTryParse_LeavesUnusualLinesToSplitParser() throws Exception {
+    String[] lines = {
+        "create event A from 2025-03-04T09:00",
+        "create event A --autodecline on 2025-03-05",
+        "create event A on 2025-03-05 --AutoDecline",
+        "CREATE EVENT A on 2025-03-05",
+        "create event A on 2025-03-05 REPEATS MWF for 2 times",
+        "create event A on 2025-02-30",
+        "create event A from 2025-03-04T24:00 to 2025-03-04T09:30",
+        "create event Caf\u00e9 on 2025-03-05",
+        "edit event name A from 2025-03-04T09:00 with B",
+        "print events on 25-03-04",
+        "export cal events.csv",
+        "bogus"};
+    for (String line : lines) {
+      assertNull(line, CommandTokenizer.tryParse(line));
+    }
+  }
+
+  @Test
+  public void testParse_SameAsSplitParser() throws Exception {
+    String[] lines = {
+        "create event Review from 2025-03-04T09:00 to 2025-03-04T10:00 repeats TR until 2025-03-20T10:00",
+        "create event to from 2025-03-05T10:00 to 2025-03-05T11:00",
+        "create event A on 2025-02-29",
+        "create event A on 2025-03-05  repeats M for 1 times ",
+        "edit events description Gym from 2025-03-05T18:00 with legs",
+        "print events from 2025-03-01T00:00  to  2025-03-08T00:00"};
+    for (String line : lines) {
+      assertEquals(line, describe(CommandParser.parseBySplitting(line)), describe(CommandParser.parse(line)));
+    }
+  }
+
+  private static String describe(Object command) {
+    if (command instanceof Command.CreateEvent) {
+      return "event " + ((Command.CreateEvent) command).event;
+    } else if (command instanceof Command.CreateSeries) {
+      RecurringSeries series = ((Command.CreateSeries) command).series;
+      return "series " + series.getTemplate() + " x" + series.count();
+    } else if (command instanceof Command.EditFrom) {
+      Command.EditFrom edit = (Command.EditFrom) command;
+      return "edit " + edit.property + "|" + edit.eventName + "|" + edit.start + "|" + edit.newValue;
+    } else if (command instanceof Command.PrintRange) {
+      return "range " + ((Command.PrintRange) command).start + " " + ((Command.PrintRange) command).end;
+    }
+    return String.valueOf(command);
+  }
+}
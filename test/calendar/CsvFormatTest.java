@@ -0,0 +1,48 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDateTime;
+
+public class CsvFormatTest {
+
+  private CalendarEvent event() {
+    CalendarEvent e = new CalendarEvent("Review", LocalDateTime.of(2025, 3, 1, 14, 5),
+            LocalDateTime.of(2025, 3, 1, 15, 30), false);
+    e.setDescription("Q1 plan");
+    e.setLocation("Room 4");
+    return e;
+  }
+
+  private String row(CsvFormat format, CalendarEvent e) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    format.appendRow(sb, e);
+    return sb.toString();
+  }
+
+  @Test
+  public void testCalRow() throws Exception {
+    assertEquals("\"Review\",2025-03-01 14:05,2025-03-01 15:30,false,\"Q1 plan\",\"Room 4\",true\n",
+            row(CsvFormat.CAL, event()));
+  }
+
+  @Test
+  public void testGoogleRow_TimedAndAllDay() throws Exception {
+    CalendarEvent e = event();
+    e.setPublic(false);
+    assertTrue(row(CsvFormat.GOOGLE, e).matches(
+            "\"Review\",03/01/2025,02:05 \\S+,03/01/2025,03:30 \\S+,False,\"Q1 plan\",\"Room 4\",True\n"));
+    CalendarEvent holiday = new CalendarEvent("Holiday", LocalDateTime.of(2025, 3, 5, 0, 0),
+            LocalDateTime.of(2025, 3, 5, 23, 59), true);
+    assertEquals("\"Holiday\",03/05/2025,,03/05/2025,,True,\"\",\"\",False\n", row(CsvFormat.GOOGLE, holiday));
+  }
+
+  @Test
+  public void testAppendQuoted_DoublesEmbeddedQuotes() throws Exception {
+    CalendarEvent e = event();
+    e.setEventName("Say \"hi\"");
+    e.setDescription("a, b");
+    assertTrue(row(CsvFormat.CAL, e).startsWith("\"Say \"\"hi\"\"\",2025-03-01 14:05,"));
+    assertTrue(row(CsvFormat.CAL, e).contains(",\"a, b\","));
+  }
+}
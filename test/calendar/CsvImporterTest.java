@@ -0,0 +1,140 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvImporterTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("import", ".csv");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private CalendarManager sample() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    CalendarEvent review = new CalendarEvent("Review \"Q1\"", LocalDateTime.of(2025, 3, 3, 14, 0),
+            LocalDateTime.of(2025, 3, 3, 15, 30), false);
+    review.setDescription("numbers, plans");
+    review.setLocation("Room 4");
+    review.setPublic(false);
+    calendar.addEvent(review, false);
+    calendar.addEvent(new CalendarEvent("Holiday", LocalDateTime.of(2025, 3, 5, 0, 0),
+            LocalDateTime.of(2025, 3, 6, 0, 0), true), false);
+    calendar.addEvent(new CalendarEvent("Late", LocalDateTime.of(2025, 3, 7, 22, 0),
+            LocalDateTime.of(2025, 3, 8, 1, 0), false), false);
+    return calendar;
+  }
+
+  private List<String> describe(CalendarManager calendar) {
+    List<String> result = new ArrayList<>();
+    for (CalendarEvent e : calendar.getAllEvents()) {
+      result.add(e + " " + e.getEnd() + " " + e.getDescription() + " " + e.getLocation());
+    }
+    return result;
+  }
+
+  private String captureOutput(Runnable runnable) {
+    PrintStream originalOut = System.out;
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(output));
+    try {
+      runnable.run();
+    } finally {
+      System.setOut(originalOut);
+    }
+    return output.toString();
+  }
+
+  @Test
+  public void testImportFile_RoundTripsBothFormats() throws Exception {
+    CalendarManager original = sample();
+    for (CsvFormat format : CsvFormat.values()) {
+      captureOutput(() -> {
+        if (format == CsvFormat.CAL) {
+          original.exportToCSV(file.getPath());
+        } else {
+          original.exportToGoogleCSV(file.getPath());
+        }
+      });
+      CalendarManager imported = new CalendarManager();
+      assertEquals(3, new CsvImporter(format, false, true, false).importFile(file.getPath(), imported));
+      assertEquals(describe(original), describe(imported));
+    }
+  }
+
+  @Test
+  public void testImportFrom_DedupSkipsExistingAndRepeatedRows() throws Exception {
+    CalendarManager calendar = sample();
+    String rows = CsvFormat.CAL.header()
+            + "\"Holiday\",2025-03-05 00:00,2025-03-06 00:00,true,\"\",\"\",true\n"
+            + "\"Gym\",2025-03-09 07:00,2025-03-09 08:00,false,\"\",\"\",true\n"
+            + "\"Gym\",2025-03-09 07:00,2025-03-09 08:00,false,\"again\",\"\",true\n";
+    CsvImporter importer = new CsvImporter(CsvFormat.CAL, true, true, false);
+    String output = captureOutput(() -> {
+      try {
+        assertEquals(1, importer.importFrom(new StringReader(rows), calendar));
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertEquals(2, importer.skipped());
+    assertEquals("", output);
+    assertEquals(4, calendar.getAllEvents().size());
+  }
+
+  @Test
+  public void testImportFrom_AutoDeclineRejectsWholeFile() throws Exception {
+    CalendarManager calendar = sample();
+    String rows = "\"Gym\",2025-03-09 07:00,2025-03-09 08:00,false,\"\",\"\",true\n"
+            + "\"Clash\",2025-03-03 14:30,2025-03-03 16:00,false,\"\",\"\",true\n";
+    try {
+      new CsvImporter(CsvFormat.CAL, false, true, true).importFrom(new StringReader(rows), calendar);
+      fail("Expected a conflict");
+    } catch (Exception e) {
+      assertEquals("Conflict detected with event: Review \"Q1\"", e.getMessage());
+    }
+    assertEquals(3, calendar.getAllEvents().size());
+  }
+
+  @Test
+  public void testImportFrom_WithoutConflictCheckAddsSilently() throws Exception {
+    CalendarManager calendar = sample();
+    String rows = "\"Clash\",2025-03-03 14:30,2025-03-03 16:00,false,\"\",\"\",true\n";
+    String output = captureOutput(() -> {
+      try {
+        new CsvImporter(CsvFormat.CAL, false, false, true).importFrom(new StringReader(rows), calendar);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertEquals("", output);
+    assertEquals(4, calendar.getAllEvents().size());
+    assertTrue(calendar.isBusyAt(LocalDateTime.of(2025, 3, 3, 15, 45)));
+  }
+
+  @Test
+  public void testImportFrom_ReportsMalformedRow() throws Exception {
+    String rows = CsvFormat.CAL.header() + "\"Bad\",2025-13-01 07:00,2025-03-09 08:00,false,\"\",\"\",true\n";
+    try {
+      new CsvImporter(CsvFormat.CAL, false, true, false).importFrom(new StringReader(rows), new CalendarManager());
+      fail("Expected a parse error");
+    } catch (Exception e) {
+      assertTrue(e.getMessage().startsWith("Invalid row 2: "));
+    }
+  }
+}
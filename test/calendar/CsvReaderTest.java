@@ -0,0 +1,54 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvReaderTest {
+
+  private List<List<String>> readAll(String text) throws IOException {
+    CsvReader reader = new CsvReader(new StringReader(text));
+    List<List<String>> records = new ArrayList<>();
+    List<String> fields = new ArrayList<>();
+    while (reader.readRecord(fields)) {
+      records.add(new ArrayList<>(fields));
+    }
+    return records;
+  }
+
+  @Test
+  public void testReadRecord_PlainAndQuotedFields() throws Exception {
+    assertEquals(List.of(List.of("a", "b c", ""), List.of("1", "2", "3")),
+            readAll("a,\"b c\",\n1,2,3\n"));
+  }
+
+  @Test
+  public void testReadRecord_QuotesCommasAndLineBreaksInsideQuotes() throws Exception {
+    assertEquals(List.of(List.of("Say \"hi\"", "x,y", "line1\nline2")),
+            readAll("\"Say \"\"hi\"\"\",\"x,y\",\"line1\nline2\""));
+  }
+
+  @Test
+  public void testReadRecord_CrLfLineEndings() throws Exception {
+    List<List<String>> records = readAll("a,b\r\nc,d\r\n");
+    assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), records);
+  }
+
+  @Test
+  public void testRecordNumber_CountsRecordsNotLines() throws Exception {
+    CsvReader reader = new CsvReader(new StringReader("\"a\nb\",c\nd\n"));
+    List<String> fields = new ArrayList<>();
+    reader.readRecord(fields);
+    reader.readRecord(fields);
+    assertEquals(2, reader.recordNumber());
+    assertFalse(reader.readRecord(fields));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadRecord_UnterminatedQuote() throws Exception {
+    readAll("\"never closed,1\n");
+  }
+}
@@ -0,0 +1,84 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class EventColumnsTest {
+
+  @Test
+  public void testInsert_OutOfOrderMatchesLinearScan() {
+    Random random = new Random(11);
+    EventColumns columns = new EventColumns(0);
+    List<CalendarEvent> all = new ArrayList<>();
+    LocalDateTime base = LocalDateTime.of(2025, 3, 1, 0, 0);
+    for (int i = 0; i < 2000; i++) {
+      // Mostly in order, with a share of late arrivals and a few long events.
+      LocalDateTime start = base.plusMinutes(random.nextInt(5) == 0 ? random.nextInt(20 * i + 1) : 20 * i);
+      CalendarEvent event = new CalendarEvent("E" + i, start,
+              start.plusMinutes(random.nextInt(50) == 0 ? 5000 : 1 + random.nextInt(60)), false);
+      event.setSequence(i);
+      columns.insert(event);
+      all.add(event);
+    }
+    assertEquals(2000, columns.size());
+    all.sort(CalendarManager.START_ORDER);
+    for (int q = 0; q < 200; q++) {
+      LocalDateTime from = base.plusMinutes(random.nextInt(40000));
+      LocalDateTime to = from.plusMinutes(1 + random.nextInt(3000));
+      List<CalendarEvent> expected = new ArrayList<>();
+      for (CalendarEvent event : all) {
+        if (event.getStart().isBefore(to) && event.getEnd().isAfter(from)) {
+          expected.add(event);
+        }
+      }
+      assertEquals(expected, columns.findOverlapping(from, to));
+    }
+  }
+
+  @Test
+  public void testFindOverlapping_SubMinuteBoundaries() {
+    EventColumns columns = new EventColumns(0);
+    CalendarEvent event = new CalendarEvent("Precise", LocalDateTime.of(2025, 3, 1, 9, 0, 30),
+            LocalDateTime.of(2025, 3, 1, 9, 10, 15), false);
+    columns.insert(event);
+    assertTrue(columns.findOverlapping(LocalDateTime.of(2025, 3, 1, 9, 10, 15),
+            LocalDateTime.of(2025, 3, 1, 9, 20)).isEmpty());
+    assertTrue(columns.findOverlapping(LocalDateTime.of(2025, 3, 1, 8, 0),
+            LocalDateTime.of(2025, 3, 1, 9, 0, 30)).isEmpty());
+    assertEquals(List.of(event), columns.findOverlapping(LocalDateTime.of(2025, 3, 1, 9, 10, 14),
+            LocalDateTime.of(2025, 3, 1, 9, 20)));
+  }
+
+  @Test
+  public void testManagerColumnarScan_MatchesTree() throws Exception {
+    Random random = new Random(7);
+    CalendarManager treeOnly = new CalendarManager();
+    CalendarManager columnar = new CalendarManager();
+    columnar.setColumnarScan(true);
+    LocalDateTime base = LocalDateTime.of(2025, 3, 1, 0, 0);
+    PrintStream originalOut = System.out;
+    // Overlapping events print conflict warnings; keep them out of the test log.
+    System.setOut(new PrintStream(new ByteArrayOutputStream()));
+    try {
+      for (int i = 0; i < 300; i++) {
+        LocalDateTime start = base.plusMinutes(random.nextInt(20000));
+        LocalDateTime end = start.plusMinutes(random.nextInt(600));
+        treeOnly.addEvent(new CalendarEvent("E" + i, start, end, false), false);
+        columnar.addEvent(new CalendarEvent("E" + i, start, end, false), false);
+      }
+    } finally {
+      System.setOut(originalOut);
+    }
+    for (int q = 0; q < 100; q++) {
+      LocalDateTime from = base.plusMinutes(random.nextInt(20000));
+      LocalDateTime to = from.plusMinutes(random.nextInt(3000));
+      assertEquals(treeOnly.getEventsInRange(from, to).toString(), columnar.getEventsInRange(from, to).toString());
+    }
+  }
+}
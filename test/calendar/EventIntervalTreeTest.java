@@ -0,0 +1,81 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class EventIntervalTreeTest {
+
+  private CalendarEvent event(String name, int startHour, int endHour) {
+    return new CalendarEvent(name, LocalDateTime.of(2025, 3, 1, 0, 0).plusHours(startHour),
+            LocalDateTime.of(2025, 3, 1, 0, 0).plusHours(endHour), false);
+  }
+
+  @Test
+  public void testFindOverlapping_TouchingIsNotOverlap() {
+    EventIntervalTree tree = new EventIntervalTree();
+    tree.insert(event("Morning", 9, 10));
+    tree.insert(event("Noon", 12, 13));
+    assertTrue(tree.findOverlapping(LocalDateTime.of(2025, 3, 1, 10, 0),
+            LocalDateTime.of(2025, 3, 1, 12, 0)).isEmpty());
+    assertEquals(1, tree.findOverlapping(LocalDateTime.of(2025, 3, 1, 9, 30),
+            LocalDateTime.of(2025, 3, 1, 12, 0)).size());
+  }
+
+  @Test
+  public void testFindOverlapping_LongEventFoundFromAnySubtree() {
+    EventIntervalTree tree = new EventIntervalTree();
+    tree.insert(event("Conference", 0, 100));
+    for (int i = 1; i < 50; i++) {
+      tree.insert(event("Short" + i, i, i + 1));
+    }
+    List<CalendarEvent> found = tree.findOverlapping(LocalDateTime.of(2025, 3, 4, 0, 0),
+            LocalDateTime.of(2025, 3, 4, 1, 0));
+    assertEquals(1, found.size());
+    assertEquals("Conference", found.get(0).getEventName());
+  }
+
+  @Test
+  public void testFindOverlapping_MatchesLinearScanInStartOrder() {
+    Random random = new Random(42);
+    EventIntervalTree tree = new EventIntervalTree();
+    List<CalendarEvent> all = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int start = random.nextInt(1000);
+      CalendarEvent e = event("E" + i, start, start + 1 + random.nextInt(20));
+      tree.insert(e);
+      all.add(e);
+    }
+    assertEquals(500, tree.size());
+    all.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+    for (int q = 0; q < 200; q++) {
+      CalendarEvent probe = event("Probe", random.nextInt(1000), 0);
+      probe.setEnd(probe.getStart().plusHours(1 + random.nextInt(10)));
+      List<CalendarEvent> expected = new ArrayList<>();
+      for (CalendarEvent e : all) {
+        if (probe.conflictsWith(e)) {
+          expected.add(e);
+        }
+      }
+      assertEquals(expected, tree.findOverlapping(probe.getStart(), probe.getEnd()));
+    }
+  }
+
+  @Test
+  public void testIteration_StartOrderWithInsertionOrderTies() {
+    EventIntervalTree tree = new EventIntervalTree();
+    tree.insert(event("Late", 15, 16));
+    tree.insert(event("TieFirst", 9, 10));
+    tree.insert(event("Early", 8, 9));
+    tree.insert(event("TieSecond", 9, 11));
+    List<String> names = new ArrayList<>();
+    for (CalendarEvent e : tree) {
+      names.add(e.getEventName());
+    }
+    assertEquals(List.of("Early", "TieFirst", "TieSecond", "Late"), names);
+    assertEquals(4, tree.toList().size());
+  }
+}
@@ -0,0 +1,79 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Callable;
+
+public class FixedDateParserTest {
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final DateTimeFormatter CSV_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+  private static final DateTimeFormatter US_DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  private static final DateTimeFormatter CLOCK_TIME = DateTimeFormatter.ofPattern("hh:mm a");
+
+  private static String outcome(Callable<Object> parse) {
+    try {
+      return String.valueOf(parse.call());
+    } catch (Exception e) {
+      return e.getClass().getName() + ": " + e.getMessage();
+    }
+  }
+
+  @Test
+  public void testParse_ReadsFixedLayouts() {
+    assertEquals(LocalDate.of(2025, 3, 4), FixedDateParser.parseDate("2025-03-04"));
+    assertEquals(LocalDateTime.of(2025, 3, 4, 9, 5), FixedDateParser.parseDateTime("2025-03-04T09:05"));
+    assertEquals(LocalDateTime.of(2025, 3, 4, 23, 59), FixedDateParser.parseCsvDateTime("2025-03-04 23:59"));
+    assertEquals(LocalDate.of(2024, 2, 29), FixedDateParser.parseUsDate("02/29/2024"));
+    assertEquals(LocalTime.of(0, 15), FixedDateParser.parseClockTime("12:15 AM"));
+    assertEquals(LocalTime.of(12, 15), FixedDateParser.parseClockTime("12:15 PM"));
+    assertEquals(LocalTime.of(21, 0), FixedDateParser.parseClockTime("09:00 PM"));
+  }
+
+  @Test
+  public void testDateTime_RangeOutsideLayoutIsNull() {
+    assertEquals(LocalDateTime.of(2025, 3, 4, 9, 5),
+            FixedDateParser.dateTime("on 2025-03-04T09:05.", 3, 19, 'T'));
+    assertNull(FixedDateParser.dateTime("2025-03-04T09:05", 0, 16, ' '));
+    assertNull(FixedDateParser.dateTime("2025-03-04T24:00", 0, 16, 'T'));
+    assertNull(FixedDateParser.date("2025-02-30", 0, 10));
+    assertNull(FixedDateParser.date("0000-01-01", 0, 10));
+    assertNull(FixedDateParser.date("2025-3-04", 0, 9));
+  }
+
+  @Test
+  public void testParse_SameResultOrErrorAsFormatter() {
+    String[] dates = {"2025-03-04", "2024-02-29", "2025-02-29", "2025-04-31", "2025-02-32", "2025-13-01",
+        "2025-00-10", "0000-01-01", "0001-01-01", "9999-12-31", "12025-01-01", "2025-3-04", "2025/03/04",
+        "2025-03-0x", "+2025-03-04", "", "2025-03-04T09:00"};
+    for (String date : dates) {
+      assertEquals(date, outcome(() -> LocalDate.parse(date, DATE)),
+              outcome(() -> FixedDateParser.parseDate(date)));
+    }
+    String[] dateTimes = {"2025-03-04T09:05", "2025-02-30T10:00", "2025-03-04T24:00", "2025-03-04T23:60",
+        "2025-03-04T9:05", "2025-03-04 09:05", "0000-03-04T09:05", "2025-03-04T09:05:00", "2025-03-04"};
+    for (String dateTime : dateTimes) {
+      assertEquals(dateTime, outcome(() -> LocalDateTime.parse(dateTime, DATE_TIME)),
+              outcome(() -> FixedDateParser.parseDateTime(dateTime)));
+      String csv = dateTime.replace('T', ' ');
+      assertEquals(csv, outcome(() -> LocalDateTime.parse(csv, CSV_DATE_TIME)),
+              outcome(() -> FixedDateParser.parseCsvDateTime(csv)));
+    }
+    String[] usDates = {"03/04/2025", "02/29/2025", "13/01/2025", "00/01/2025", "03/04/0000", "3/4/2025",
+        "03-04-2025"};
+    for (String usDate : usDates) {
+      assertEquals(usDate, outcome(() -> LocalDate.parse(usDate, US_DATE)),
+              outcome(() -> FixedDateParser.parseUsDate(usDate)));
+    }
+    String[] times = {"01:00 AM", "12:00 AM", "12:59 PM", "00:30 AM", "13:00 PM", "09:60 AM", "09:00 am",
+        "9:00 AM", "09:00AM", "09:00 XM"};
+    for (String time : times) {
+      assertEquals(time, outcome(() -> LocalTime.parse(time, CLOCK_TIME)),
+              outcome(() -> FixedDateParser.parseClockTime(time)));
+    }
+  }
+}
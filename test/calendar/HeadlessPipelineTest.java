@@ -0,0 +1,74 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+public class HeadlessPipelineTest {
+
+  private String run(String... args) {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(baos));
+    try {
+      CalendarApp.main(args);
+    } finally {
+      System.setOut(originalOut);
+    }
+    return baos.toString();
+  }
+
+  private File script(String... lines) throws Exception {
+    File file = File.createTempFile("commands", ".txt");
+    try (PrintWriter writer = new PrintWriter(file)) {
+      for (String line : lines) {
+        writer.println(line);
+      }
+    }
+    return file;
+  }
+
+  private void assertSameAsSequential(File file) {
+    String sequential = run("--mode", "headless", file.getPath());
+    for (String threads : new String[]{"1", "3"}) {
+      assertEquals(sequential, run("--mode", "headless", file.getPath(), "--pipeline", "--parse-threads", threads));
+    }
+  }
+
+  @Test
+  public void testPipeline_MatchesSequentialAcrossChunks() throws Exception {
+    String[] lines = new String[HeadlessPipeline.CHUNK_SIZE * 3 + 7];
+    for (int i = 0; i < lines.length - 2; i++) {
+      lines[i] = String.format("create event E%d from 2025-03-%02dT%02d:00 to 2025-03-%02dT%02d:30",
+              i, 1 + i % 28, i % 24, 1 + i % 28, i % 24);
+    }
+    lines[lines.length - 2] = "print events on 2025-03-05";
+    lines[lines.length - 1] = "edit events location E5 with Hall";
+    File file = script(lines);
+    assertSameAsSequential(file);
+    file.delete();
+  }
+
+  @Test
+  public void testPipeline_StopsAtFirstErrorAndExit() throws Exception {
+    File withError = script("create event A on 2025-03-05", "create event B from bad to worse",
+            "create event C on 2025-03-06");
+    File withExit = script("create event A on 2025-03-05", "Exit", "create event C on 2025-03-06");
+    File missingImport = script("import cal /nonexistent/events.csv", "create event C on 2025-03-06");
+    assertSameAsSequential(withError);
+    assertSameAsSequential(withExit);
+    assertSameAsSequential(missingImport);
+    assertTrue(run("--mode", "headless", withError.getPath(), "--pipeline").contains("Command error: "));
+    withError.delete();
+    withExit.delete();
+    missingImport.delete();
+  }
+
+  @Test
+  public void testPipeline_ReportsMissingFile() {
+    assertTrue(run("--mode", "headless", "nonexistent_file.txt", "--pipeline").startsWith("Error reading file:"));
+  }
+}
@@ -0,0 +1,185 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class IcsImporterTest {
+
+  private static String calendar(String... lines) {
+    return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("\r\n", lines) + "\r\nEND:VCALENDAR\r\n";
+  }
+
+  private List<String> describe(CalendarManager calendar) {
+    List<String> result = new ArrayList<>();
+    for (CalendarEvent e : calendar.getAllEvents()) {
+      result.add(e + " " + e.getStart() + " " + e.getEnd() + " " + e.getDescription());
+    }
+    return result;
+  }
+
+  @Test
+  public void testImport_KeepsSeriesAsRule() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    IcsImporter importer = new IcsImporter(false, true, false);
+    int imported = importer.importFrom(new StringReader(calendar(
+            "BEGIN:VEVENT", "UID:a", "DTSTART;TZID=Europe/Paris:20250303T090000", "DTEND:20250303T091500",
+            "RRULE:FREQ=WEEKLY;BYDAY=MO,WE;COUNT=1000", "EXDATE:20250305T090000",
+            "SUMMARY:Stand\\, up", "BEGIN:VALARM", "TRIGGER:-PT5M", "END:VALARM", "END:VEVENT")), calendar);
+    assertEquals(0, imported);
+    assertEquals(1, importer.seriesCount());
+    RecurringSeries series = calendar.allSeries().get(0);
+    assertEquals(999, series.count());
+    assertEquals("Stand, up", series.getEventName());
+    assertTrue(calendar.getEventsOn(LocalDate.of(2025, 3, 5)).isEmpty());
+    assertEquals(1, calendar.getEventsOn(LocalDate.of(2025, 3, 10)).size());
+  }
+
+  @Test
+  public void testImport_UntilDailyAndAllDay() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    new IcsImporter(false, true, false).importFrom(new StringReader(calendar(
+            "BEGIN:VEVENT", "UID:a", "DTSTART:20250303T100000", "DURATION:PT30M",
+            "RRULE:FREQ=DAILY;UNTIL=20250305T090000Z", "SUMMARY:Daily", "END:VEVENT",
+            "BEGIN:VEVENT", "UID:b", "DTSTART;VALUE=DATE:20250310", "SUMMARY:Off",
+            "DESCRIPTION:long", " er text", "CLASS:PRIVATE", "END:VEVENT")), calendar);
+    assertEquals(2, calendar.allSeries().get(0).count());
+    CalendarEvent off = calendar.getEventsOn(LocalDate.of(2025, 3, 10)).get(0);
+    assertTrue(off.isAllDay());
+    assertEquals(LocalDateTime.of(2025, 3, 11, 0, 0), off.getEnd());
+    assertEquals("longer text", off.getDescription());
+    assertFalse(off.isPublic());
+  }
+
+  @Test
+  public void testImport_OverrideBecomesDetachedOccurrence() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    int imported = new IcsImporter(false, true, false).importFrom(new StringReader(calendar(
+            "BEGIN:VEVENT", "UID:a", "RECURRENCE-ID:20250305T090000", "DTSTART:20250305T093000",
+            "DTEND:20250305T094500", "SUMMARY:Standup", "LOCATION:Hall", "END:VEVENT",
+            "BEGIN:VEVENT", "UID:a", "DTSTART:20250303T090000", "DTEND:20250303T091500",
+            "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=6", "SUMMARY:Standup", "END:VEVENT")), calendar);
+    assertEquals(1, imported);
+    List<CalendarEvent> moved = calendar.getEventsOn(LocalDate.of(2025, 3, 5));
+    assertEquals(1, moved.size());
+    assertEquals("Hall", moved.get(0).getLocation());
+    assertEquals(LocalDateTime.of(2025, 3, 5, 9, 30), moved.get(0).getStart());
+    assertEquals(6, calendar.getAllEvents().size());
+  }
+
+  @Test
+  public void testImport_UnsupportedRuleLeavesCalendarUnchanged() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    try {
+      new IcsImporter(false, true, false).importFrom(new StringReader(calendar(
+              "BEGIN:VEVENT", "DTSTART:20250303T090000", "SUMMARY:One", "END:VEVENT",
+              "BEGIN:VEVENT", "DTSTART:20250303T090000", "RRULE:FREQ=MONTHLY;COUNT=3",
+              "SUMMARY:Monthly", "END:VEVENT")), calendar);
+      fail("Expected an exception");
+    } catch (Exception e) {
+      assertEquals("Invalid event at line 7: unsupported RRULE frequency MONTHLY.", e.getMessage());
+    }
+    assertTrue(calendar.isEmpty());
+  }
+
+  @Test
+  public void testImport_DedupSkipsEventsAndSeriesAlreadyPresent() throws Exception {
+    String ics = calendar("BEGIN:VEVENT", "UID:a", "DTSTART:20250303T090000", "DTEND:20250303T091500",
+            "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=6", "SUMMARY:Standup", "END:VEVENT",
+            "BEGIN:VEVENT", "UID:b", "DTSTART:20250304T140000", "DTEND:20250304T150000",
+            "SUMMARY:Review", "END:VEVENT",
+            "BEGIN:VEVENT", "UID:c", "DTSTART:20250304T140000", "DTEND:20250304T150000",
+            "SUMMARY:Review", "END:VEVENT");
+    CalendarManager calendar = new CalendarManager();
+    IcsImporter importer = new IcsImporter(true, true, false);
+    assertEquals(1, importer.importFrom(new StringReader(ics), calendar));
+    assertEquals(1, importer.skipped());
+    assertEquals(0, importer.importFrom(new StringReader(ics), calendar) + importer.seriesCount());
+    assertEquals(3, importer.skipped());
+    assertEquals(7, calendar.getAllEvents().size());
+  }
+
+  @Test
+  public void testImport_AutoDeclineRejectsWholeFile() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(new CalendarEvent("Busy", LocalDateTime.of(2025, 3, 7, 9, 0),
+            LocalDateTime.of(2025, 3, 7, 10, 0), false), false);
+    try {
+      new IcsImporter(false, true, true).importFrom(new StringReader(calendar(
+              "BEGIN:VEVENT", "UID:b", "DTSTART:20250304T140000", "DTEND:20250304T150000",
+              "SUMMARY:Review", "END:VEVENT",
+              "BEGIN:VEVENT", "UID:a", "DTSTART:20250303T090000", "DTEND:20250303T091500",
+              "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=6", "SUMMARY:Standup", "END:VEVENT")), calendar);
+      fail("Expected an exception");
+    } catch (Exception e) {
+      assertEquals("Conflict detected with event: Busy", e.getMessage());
+    }
+    assertEquals(1, calendar.getAllEvents().size());
+  }
+
+  @Test
+  public void testRoundTrip_ThroughFile() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(new CalendarEvent("Review", LocalDateTime.of(2025, 3, 4, 14, 0),
+            LocalDateTime.of(2025, 3, 4, 15, 0), false), false);
+    calendar.addSeries(RecurringEventGenerator.generateSeries("Gym", LocalDateTime.of(2025, 3, 1, 0, 0),
+            LocalDateTime.of(2025, 3, 2, 0, 0), "SU until 2025-04-30", true), false);
+    calendar.addSeries(RecurringEventGenerator.generateSeries("Standup", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 9, 15), "MWF for 12 times", false), false);
+    calendar.editSingleEvent("description", "Standup", LocalDateTime.of(2025, 3, 5, 9, 0),
+            LocalDateTime.of(2025, 3, 5, 9, 15), "Moved, then; back\\");
+    calendar.editEventsByStart("location", "Standup", LocalDateTime.of(2025, 3, 12, 9, 0), "Hall");
+    File file = File.createTempFile("calendar", ".ics");
+    try {
+      IcsWriter.write(calendar, file.getPath());
+      CalendarManager loaded = new CalendarManager();
+      IcsImporter importer = new IcsImporter(false, false, false);
+      assertEquals(2, importer.importFile(file.getPath(), loaded));
+      assertEquals(3, importer.seriesCount());
+      assertEquals(describe(calendar), describe(loaded));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testImportedExclusions_SurviveSnapshotAndJournal() throws Exception {
+    String ics = calendar("BEGIN:VEVENT", "UID:a", "DTSTART:20250303T090000", "DTEND:20250303T091500",
+            "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=6", "EXDATE:20250305T090000,20250307T090000",
+            "SUMMARY:Standup", "END:VEVENT");
+    File snapshot = File.createTempFile("calendar", ".snapshot");
+    File journalFile = File.createTempFile("calendar", ".journal");
+    try {
+      CalendarManager calendar = new CalendarManager();
+      CommandJournal journal = CommandJournal.open(journalFile.getPath(), CommandJournal.SyncPolicy.NEVER, 1);
+      calendar.attachJournal(journal);
+      new IcsImporter(false, true, false).importFrom(new StringReader(ics), calendar);
+      journal.close();
+      assertEquals(4, calendar.getAllEvents().size());
+
+      CalendarSnapshot.write(calendar, snapshot.getPath());
+      CalendarManager fromSnapshot = new CalendarManager();
+      CalendarSnapshot.load(snapshot.getPath(), fromSnapshot);
+      assertEquals(describe(calendar), describe(fromSnapshot));
+
+      CalendarManager replayed = new CalendarManager();
+      try (CommandJournal reopened = CommandJournal.open(journalFile.getPath(), CommandJournal.SyncPolicy.NEVER, 1)) {
+        replayed.attachJournal(reopened);
+      }
+      assertEquals(describe(calendar), describe(replayed));
+
+      StringWriter out = new StringWriter();
+      new IcsWriter(out).writeCalendar(replayed);
+      assertTrue(out.toString().contains("EXDATE:20250307T090000\r\n"));
+    } finally {
+      snapshot.delete();
+      journalFile.delete();
+    }
+  }
+}
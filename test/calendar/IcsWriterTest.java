@@ -0,0 +1,72 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class IcsWriterTest {
+
+  private String write(CalendarManager calendar) throws Exception {
+    StringWriter out = new StringWriter();
+    new IcsWriter(out).writeCalendar(calendar);
+    return out.toString();
+  }
+
+  private RecurringSeries standup() throws Exception {
+    return RecurringEventGenerator.generateSeries("Standup", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 9, 15), "MWF for 300 times", false);
+  }
+
+  @Test
+  public void testSeries_WrittenAsOneRule() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addSeries(standup(), false);
+    String ics = write(calendar);
+    assertEquals(1, ics.split("BEGIN:VEVENT", -1).length - 1);
+    assertTrue(ics.contains("DTSTART:20250303T090000\r\nDTEND:20250303T091500\r\n"));
+    assertTrue(ics.contains("RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;UNTIL=20270129T090000\r\n"));
+  }
+
+  @Test
+  public void testDetachedOccurrence_WrittenAsOverride() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    RecurringSeries series = standup();
+    series.exclude(LocalDate.of(2025, 3, 7));
+    calendar.addSeries(series, false);
+    calendar.editSingleEvent("location", "Standup", LocalDateTime.of(2025, 3, 5, 9, 0),
+            LocalDateTime.of(2025, 3, 5, 9, 15), "Hall");
+    String ics = write(calendar);
+    assertTrue(ics.contains("UID:0-20250303@calendar\r\nRECURRENCE-ID:20250305T090000\r\n"));
+    assertTrue(ics.contains("LOCATION:Hall\r\n"));
+    assertTrue(ics.contains("EXDATE:20250307T090000\r\n"));
+    assertFalse(ics.contains("EXDATE:20250305"));
+  }
+
+  @Test
+  public void testText_EscapedAndFolded() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    CalendarEvent event = new CalendarEvent("Plan; review, \\ wrap", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 10, 0), false);
+    event.setDescription("line one\n" + "x".repeat(100));
+    event.setPublic(false);
+    calendar.addEvent(event, false);
+    String ics = write(calendar);
+    assertTrue(ics.contains("SUMMARY:Plan\\; review\\, \\\\ wrap\r\n"));
+    assertTrue(ics.contains("DESCRIPTION:line one\\n" + "x".repeat(53) + "\r\n " + "x".repeat(47) + "\r\n"));
+    assertTrue(ics.contains("CLASS:PRIVATE\r\n"));
+    for (String line : ics.split("\r\n")) {
+      assertTrue(line.length() <= 75);
+    }
+  }
+
+  @Test
+  public void testAllDayEvent_UsesExclusiveEndDate() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(new CalendarEvent("Holiday", LocalDateTime.of(2025, 3, 20, 0, 0),
+            LocalDateTime.of(2025, 3, 21, 0, 0), true), false);
+    String ics = write(calendar);
+    assertTrue(ics.contains("DTSTART;VALUE=DATE:20250320\r\nDTEND;VALUE=DATE:20250321\r\n"));
+  }
+}
@@ -0,0 +1,291 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MappedEventStoreTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("events", ".store");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+    new File(file.getPath() + ".strings").delete();
+  }
+
+  private CalendarEvent event(String name, int day, int startHour, int endHour) {
+    return new CalendarEvent(name, LocalDateTime.of(2025, 3, day, startHour, 0),
+            LocalDateTime.of(2025, 3, day, endHour, 0), false);
+  }
+
+  private List<String> describe(List<CalendarEvent> events) {
+    List<String> result = new ArrayList<>();
+    for (CalendarEvent e : events) {
+      result.add(e.getEventName() + " " + e.getStart() + " " + e.getEnd() + " " + e.getDescription()
+              + " " + e.getLocation() + " " + e.isPublic());
+    }
+    return result;
+  }
+
+  @Test
+  public void testAppendAndReopen_RoundTripsEveryField() throws Exception {
+    CalendarEvent meeting = event("Meeting", 3, 9, 10);
+    meeting.setDescription("Weekly sync");
+    meeting.setLocation("Room \u00fc");
+    meeting.setPublic(false);
+    meeting.setSequence(7);
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      assertEquals(0, store.append(meeting));
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      assertEquals(1, store.size());
+      CalendarEvent loaded = store.eventAt(0);
+      assertEquals(describe(List.of(meeting)), describe(List.of(loaded)));
+      assertEquals(7, loaded.getSequence());
+      assertFalse(store.isSeries(0));
+    }
+  }
+
+  @Test
+  public void testAppend_GrowsPastInitialMapping() throws Exception {
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      for (int i = 0; i < 5000; i++) {
+        CalendarEvent e = event("Event" + i, 1 + i % 28, 9, 10);
+        e.setDescription("A longer description to fill the string area " + i);
+        store.append(e);
+      }
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      assertEquals(5000, store.size());
+      assertEquals("Event4999", store.eventAt(4999).getEventName());
+      assertEquals("A longer description to fill the string area 4999", store.eventAt(4999).getDescription());
+    }
+  }
+
+  @Test
+  public void testScans_ReadMappedFields() throws Exception {
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      store.append(event("Morning", 3, 9, 10));
+      store.append(event("Noon", 3, 12, 13));
+      store.append(event("Tomorrow", 4, 9, 10));
+      assertEquals(List.of("Noon"), names(store, store.findOverlapping(LocalDateTime.of(2025, 3, 3, 10, 0),
+              LocalDateTime.of(2025, 3, 3, 12, 30))));
+      assertEquals(List.of("Morning", "Noon"), names(store, store.findOn(LocalDate.of(2025, 3, 3))));
+      assertEquals(List.of("Tomorrow"), names(store, store.findNamed("Tomorrow")));
+      assertTrue(store.isBusyAt(LocalDateTime.of(2025, 3, 3, 9, 59, 30)));
+      assertFalse(store.isBusyAt(LocalDateTime.of(2025, 3, 3, 10, 0)));
+      assertTrue(store.isBusyAt(LocalDateTime.of(2025, 3, 4, 9, 0)));
+    }
+  }
+
+  @Test
+  public void testUpdate_RewritesChangedProperties() throws Exception {
+    CalendarEvent e = event("Meeting", 3, 9, 10);
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      store.append(e);
+      e.setEventName("Standup");
+      e.setLocation("Hall");
+      e.setPublic(false);
+      store.update(0, e);
+      assertEquals(describe(List.of(e)), describe(List.of(store.eventAt(0))));
+    }
+  }
+
+  @Test
+  public void testAttachStore_ReloadsCalendarWithSeriesEdits() throws Exception {
+    List<String> expected;
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachStore(store);
+      calendar.addEvent(event("Lunch", 3, 12, 13), false);
+      calendar.addSeries(RecurringEventGenerator.generateSeries("Standup",
+              LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 3, 9, 15),
+              "MWF for 6 times", false), false);
+      calendar.editSingleEvent("location", "Standup", LocalDateTime.of(2025, 3, 5, 9, 0),
+              LocalDateTime.of(2025, 3, 5, 9, 15), "Hall");
+      calendar.editEventsByStart("description", "Standup", LocalDateTime.of(2025, 3, 10, 9, 0), "Later");
+      calendar.editEventsByName("name", "Lunch", "Brunch");
+      expected = describe(calendar.getAllEvents());
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager reloaded = new CalendarManager();
+      reloaded.attachStore(store);
+      assertEquals(expected, describe(reloaded.getAllEvents()));
+      assertTrue(reloaded.isBusyAt(LocalDateTime.of(2025, 3, 12, 9, 5)));
+    }
+  }
+
+  @Test
+  public void testAppendSeries_KeepsExcludedDates() throws Exception {
+    RecurringSeries series = RecurringEventGenerator.generateSeries("Standup",
+            LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 3, 9, 15), "MWF for 6 times", false);
+    series.exclude(LocalDate.of(2025, 3, 5));
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachStore(store);
+      calendar.addSeries(series, false);
+      assertEquals(2, store.size());
+      assertTrue(store.isExclusion(1));
+      assertEquals(0, store.findOverlapping(LocalDateTime.of(1960, 1, 1, 0, 0), LocalDateTime.of(2030, 1, 1, 0, 0)).length);
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager reloaded = new CalendarManager();
+      reloaded.attachStore(store);
+      assertEquals(5, reloaded.getAllEvents().size());
+      assertFalse(reloaded.isBusyAt(LocalDateTime.of(2025, 3, 5, 9, 5)));
+    }
+  }
+
+  @Test(expected = Exception.class)
+  public void testAttachStore_RejectsNonEmptyCalendar() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    calendar.addEvent(event("Lunch", 3, 12, 13), false);
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      calendar.attachStore(store);
+    }
+  }
+
+  @Test
+  public void testReopen_KeepsTimesWithinAMinute() throws Exception {
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0, 30);
+    LocalDateTime end = LocalDateTime.of(2025, 1, 1, 9, 0, 45);
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachStore(store);
+      calendar.addEvent(new CalendarEvent("Ping", start, end, false), false);
+      // Same minute, earlier second, later sequence: calendar order puts it first.
+      calendar.addEvent(new CalendarEvent("Early", LocalDateTime.of(2025, 1, 1, 9, 0, 10),
+              LocalDateTime.of(2025, 1, 1, 9, 0, 20), false), false);
+      calendar.addSeries(RecurringEventGenerator.generateSeries("Tick", LocalDateTime.of(2025, 1, 2, 9, 0, 5),
+              LocalDateTime.of(2025, 1, 2, 9, 0, 50), "MTWRFSU for 2 times", false), false);
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachStore(store);
+      List<CalendarEvent> all = calendar.getAllEvents();
+      assertEquals("Early", all.get(0).getEventName());
+      assertEquals(start, all.get(1).getStart());
+      assertEquals(end, all.get(1).getEnd());
+      assertEquals(LocalDateTime.of(2025, 1, 3, 9, 0, 50), all.get(3).getEnd());
+      assertTrue(calendar.isBusyAt(LocalDateTime.of(2025, 1, 1, 9, 0, 40)));
+      assertFalse(calendar.isBusyAt(LocalDateTime.of(2025, 1, 1, 9, 0, 50)));
+      assertFalse(calendar.isBusyAt(LocalDateTime.of(2025, 1, 1, 9, 0, 25)));
+      assertEquals(List.of("Ping"), names(store, store.findOverlapping(LocalDateTime.of(2025, 1, 1, 9, 0, 40),
+              LocalDateTime.of(2025, 1, 1, 9, 1))));
+      assertEquals(0, store.findOverlapping(LocalDateTime.of(2025, 1, 1, 9, 0, 45),
+              LocalDateTime.of(2025, 1, 1, 9, 1)).length);
+      assertTrue(calendar.editSingleEvent("location", "Ping", start, end, "Hall"));
+      assertEquals("Hall", calendar.getEventsOn(start.toLocalDate()).get(1).getLocation());
+      assertEquals(start, calendar.getEventsOn(start.toLocalDate()).get(1).getStart());
+    }
+  }
+
+  @Test
+  public void testSegments_RecordsSpanSeveralMappings() throws Exception {
+    // 4 KB segments hold 64 records each, so 1000 records need 16 of them.
+    try (MappedEventStore store = MappedEventStore.open(file.getPath(), 4096)) {
+      for (int i = 0; i < 1000; i++) {
+        store.append(event("Event" + i, 1 + i % 28, 9 + i % 12, 10 + i % 12));
+      }
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath(), 4096)) {
+      assertEquals(1000, store.size());
+      for (int i = 0; i < 1000; i++) {
+        assertEquals("Event" + i, store.eventAt(i).getEventName());
+      }
+      assertEquals(1000, store.allEvents().length);
+      assertEquals(List.of("Event999"), names(store, store.findNamed("Event999")));
+    }
+  }
+
+  @Test
+  public void testUpdate_ReusesAndCompactsStrings() throws Exception {
+    CalendarEvent e = event("Meeting", 3, 9, 10);
+    e.setDescription("A fairly long description");
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      store.append(e);
+      store.append(event("Other", 4, 9, 10));
+      int used = store.stringBytes();
+      e.setDescription("Shorter");
+      store.update(0, e);
+      assertEquals(used, store.stringBytes());
+      e.setDescription("A description longer than the first one was");
+      store.update(0, e);
+      assertTrue(store.stringBytes() > used);
+      store.compactStrings();
+      int live = 4 + "Meeting".length() + 4 + e.getDescription().length() + 4 + "Other".length();
+      assertEquals(live, store.stringBytes());
+      assertEquals(describe(List.of(e)), describe(List.of(store.eventAt(0))));
+      assertEquals("Other", store.eventAt(1).getEventName());
+    }
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      assertEquals(describe(List.of(e)), describe(List.of(store.eventAt(0))));
+    }
+  }
+
+  @Test
+  public void testAttachStore_AnswersLikeHeapCalendar() throws Exception {
+    try (MappedEventStore store = MappedEventStore.open(file.getPath())) {
+      CalendarManager stored = new CalendarManager();
+      stored.attachStore(store);
+      CalendarManager heap = new CalendarManager();
+      Random random = new Random(7);
+      for (int i = 0; i < 300; i++) {
+        int day = 1 + random.nextInt(28);
+        int hour = random.nextInt(22);
+        // Every third timed event starts and ends within a minute.
+        LocalDateTime start = LocalDateTime.of(2025, 3, day, hour, 0).plusSeconds(i % 3 == 0 ? random.nextInt(60) : 0);
+        CalendarEvent e = new CalendarEvent("Event" + random.nextInt(20), start,
+                start.plusMinutes(15 + random.nextInt(3000)).plusSeconds(i % 3 == 0 ? random.nextInt(60) : 0),
+                i % 10 == 0);
+        CalendarEvent copy = new CalendarEvent(e.getEventName(), e.getStart(), e.getEnd(), e.isAllDay());
+        assertEquals(added(heap, copy), added(stored, e));
+      }
+      heap.editEventsByName("location", "Event3", "Hall");
+      stored.editEventsByName("location", "Event3", "Hall");
+      heap.editEventsByStart("name", "Event4", LocalDateTime.of(2025, 3, 15, 0, 0), "Event5");
+      stored.editEventsByStart("name", "Event4", LocalDateTime.of(2025, 3, 15, 0, 0), "Event5");
+      assertEquals(describe(heap.getAllEvents()), describe(stored.getAllEvents()));
+      for (int day = 1; day <= 28; day++) {
+        LocalDate date = LocalDate.of(2025, 3, day);
+        assertEquals(describe(heap.getEventsOn(date)), describe(stored.getEventsOn(date)));
+        assertEquals(describe(heap.getEventsInRange(date.atTime(10, 0), date.atTime(14, 30))),
+                describe(stored.getEventsInRange(date.atTime(10, 0), date.atTime(14, 30))));
+        assertEquals(heap.isBusyAt(date.atTime(12, 0)), stored.isBusyAt(date.atTime(12, 0)));
+        assertEquals(describe(heap.getEventsInRange(date.atTime(9, 0, 30), date.atTime(9, 0, 40))),
+                describe(stored.getEventsInRange(date.atTime(9, 0, 30), date.atTime(9, 0, 40))));
+        assertEquals(heap.isBusyAt(date.atTime(12, 0, 20)), stored.isBusyAt(date.atTime(12, 0, 20)));
+      }
+    }
+  }
+
+  private boolean added(CalendarManager calendar, CalendarEvent e) {
+    try {
+      calendar.addEvent(e, true);
+      return true;
+    } catch (Exception declined) {
+      return false;
+    }
+  }
+
+  private List<String> names(MappedEventStore store, int[] records) {
+    List<String> result = new ArrayList<>();
+    for (int record : records) {
+      result.add(store.eventAt(record).getEventName());
+    }
+    return result;
+  }
+}
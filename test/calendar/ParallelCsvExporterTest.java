@@ -0,0 +1,79 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelCsvExporterTest {
+  private File sequential;
+  private File parallel;
+
+  @Before
+  public void setUp() throws Exception {
+    sequential = File.createTempFile("sequential", ".csv");
+    parallel = File.createTempFile("parallel", ".csv");
+  }
+
+  @After
+  public void tearDown() {
+    sequential.delete();
+    parallel.delete();
+  }
+
+  private CalendarManager largeCalendar() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    List<CalendarEvent> batch = new ArrayList<>();
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < ParallelCsvExporter.CHUNK_SIZE * 3 + 17; i++) {
+      LocalDateTime start = base.plusMinutes(i * 45L);
+      CalendarEvent e = new CalendarEvent("Event \"" + i + "\"", start, start.plusMinutes(30), i % 50 == 0);
+      e.setDescription("Caf\u00e9 " + i);
+      e.setPublic(i % 3 != 0);
+      batch.add(e);
+    }
+    calendar.addEvents(batch, false);
+    calendar.addSeries(RecurringEventGenerator.generateSeries("Standup",
+            LocalDateTime.of(2025, 1, 6, 9, 0), LocalDateTime.of(2025, 1, 6, 9, 15),
+            "MTWRF for 300 times", false), false);
+    return calendar;
+  }
+
+  @Test
+  public void testWrite_MatchesSequentialExportByteForByte() throws Exception {
+    CalendarManager calendar = largeCalendar();
+    ParallelCsvExporter exporter = new ParallelCsvExporter(new ForkJoinPool(4));
+    for (CsvFormat format : CsvFormat.values()) {
+      calendar.setParallelExport(false);
+      if (format == CsvFormat.CAL) {
+        calendar.exportToCSV(sequential.getPath());
+      } else {
+        calendar.exportToGoogleCSV(sequential.getPath());
+      }
+      exporter.write(parallel.getPath(), format, calendar.getAllEvents());
+      assertArrayEquals(Files.readAllBytes(sequential.toPath()), Files.readAllBytes(parallel.toPath()));
+    }
+  }
+
+  @Test
+  public void testSetParallelExport_SameOutputThroughManager() throws Exception {
+    CalendarManager calendar = largeCalendar();
+    calendar.exportToGoogleCSV(sequential.getPath());
+    calendar.setParallelExport(true);
+    calendar.exportToGoogleCSV(parallel.getPath());
+    assertArrayEquals(Files.readAllBytes(sequential.toPath()), Files.readAllBytes(parallel.toPath()));
+  }
+
+  @Test
+  public void testWrite_EmptyCalendarWritesHeaderOnly() throws Exception {
+    new ParallelCsvExporter(ForkJoinPool.commonPool()).write(parallel.getPath(), CsvFormat.CAL,
+            new ArrayList<>());
+    assertEquals(CsvFormat.CAL.header(), new String(Files.readAllBytes(parallel.toPath())));
+  }
+}
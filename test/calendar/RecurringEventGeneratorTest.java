@@ -143,4 +143,55 @@ public class RecurringEventGeneratorTest {
     // This should trigger the defensive check.
     RecurringEventGenerator.generateRecurringEvents("TestEvent", start, end, "   ", false);
   }
+
+  @Test
+  public void testWeekdayMask() throws Exception {
+    assertEquals(0b0010101, RecurringEventGenerator.weekdayMask("MWF"));
+    assertEquals(0b1111111, RecurringEventGenerator.weekdayMask("mtwrfsu"));
+    assertTrue(RecurringEventGenerator.isRecurringDay(DayOfWeek.SUNDAY, RecurringEventGenerator.weekdayMask("U")));
+    assertFalse(RecurringEventGenerator.isRecurringDay(DayOfWeek.SATURDAY, RecurringEventGenerator.weekdayMask("U")));
+  }
+
+  @Test(expected = Exception.class)
+  public void testGenerateRecurringEvents_UnknownWeekdayRejected() throws Exception {
+    LocalDateTime start = LocalDateTime.of(2025, 3, 3, 9, 0);
+    // Previously looped forever: no day ever matched, so 3 occurrences were never found.
+    RecurringEventGenerator.generateRecurringEvents("TestEvent", start, start.plusHours(1), "X for 3 times", false);
+  }
+
+  @Test
+  public void testNextAndNthRecurringDate() throws Exception {
+    int mwf = RecurringEventGenerator.weekdayMask("MWF");
+    LocalDate saturday = LocalDate.of(2025, 3, 8);
+    assertEquals(LocalDate.of(2025, 3, 10), RecurringEventGenerator.nextRecurringDate(saturday, mwf));
+    assertEquals(LocalDate.of(2025, 3, 12), RecurringEventGenerator.nextRecurringDate(LocalDate.of(2025, 3, 11), mwf));
+    assertEquals(LocalDate.of(2025, 3, 10), RecurringEventGenerator.nthRecurringDate(saturday, mwf, 1));
+    assertEquals(LocalDate.of(2025, 3, 14), RecurringEventGenerator.nthRecurringDate(saturday, mwf, 3));
+    assertEquals(LocalDate.of(2025, 3, 17), RecurringEventGenerator.nthRecurringDate(saturday, mwf, 4));
+  }
+
+  @Test
+  public void testCountRecurringDays_MatchesDayByDay() throws Exception {
+    int mask = RecurringEventGenerator.weekdayMask("TRS");
+    LocalDate from = LocalDate.of(2025, 3, 5);
+    for (int length = 0; length < 30; length++) {
+      LocalDate to = from.plusDays(length - 1);
+      int expected = 0;
+      for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+        if (RecurringEventGenerator.isRecurringDay(d.getDayOfWeek(), "TRS")) {
+          expected++;
+        }
+      }
+      assertEquals(expected, RecurringEventGenerator.countRecurringDays(from, to, mask));
+    }
+  }
+
+  @Test
+  public void testGenerateSeries_LongHorizonCount() throws Exception {
+    LocalDateTime start = LocalDateTime.of(2024, 12, 30, 9, 0); // Monday
+    RecurringSeries series = RecurringEventGenerator.generateSeries("Standup", start, start.plusMinutes(15),
+            "MTWRF for 100000 times", false);
+    assertEquals(100000, series.count());
+    assertEquals(DayOfWeek.FRIDAY, series.getLastDate().getDayOfWeek());
+  }
 }
@@ -0,0 +1,108 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RecurringSeriesTest {
+
+  // Mondays, Wednesdays and Fridays from Monday 2025-03-03 through Friday 2025-03-14.
+  private RecurringSeries mwfSeries() {
+    CalendarEvent template = new CalendarEvent("Class", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 10, 0), false);
+    return new RecurringSeries(template, 0b10101, LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 14));
+  }
+
+  @Test
+  public void testOccursOnAndCount() {
+    RecurringSeries series = mwfSeries();
+    assertEquals(6, series.count());
+    assertTrue(series.occursOn(LocalDate.of(2025, 3, 5)));
+    assertFalse(series.occursOn(LocalDate.of(2025, 3, 4)));
+    assertFalse(series.occursOn(LocalDate.of(2025, 3, 17)));
+  }
+
+  @Test
+  public void testIteratorBuildsOccurrencesInOrder() {
+    List<LocalDateTime> starts = new ArrayList<>();
+    for (CalendarEvent occurrence : mwfSeries()) {
+      assertEquals("Class", occurrence.getEventName());
+      starts.add(occurrence.getStart());
+    }
+    assertEquals(6, starts.size());
+    assertEquals(LocalDateTime.of(2025, 3, 3, 9, 0), starts.get(0));
+    assertEquals(LocalDateTime.of(2025, 3, 14, 9, 0), starts.get(5));
+  }
+
+  @Test
+  public void testFindOverlappingAndBusy() {
+    RecurringSeries series = mwfSeries();
+    assertEquals(3, series.findOverlapping(LocalDateTime.of(2025, 3, 5, 9, 30),
+            LocalDateTime.of(2025, 3, 10, 9, 30)).size());
+    assertTrue(series.isBusyAt(LocalDateTime.of(2025, 3, 7, 9, 0)));
+    assertFalse(series.isBusyAt(LocalDateTime.of(2025, 3, 7, 10, 0)));
+    assertFalse(series.isBusyAt(LocalDateTime.of(2025, 3, 8, 9, 30)));
+  }
+
+  @Test
+  public void testExcludeAndSplit() {
+    RecurringSeries series = mwfSeries();
+    series.exclude(LocalDate.of(2025, 3, 12));
+    assertEquals(5, series.count());
+    RecurringSeries tail = series.splitAt(LocalDate.of(2025, 3, 10));
+    assertEquals(3, series.count());
+    assertEquals(2, tail.count());
+    assertFalse(tail.occursOn(LocalDate.of(2025, 3, 12)));
+    tail.getTemplate().setLocation("Lab");
+    assertEquals("", series.occurrenceOn(LocalDate.of(2025, 3, 7)).getLocation());
+    assertEquals("Lab", tail.occurrenceOn(LocalDate.of(2025, 3, 14)).getLocation());
+  }
+
+  @Test
+  public void testConflictsWith_SharedDateTimeAndExclusions() {
+    RecurringSeries series = mwfSeries();
+    // Tuesdays and Fridays from 9:30; the only shared dates are the two Fridays.
+    CalendarEvent template = new CalendarEvent("Gym", LocalDateTime.of(2025, 3, 4, 9, 30),
+            LocalDateTime.of(2025, 3, 4, 11, 0), false);
+    RecurringSeries other = new RecurringSeries(template, 0b10010, LocalDate.of(2025, 3, 4),
+            LocalDate.of(2025, 3, 31));
+    assertTrue(series.conflictsWith(other));
+    series.exclude(LocalDate.of(2025, 3, 7));
+    other.exclude(LocalDate.of(2025, 3, 14));
+    assertFalse(series.conflictsWith(other));
+    assertFalse(other.conflictsWith(series));
+    template.setStart(LocalDateTime.of(2025, 3, 4, 10, 0));
+    assertFalse(mwfSeries().conflictsWith(other));
+  }
+
+  @Test
+  public void testStream_WindowAndExclusions() {
+    RecurringSeries series = mwfSeries();
+    assertEquals(6, series.stream().count());
+    List<LocalDate> window = series.stream(LocalDate.of(2025, 3, 4), LocalDate.of(2025, 3, 10))
+            .map(e -> e.getStart().toLocalDate()).collect(Collectors.toList());
+    assertEquals(List.of(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 7), LocalDate.of(2025, 3, 10)), window);
+    series.exclude(LocalDate.of(2025, 3, 7));
+    assertEquals(2, series.stream(LocalDate.of(2025, 3, 4), LocalDate.of(2025, 3, 10)).count());
+    assertEquals(0, series.stream(LocalDate.of(2025, 3, 20), LocalDate.of(2025, 3, 30)).count());
+  }
+
+  @Test
+  public void testStream_LimitOnHugeSeriesAndParallelOrder() throws Exception {
+    RecurringSeries series = RecurringEventGenerator.generateSeries("Daily", LocalDateTime.of(2025, 1, 1, 8, 0),
+            LocalDateTime.of(2025, 1, 1, 8, 30), "MTWRFSU until 9999-12-31T00:00", false);
+    List<CalendarEvent> firstThree = series.stream().limit(3).collect(Collectors.toList());
+    assertEquals(LocalDateTime.of(2025, 1, 3, 8, 0), firstThree.get(2).getStart());
+
+    RecurringSeries bounded = RecurringEventGenerator.generateSeries("Weekdays", LocalDateTime.of(2025, 1, 1, 8, 0),
+            LocalDateTime.of(2025, 1, 1, 8, 30), "MTWRF for 5000 times", false);
+    List<LocalDateTime> sequential = bounded.stream().map(CalendarEvent::getStart).collect(Collectors.toList());
+    List<LocalDateTime> parallel = bounded.stream().parallel().map(CalendarEvent::getStart).collect(Collectors.toList());
+    assertEquals(5000, sequential.size());
+    assertEquals(sequential, parallel);
+  }
+}
@@ -0,0 +1,55 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SeriesIndexTest {
+
+  private RecurringSeries daily(String name, LocalDate first, LocalDate last) {
+    CalendarEvent template = new CalendarEvent(name, LocalDateTime.of(first, LocalTime.of(9, 0)),
+            LocalDateTime.of(first, LocalTime.of(10, 0)), false);
+    return new RecurringSeries(template, 0b1111111, first, last);
+  }
+
+  @Test
+  public void testOverlapping_MatchesLinearScanAfterSplits() {
+    Random random = new Random(7);
+    LocalDate origin = LocalDate.of(2025, 1, 1);
+    SeriesIndex index = new SeriesIndex();
+    List<RecurringSeries> all = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      LocalDate first = origin.plusDays(random.nextInt(365));
+      RecurringSeries s = daily("S" + i, first, first.plusDays(random.nextInt(120)));
+      index.add(s);
+      all.add(s);
+      if (i % 3 == 0 && s.getLastDate().isAfter(first)) {
+        RecurringSeries tail = s.splitAt(first.plusDays(1));
+        index.spanChanged(s);
+        index.add(tail);
+        all.add(tail);
+      }
+    }
+    for (int i = 0; i < all.size(); i++) {
+      assertEquals(i, index.position(all.get(i)));
+    }
+    for (int q = 0; q < 200; q++) {
+      LocalDate from = origin.plusDays(random.nextInt(500));
+      LocalDate to = from.plusDays(random.nextInt(30));
+      List<RecurringSeries> expected = new ArrayList<>();
+      for (RecurringSeries s : all) {
+        if (!s.getFirstDate().isAfter(to) && !s.getLastDate().isBefore(from)) {
+          expected.add(s);
+        }
+      }
+      List<RecurringSeries> found = index.overlapping(from, to);
+      assertEquals(expected.size(), found.size());
+      assertTrue(found.containsAll(expected));
+    }
+  }
+}
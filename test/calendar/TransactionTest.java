@@ -0,0 +1,195 @@
+package calendar;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+
+public class TransactionTest {
+
+  private String run(CalendarManager calendar, String... commands) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(baos));
+    try {
+      for (String command : commands) {
+        CommandParser.processCommand(command, calendar);
+      }
+    } finally {
+      System.setOut(originalOut);
+    }
+    return baos.toString();
+  }
+
+  @Test
+  public void testCommit_AppliesStagedCommandsAsOneAtATime() throws Exception {
+    String[] commands = {
+        "create event B from 2025-03-05T10:00 to 2025-03-05T11:00",
+        "create event A from 2025-03-05T10:30 to 2025-03-05T11:30",
+        "edit events name A with C",
+        "create event D from 2025-03-05T10:00 to 2025-03-05T10:45",
+        "create event Gym on 2025-03-03 repeats MW for 2 times"};
+    CalendarManager sequential = new CalendarManager();
+    String expected = run(sequential, commands);
+
+    CalendarManager batched = new CalendarManager();
+    run(batched, "begin");
+    assertEquals("", run(batched, commands));
+    assertTrue(batched.getAllEvents().isEmpty());
+    String output = run(batched, "commit");
+
+    assertEquals(expected + "Transaction committed: 5 command(s) applied." + System.lineSeparator(), output);
+    assertEquals(sequential.getAllEvents().toString(), batched.getAllEvents().toString());
+    assertNull(batched.openTransaction());
+  }
+
+  @Test
+  public void testCommit_DeclinedConflictAppliesNothing() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    run(calendar, "create event Existing from 2025-03-05T09:00 to 2025-03-05T10:00", "begin",
+            "create event New from 2025-03-06T09:00 to 2025-03-06T10:00",
+            "edit events name Existing with Renamed",
+            "create event Late from 2025-03-06T09:30 to 2025-03-06T10:30 --autodecline");
+    try {
+      run(calendar, "commit");
+      fail("Expected the transaction to be rolled back");
+    } catch (Exception e) {
+      assertEquals("Transaction rolled back: Conflict detected with event: New", e.getMessage());
+    }
+    assertEquals(1, calendar.getAllEvents().size());
+    assertEquals("Existing", calendar.getAllEvents().get(0).getEventName());
+    assertNull(calendar.openTransaction());
+  }
+
+  @Test
+  public void testCommit_DeclinesConflictsBetweenStagedSeries() throws Exception {
+    String[][] cases = {
+        {"create event Gym from 2025-03-03T09:00 to 2025-03-03T10:00 repeats MW for 4 times",
+            "create event Class from 2025-03-07T09:30 to 2025-03-07T10:30 repeats MF for 3 times --autodecline"},
+        {"create event Gym from 2025-03-03T09:00 to 2025-03-03T10:00 repeats MW for 4 times",
+            "create event Call from 2025-03-12T09:45 to 2025-03-12T10:15 --autodecline"},
+        {"create event Call from 2025-03-12T09:45 to 2025-03-12T10:15",
+            "create event Gym from 2025-03-03T09:00 to 2025-03-03T10:00 repeats MW for 4 times --autodecline"}};
+    String[] conflicts = {"Gym", "Gym", "Call"};
+    for (int i = 0; i < cases.length; i++) {
+      CalendarManager calendar = new CalendarManager();
+      run(calendar, "begin", cases[i][0], cases[i][1]);
+      try {
+        run(calendar, "commit");
+        fail("Expected the transaction to be rolled back");
+      } catch (Exception e) {
+        assertEquals("Transaction rolled back: Conflict detected with event: " + conflicts[i], e.getMessage());
+      }
+      assertTrue(calendar.isEmpty());
+    }
+
+    // Same weekdays and times, but the spans do not meet.
+    CalendarManager calendar = new CalendarManager();
+    run(calendar, "begin", cases[0][0],
+            "create event Class from 2025-03-14T09:30 to 2025-03-14T10:30 repeats MF for 3 times --autodecline",
+            "commit");
+    assertEquals(7, calendar.getAllEvents().size());
+  }
+
+  @Test
+  public void testRollback_DiscardsStagedCommands() throws Exception {
+    CalendarManager calendar = new CalendarManager();
+    String output = run(calendar, "begin", "create event A on 2025-03-05",
+            "print events on 2025-03-05", "rollback");
+    assertTrue(output.contains("No events found on 2025-03-05"));
+    assertTrue(output.contains("Transaction rolled back: 1 command(s) discarded."));
+    assertTrue(calendar.getEventsOn(LocalDate.of(2025, 3, 5)).isEmpty());
+  }
+
+  @Test
+  public void testTransactionCommands_RejectMisuse() throws Exception {
+    String[][] cases = {
+        {"commit"},
+        {"rollback"},
+        {"begin", "begin"},
+        {"import cal events.csv"}};
+    String[] messages = {"No transaction is open.", "No transaction is open.", "A transaction is already open.",
+        "Imports cannot run inside a transaction."};
+    for (int i = 0; i < cases.length; i++) {
+      CalendarManager fresh = new CalendarManager();
+      if (i == 3) {
+        fresh.beginTransaction();
+      }
+      try {
+        run(fresh, cases[i]);
+        fail("Expected an error for " + String.join(", ", cases[i]));
+      } catch (Exception e) {
+        assertEquals(messages[i], e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testHeadless_ReportsUncommittedTransaction() throws Exception {
+    File file = File.createTempFile("commands", ".txt");
+    try (PrintWriter writer = new PrintWriter(file)) {
+      writer.println("begin");
+      writer.println("create event A on 2025-03-05");
+      writer.println("create event B on 2025-03-06");
+    }
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    System.setOut(new PrintStream(baos));
+    try {
+      CalendarApp.main(new String[]{"--mode", "headless", file.getPath()});
+    } finally {
+      System.setOut(originalOut);
+      file.delete();
+    }
+    String output = baos.toString();
+    assertTrue(output.contains("Transaction started."));
+    assertFalse(output.contains("All-day event created"));
+    assertTrue(output.contains("Transaction not committed: 2 staged command(s) discarded."));
+  }
+
+  @Test
+  public void testCommit_WritesJournalAsOneGroup() throws Exception {
+    File file = File.createTempFile("calendar", ".journal");
+    file.delete();
+    try (CommandJournal journal = CommandJournal.open(file.getPath(), CommandJournal.SyncPolicy.NEVER, 1)) {
+      CalendarManager calendar = new CalendarManager();
+      calendar.attachJournal(journal);
+      run(calendar, "begin", "create event A on 2025-03-05", "create event B on 2025-03-06");
+      assertEquals(0, file.length());
+      run(calendar, "commit");
+      assertTrue(file.length() > 0);
+    }
+    try (CommandJournal journal = CommandJournal.open(file.getPath(), CommandJournal.SyncPolicy.NEVER, 1)) {
+      CalendarManager replayed = new CalendarManager();
+      assertEquals(2, replayed.attachJournal(journal));
+      assertEquals(2, replayed.getAllEvents().size());
+    }
+    file.delete();
+  }
+
+  @Test
+  public void testCommit_JournalFailureAfterApplyIsNotARollback() throws Exception {
+    File file = File.createTempFile("calendar", ".journal");
+    file.delete();
+    CommandJournal journal = CommandJournal.open(file.getPath(), CommandJournal.SyncPolicy.NEVER, 1);
+    CalendarManager calendar = new CalendarManager();
+    calendar.attachJournal(journal);
+    // A closed channel fails the group write once every staged command has been applied.
+    journal.close();
+    run(calendar, "begin", "create event A on 2025-03-05", "create event B on 2025-03-06");
+    try {
+      run(calendar, "commit");
+      fail("Expected the journal write to fail");
+    } catch (Exception e) {
+      assertTrue(e.getMessage().startsWith(
+          "Transaction committed: 2 command(s) applied, but writing the journal failed"));
+    }
+    assertEquals(2, calendar.getAllEvents().size());
+    assertNull(calendar.openTransaction());
+    file.delete();
+  }
+}